@@ -0,0 +1,162 @@
+package com.bookhub.api.config;
+
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.model.VerifiedToken;
+import com.bookhub.api.repository.UserRepository;
+import com.bookhub.api.service.JwtService;
+import com.bookhub.api.service.MyUserDetailsService;
+import com.bookhub.api.service.UserStatusService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * What JwtAuthenticationFilter costs per authenticated request, for three ways of checking the token:
+ * <ul>
+ *     <li>before - three parses, each rebuilding the key and parser, as the filter did before JwtService.verify</li>
+ *     <li>uncached - one parse per request (a token this node hasn't seen yet)</li>
+ *     <li>cached - the same bearer token again, answered from the verified-claims cache</li>
+ * </ul>
+ * The filter runs stateless, so the only other work is the (cached) role check.
+ * <p>
+ * mvn -P benchmark test -Dtest=JwtAuthenticationFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("benchmark-secret-of-at-least-32-bytes".getBytes());
+    // Distinct tokens the uncached run cycles through, far more than its one-entry cache holds
+    private static final int TOKENS = 1024;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"before", "uncached", "cached"})
+    public String verification;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtService jwtService = switch (verification) {
+            case "before" -> new TripleParseJwtService(SECRET);
+            case "uncached" -> jwtService(1);
+            default -> jwtService(10_000);
+        };
+
+        UserRepository userRepo = mock(UserRepository.class);
+        when(userRepo.findById(anyString())).thenAnswer(inv -> Optional.of(user(inv.getArgument(0))));
+        filter = new JwtAuthenticationFilter(jwtService, new MyUserDetailsService(userRepo),
+                new UserStatusService(userRepo, Duration.ofHours(1)), true);
+
+        requests = new MockHttpServletRequest[verification.equals("cached") ? 1 : TOKENS];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new MockHttpServletRequest("GET", "/api/v1/books");
+            requests[i].setServletPath("/api/v1/books");
+            requests[i].addHeader("Authorization", "Bearer " + jwtService.generateAccessToken(user("user-" + i)));
+        }
+    }
+
+    @Benchmark
+    public void authenticate(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = requests[next++ % requests.length];
+        filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    //helper methods
+    private static JwtService jwtService(long verifiedCacheSize) {
+        return new JwtService(SECRET, Duration.ofHours(1), Duration.ofDays(30), verifiedCacheSize);
+    }
+
+    private static User user(String id) {
+        return User.builder()
+                .id(id)
+                .email(id + "@bookhub.test")
+                .password("unused")
+                .role(Role.USER)
+                .build();
+    }
+
+    /**
+     * The verification path as it was: extractUsername, then isTokenValid's extractUsername and
+     * isTokenExpired, each decoding the secret and building a parser before checking the signature.
+     */
+    private static class TripleParseJwtService extends JwtService {
+
+        private final String secretKey;
+
+        TripleParseJwtService(String secretKey) {
+            super(secretKey, Duration.ofHours(1), Duration.ofDays(30), 0);
+            this.secretKey = secretKey;
+        }
+
+        @Override
+        public VerifiedToken verify(String token) {
+            String subject = parse(token).getSubject();
+            boolean sameSubject = subject.equals(parse(token).getSubject());
+            Claims claims = parse(token);
+            if (!sameSubject || claims.getExpiration().toInstant().isBefore(Instant.now())) {
+                throw new IllegalStateException("Token rejected");
+            }
+            return new VerifiedToken(subject, claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant(), claims);
+        }
+
+        private Claims parse(String token) {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.BookSort;
+import com.bookhub.api.utils.KeysetCursor;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Newest-first catalog paging at BOOKS books: page-number paging (search with sort=recent, skip + limit)
+ * against cursor paging (findRecentAfter, a range scan on recent_idx) at increasing depths.
+ * Prints index keys and documents Mongo reads per call and p50/p99 latency; the only assertion
+ * is that both return the same page.
+ * <p>
+ * mvn -P benchmark test -Dtest=BookPagingBenchmark
+ */
+@Tag("benchmark")
+@DataMongoTest(properties = "MONGODB_URI=mongodb://unused")
+@Testcontainers(disabledWithoutDocker = true)
+class BookPagingBenchmark {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static final int BOOKS = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int[] PAGES = {1, 10, 100, 1_000, 4_000};
+    private static final int RUNS = 200;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private BookRepository bookRepo;
+
+    @Test
+    void offsetVersusCursorPaging() {
+        seed();
+
+        System.out.printf("%n%-8s %-8s %12s %12s %12s %12s%n", "page", "paging", "keys/call", "docs/call", "p50us", "p99us");
+        for (int page : PAGES) {
+            PageRequest pageable = PageRequest.of(page - 1, PAGE_SIZE);
+            KeysetCursor cursor = cursorBefore(page);
+
+            List<Book> byOffset = bookRepo.search(null, null, null, BookSort.RECENT, pageable).getContent();
+            List<Book> byCursor = bookRepo.findRecentAfter(null, cursor, PAGE_SIZE);
+            assertEquals(ids(byOffset), ids(byCursor));
+
+            report(page, "offset", () -> bookRepo.search(null, null, null, BookSort.RECENT, pageable));
+            report(page, "cursor", () -> bookRepo.findRecentAfter(null, cursor, PAGE_SIZE));
+        }
+    }
+
+    //helper methods
+    private void seed() {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Book> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < BOOKS; i++) {
+            batch.add(Book.builder()
+                    .title("Title of book " + i)
+                    .author("Author " + (i % 500))
+                    .description("Description of book " + i)
+                    .categoryIds(List.of("category-" + (i % 20)))
+                    .addedOn(start.plusMinutes(i))
+                    .build());
+            if (batch.size() == 10_000) {
+                mongoTemplate.insert(batch, Book.class);
+                batch.clear();
+            }
+        }
+    }
+
+    // The cursor a client holds after reading page - 1 pages, i.e. the last book of the page before
+    private KeysetCursor cursorBefore(int page) {
+        if (page == 1) {
+            return null;
+        }
+        List<Book> previous = bookRepo.search(null, null, null, BookSort.RECENT, PageRequest.of(page - 2, PAGE_SIZE)).getContent();
+        Book last = previous.get(previous.size() - 1);
+        return KeysetCursor.of(last.getAddedOn(), last.getId());
+    }
+
+    private void report(int page, String paging, Supplier<?> call) {
+        time(RUNS, call); // warm the cache
+        Document before = serverStatus();
+        long[] micros = time(RUNS, call);
+        Document after = serverStatus();
+
+        long keys = metric(after, "metrics", "queryExecutor", "scanned") - metric(before, "metrics", "queryExecutor", "scanned");
+        long docs = metric(after, "metrics", "queryExecutor", "scannedObjects") - metric(before, "metrics", "queryExecutor", "scannedObjects");
+        System.out.printf("%-8d %-8s %12.1f %12.1f %12d %12d%n", page, paging,
+                (double) keys / RUNS, (double) docs / RUNS, percentile(micros, 50), percentile(micros, 99));
+    }
+
+    private static long[] time(int runs, Supplier<?> call) {
+        long[] micros = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long startedAt = System.nanoTime();
+            call.get();
+            micros[run] = (System.nanoTime() - startedAt) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private Document serverStatus() {
+        return mongoTemplate.getDb().runCommand(new Document("serverStatus", 1));
+    }
+
+    private static long metric(Document status, String... path) {
+        Document node = status;
+        for (int i = 0; i < path.length - 1; i++) {
+            node = node.get(path[i], Document.class);
+        }
+        return ((Number) node.get(path[path.length - 1])).longValue();
+    }
+
+    private static List<String> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.BookSort;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Which index each shape of {@link BookRepositoryCustom#search} runs on, read from the server's own plan:
+ * every find is profiled and the last one's planSummary / hasSortStage are checked.
+ * <p>
+ * mvn -P benchmark test -Dbenchmark.groups=mongo
+ */
+@Tag("mongo")
+@DataMongoTest(properties = "MONGODB_URI=mongodb://unused")
+@Testcontainers(disabledWithoutDocker = true)
+class BookSearchPlanTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static final int BOOKS = 5_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MongoMappingContext mappingContext;
+    @Autowired
+    private BookRepository bookRepo;
+
+    @BeforeEach
+    void seedAndProfile() {
+        if (mongoTemplate.count(new Query(), Book.class) == 0) {
+            IndexOperations indexOps = mongoTemplate.indexOps(Book.class);
+            new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Book.class).forEach(indexOps::createIndex);
+
+            List<Book> books = new ArrayList<>(BOOKS);
+            for (int i = 0; i < BOOKS; i++) {
+                books.add(Book.builder()
+                        .title((i % 10 == 0 ? "Dune " : "Emma ") + i)
+                        .author("Author " + (i % 100))
+                        .description("A novel, number " + i)
+                        .categoryIds(List.of("c" + (i % 20)))
+                        .saveCount(i % 50)
+                        .addedOn(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(i))
+                        .build());
+            }
+            mongoTemplate.insertAll(books);
+        }
+        mongoTemplate.getDb().runCommand(new Document("profile", 2));
+    }
+
+    @Test
+    void eachSortWalksItsIndexWithoutSortingInMemory() {
+        assertPlan(null, null, null, BookSort.RECENT, "{ addedOn: -1, _id: -1 }", false);
+        assertPlan(null, null, null, BookSort.TITLE, "{ title: 1, _id: 1 }", false);
+        assertPlan(null, null, null, BookSort.POPULARITY, "{ saveCount: -1, _id: -1 }", false);
+    }
+
+    @Test
+    void aCategoryFilterUsesTheCategoryPrefixedIndexes() {
+        List<String> category = List.of("c3");
+        assertPlan(null, null, category, BookSort.RECENT, "{ categoryIds: 1, addedOn: -1, _id: -1 }", false);
+        assertPlan(null, null, category, BookSort.TITLE, "{ categoryIds: 1, title: 1, _id: 1 }", false);
+        assertPlan(null, null, category, BookSort.POPULARITY, "{ categoryIds: 1, saveCount: -1, _id: -1 }", false);
+    }
+
+    @Test
+    void severalCategoriesAreMergedOffTheCategoryIndexWithoutASort() {
+        // One index walk per category, merged in sort order (SORT_MERGE, not a blocking SORT)
+        List<String> categories = List.of("c3", "c7", "c11");
+        assertPlan(null, null, categories, BookSort.RECENT, "{ categoryIds: 1, addedOn: -1, _id: -1 }", false);
+        assertPlan(null, null, categories, BookSort.POPULARITY, "{ categoryIds: 1, saveCount: -1, _id: -1 }", false);
+    }
+
+    @Test
+    void relevanceWithoutFreeTextWalksTheRecentIndex() {
+        assertPlan(null, null, null, BookSort.RELEVANCE, "{ addedOn: -1, _id: -1 }", false);
+        assertPlan(null, "dune", null, BookSort.RELEVANCE, "{ addedOn: -1, _id: -1 }", false);
+        assertPlan(null, null, List.of("c3"), BookSort.RELEVANCE, "{ categoryIds: 1, addedOn: -1, _id: -1 }", false);
+    }
+
+    @Test
+    void aTitleSubstringIsFilteredOnTheSortIndexWalk() {
+        assertPlan(null, "dune", null, BookSort.RECENT, "{ addedOn: -1, _id: -1 }", false);
+    }
+
+    @Test
+    void freeTextUsesTheTextIndexAndOnlyRelevanceAvoidsASort() {
+        assertPlan("dune", null, null, BookSort.RELEVANCE, "_fts", false);
+        // The documented cost of combining free text with any other order
+        assertPlan("dune", null, null, BookSort.RECENT, "_fts", true);
+    }
+
+    //helper methods
+    private void assertPlan(String text, String title, List<String> categoryIds, BookSort sort,
+                            String expectedIndex, boolean expectSort) {
+        bookRepo.search(text, title, categoryIds, sort, PageRequest.of(0, 20));
+
+        Query lastFind = Query.query(Criteria.where("ns").is(mongoTemplate.getDb().getName() + ".books").and("op").is("query"))
+                .with(Sort.by(Sort.Order.desc("ts")))
+                .limit(1);
+        Document profiled = mongoTemplate.findOne(lastFind, Document.class, "system.profile");
+
+        String plan = profiled.getString("planSummary");
+        assertTrue(plan.startsWith("IXSCAN") && plan.contains(expectedIndex), plan);
+        assertEquals(expectSort, Boolean.TRUE.equals(profiled.getBoolean("hasSortStage")), plan);
+    }
+}
@@ -0,0 +1,167 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.utils.KeysetCursor;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Document vs bucketed reading history at USERS x ENTRIES_PER_USER opens: collection and index sizes,
+ * documents and bytes Mongo reads per getHistory call (the working set a hot page keeps in cache),
+ * and first-page / deep-page latency. Prints a table; the only assertion is that both layouts agree.
+ * <p>
+ * mvn -P benchmark test -Dtest=HistoryStoreBenchmark
+ */
+@Tag("benchmark")
+@DataMongoTest(properties = "MONGODB_URI=mongodb://unused")
+@Testcontainers(disabledWithoutDocker = true)
+class HistoryStoreBenchmark {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static final int USERS = 20;
+    private static final int ENTRIES_PER_USER = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 50;
+    private static final int RUNS = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ReadingHistoryRepository historyRepo;
+
+    @Test
+    void documentVersusBucketedLayout() {
+        DocumentHistoryStore documents = new DocumentHistoryStore(historyRepo);
+        BucketedHistoryStore buckets = new BucketedHistoryStore(mongoTemplate, 200);
+        seed(buckets);
+
+        System.out.printf("%n%-16s %10s %12s %12s %14s %14s %12s %12s %12s%n", "layout", "docs", "data MB", "index MB",
+                "docs read/call", "bytes out/call", "first p50us", "first p99us", "deep p50us");
+        report("reading_history", documents);
+        report("history_buckets", buckets);
+
+        for (int user = 0; user < USERS; user++) {
+            String userId = "user-" + user;
+            assertEquals(bookIds(documents.findHistoryAfter(userId, null, PAGE_SIZE)),
+                    bookIds(buckets.findHistoryAfter(userId, null, PAGE_SIZE)));
+        }
+    }
+
+    //helper methods
+    private void seed(BucketedHistoryStore buckets) {
+        Random random = new Random(42);
+        Instant start = Instant.parse("2024-10-01T00:00:00Z");
+        long spanSeconds = Duration.ofDays(730).toSeconds();
+
+        for (int user = 0; user < USERS; user++) {
+            String userId = "user-" + user;
+            List<ReadingHistory> history = new ArrayList<>(ENTRIES_PER_USER);
+            for (int book = 0; book < ENTRIES_PER_USER; book++) {
+                Instant openedAt = start.plusSeconds((long) (random.nextDouble() * spanSeconds));
+                history.add(ReadingHistory.builder()
+                        .userId(userId)
+                        .bookId("book-" + book)
+                        .bookTitle("Title of book " + book)
+                        .bookCoverImage("https://res.cloudinary.com/bookhub/covers/book-" + book + ".jpg")
+                        .firstOpenedAt(openedAt)
+                        .lastOpenedAt(openedAt)
+                        .updatedAt(openedAt)
+                        .build());
+            }
+            mongoTemplate.insert(history, ReadingHistory.class);
+            buckets.importHistory(userId, history);
+        }
+    }
+
+    private void report(String collection, ReadingHistoryStore store) {
+        Document stats = mongoTemplate.getDb().runCommand(new Document("collStats", collection));
+
+        // Warm the cache, then measure what a first page costs the server
+        time(RUNS, run -> store.findHistorySlice(user(run), PageRequest.of(0, PAGE_SIZE)));
+        Document before = serverStatus();
+        long[] first = time(RUNS, run -> store.findHistorySlice(user(run), PageRequest.of(0, PAGE_SIZE)));
+        Document after = serverStatus();
+
+        List<KeysetCursor> deepCursors = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            deepCursors.add(cursorAtPage(store, "user-" + user, DEEP_PAGE));
+        }
+        long[] deep = time(RUNS, run -> store.findHistoryAfter(user(run), deepCursors.get(run % USERS), PAGE_SIZE));
+
+        long scanned = metric(after, "metrics", "queryExecutor", "scannedObjects") - metric(before, "metrics", "queryExecutor", "scannedObjects");
+        long bytesOut = metric(after, "network", "bytesOut") - metric(before, "network", "bytesOut");
+        System.out.printf("%-16s %10d %12.1f %12.1f %14.1f %14d %12d %12d %12d%n", collection,
+                ((Number) stats.get("count")).longValue(),
+                ((Number) stats.get("size")).doubleValue() / (1 << 20),
+                ((Number) stats.get("totalIndexSize")).doubleValue() / (1 << 20),
+                (double) scanned / RUNS, bytesOut / RUNS,
+                percentile(first, 50), percentile(first, 99), percentile(deep, 50));
+    }
+
+    private static KeysetCursor cursorAtPage(ReadingHistoryStore store, String userId, int page) {
+        KeysetCursor cursor = null;
+        for (int i = 0; i < page; i++) {
+            List<ReadingHistory> entries = store.findHistoryAfter(userId, cursor, PAGE_SIZE);
+            ReadingHistory last = entries.get(entries.size() - 1);
+            cursor = KeysetCursor.of(last.getLastOpenedAt(), last.getId());
+        }
+        return cursor;
+    }
+
+    private static long[] time(int runs, Consumer<Integer> call) {
+        long[] micros = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long startedAt = System.nanoTime();
+            call.accept(run);
+            micros[run] = (System.nanoTime() - startedAt) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private Document serverStatus() {
+        return mongoTemplate.getDb().runCommand(new Document("serverStatus", 1));
+    }
+
+    private static long metric(Document status, String... path) {
+        Document node = status;
+        for (int i = 0; i < path.length - 1; i++) {
+            node = node.get(path[i], Document.class);
+        }
+        return ((Number) node.get(path[path.length - 1])).longValue();
+    }
+
+    private static String user(int run) {
+        return "user-" + (run % USERS);
+    }
+
+    private static List<String> bookIds(List<ReadingHistory> history) {
+        return history.stream().map(ReadingHistory::getBookId).toList();
+    }
+}
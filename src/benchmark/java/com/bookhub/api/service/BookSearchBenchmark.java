@@ -0,0 +1,163 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.BookRepositoryCustomImpl;
+import com.bookhub.api.utils.InvertedIndex;
+import com.bookhub.api.utils.TextNormalizer;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title search at growing catalog sizes: the in-memory InvertedIndex behind BookSearchIndex against the
+ * findByTitleContainingIgnoreCase regex query it replaced, first page of 20 plus the total either way.
+ * The regex can't use an index, so its cost follows the catalog; the index only walks the posting lists
+ * of the query words, whose length follows how many books have the word, not how many books there are.
+ * The vocabulary grows with the catalog so each query word is in ~30 titles at every size, like a search
+ * for a specific title; a word in a fixed share of all books makes the index grow too, at that share.
+ * <p>
+ * The regex path needs Docker (a Testcontainers Mongo); without it only the index path runs.
+ * <p>
+ * mvn -P benchmark test -Dtest=BookSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    // Each title has three words out of books / WORD_SPREAD, so any one word is in ~30 titles
+    private static final int WORD_SPREAD = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int books;
+
+    @Param({"index", "regex"})
+    public String path;
+
+    private MongoDBContainer mongo;
+    private MongoClient client;
+    private BookRepository bookRepo;
+    private InvertedIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int vocabulary = books / WORD_SPREAD;
+        List<Book> catalog = catalog(vocabulary);
+        queries = new String[64];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = word(i * 7 % vocabulary);
+        }
+
+        if (path.equals("index")) {
+            index = new InvertedIndex();
+            for (Book book : catalog) {
+                // Same tokens as BookSearchIndex.index: title twice, then author and description
+                List<String> titleTokens = TextNormalizer.tokenize(book.getTitle());
+                List<String> tokens = new ArrayList<>(titleTokens);
+                tokens.addAll(titleTokens);
+                tokens.addAll(TextNormalizer.tokenize(book.getAuthor()));
+                tokens.addAll(TextNormalizer.tokenize(book.getDescription()));
+                index.put(book.getId(), tokens, book.getCategoryIds());
+            }
+            return;
+        }
+
+        mongo = new MongoDBContainer("mongo:7.0");
+        mongo.start();
+        client = MongoClients.create(mongo.getReplicaSetUrl());
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "bookhub");
+        for (int from = 0; from < catalog.size(); from += 10_000) {
+            mongoTemplate.insert(catalog.subList(from, Math.min(catalog.size(), from + 10_000)), Book.class);
+        }
+        bookRepo = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(BookRepository.class, RepositoryFragments.just(new BookRepositoryCustomImpl(mongoTemplate)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mongo != null) {
+            client.close();
+            mongo.stop();
+        }
+    }
+
+    @Benchmark
+    public Object search() {
+        String query = queries[next++ % queries.length];
+        return path.equals("index")
+                ? index.search(TextNormalizer.tokenize(query), null, 0, PAGE_SIZE)
+                : bookRepo.findByTitleContainingIgnoreCase(query, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void run() throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder().include(BookSearchBenchmark.class.getSimpleName());
+        if (!DockerClientFactory.instance().isDockerAvailable()) {
+            options.param("path", "index");
+        }
+        new Runner(options.build()).run();
+    }
+
+    //helper methods
+    private List<Book> catalog(int vocabulary) {
+        Random random = new Random(42);
+        List<Book> catalog = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            catalog.add(Book.builder()
+                    .id(String.format("%024x", i))
+                    .title(word(random.nextInt(vocabulary)) + " " + word(random.nextInt(vocabulary)) + " " + word(random.nextInt(vocabulary)))
+                    .author("Author " + random.nextInt(5_000))
+                    .description("Description of book " + i)
+                    .categoryIds(List.of("category-" + random.nextInt(20)))
+                    .build());
+        }
+        return catalog;
+    }
+
+    // Distinct six-letter made-up words ("waaaax", "wbaaax", ...), so a title substring match is a whole-word match
+    private static String word(int n) {
+        StringBuilder word = new StringBuilder("w");
+        for (int i = 0; i < 4; i++) {
+            word.append((char) ('a' + n % 26));
+            n /= 26;
+        }
+        return word.append('x').toString();
+    }
+}
@@ -0,0 +1,163 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.LoginRequestDTO;
+import com.bookhub.api.dto.LoginResponseDTO;
+import com.bookhub.api.exception.ServiceBusyException;
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Login throughput with THREADS concurrent request threads at the default BCrypt cost:
+ * <ul>
+ *     <li>before - authManager.authenticate (lookup + BCrypt), then a second lookup and BCrypt in login,
+ *     both on the request thread</li>
+ *     <li>after - UserService.login: one lookup, one BCrypt on PasswordHashingService's pool</li>
+ *     <li>saturated - the same with a pool and queue smaller than the number of request threads: the
+ *     overflow is turned away at once with ServiceBusyException instead of waiting on a request thread</li>
+ * </ul>
+ * The user store is an in-memory stub and the refresh token isn't persisted, so BCrypt is the only real cost.
+ * "accepted" and "busy" are logins per second that succeeded and that got a 503.
+ * <p>
+ * mvn -P benchmark test -Dtest=LoginBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(LoginBenchmark.THREADS)
+@Fork(1)
+public class LoginBenchmark {
+
+    static final int THREADS = 8;
+    private static final int BCRYPT_STRENGTH = 10;
+    private static final String SECRET = Base64.getEncoder().encodeToString("benchmark-secret-of-at-least-32-bytes".getBytes());
+    private static final String EMAIL = "reader@bookhub.test";
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"before", "after", "saturated"})
+    public String path;
+
+    private PasswordEncoder encoder;
+    private UserRepository userRepo;
+    private AuthenticationManager authManager;
+    private PasswordHashingService passwordHasher;
+    private JwtService jwtService;
+    private UserService userService;
+    private LoginRequestDTO request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(BCRYPT_STRENGTH);
+        User user = User.builder()
+                .id("u1")
+                .email(EMAIL)
+                .password(encoder.encode(PASSWORD))
+                .role(Role.USER)
+                .build();
+
+        // stubOnly: the mocks are called from every thread and shouldn't record each call
+        userRepo = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepo.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        RefreshTokenService refreshTokenService = mock(RefreshTokenService.class, withSettings().stubOnly());
+        when(refreshTokenService.issue(any())).thenReturn("refresh-token");
+        jwtService = new JwtService(SECRET, Duration.ofHours(1), Duration.ofDays(30), 10_000);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new MyUserDetailsService(userRepo));
+        provider.setPasswordEncoder(encoder);
+        authManager = new ProviderManager(provider);
+
+        // Defaults from application.yml, or a pool that THREADS concurrent logins overflow
+        passwordHasher = path.equals("saturated")
+                ? new PasswordHashingService(encoder, BCRYPT_STRENGTH, 2, 2, Duration.ofSeconds(5))
+                : new PasswordHashingService(encoder, BCRYPT_STRENGTH, 4, 64, Duration.ofSeconds(5));
+        userService = new UserService(jwtService, userRepo, passwordHasher, refreshTokenService);
+        request = new LoginRequestDTO(EMAIL, PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Benchmark
+    public Object login(Outcomes outcomes) {
+        try {
+            Object response = path.equals("before") ? loginTheOldWay() : userService.login(request);
+            outcomes.accepted++;
+            return response;
+        } catch (ServiceBusyException e) {
+            outcomes.busy++;
+            return e;
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long accepted;
+        public long busy;
+    }
+
+    //helper methods
+    // What login did before: the authentication manager's check, then the same check again
+    private LoginResponseDTO loginTheOldWay() {
+        authManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+        User user = userRepo.findByEmail(request.getEmail())
+                .orElseThrow(() -> new BadCredentialsException("User not found"));
+        if (!encoder.matches(request.getPassword(), user.getPassword())) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        return LoginResponseDTO.builder()
+                .accessToken(jwtService.generateAccessToken(user))
+                .refreshToken("refresh-token")
+                .build();
+    }
+}
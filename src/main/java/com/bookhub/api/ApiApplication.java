@@ -2,10 +2,10 @@ package com.bookhub.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableMongoAuditing
+@EnableScheduling
 public class ApiApplication {
 
 	public static void main(String[] args) {
@@ -1,12 +1,16 @@
 package com.bookhub.api.config;
 
+import com.bookhub.api.model.User;
+import com.bookhub.api.model.UserPrincipal;
+import com.bookhub.api.model.VerifiedToken;
 import com.bookhub.api.service.JwtService;
 import com.bookhub.api.service.MyUserDetailsService;
+import com.bookhub.api.service.UserStatusService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,11 +22,23 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final MyUserDetailsService userDetailsService;
+    private final UserStatusService userStatusService;
+    private final boolean stateless;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            MyUserDetailsService userDetailsService,
+            UserStatusService userStatusService,
+            @Value("${jwt.stateless:false}") boolean stateless) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.userStatusService = userStatusService;
+        this.stateless = stateless;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -47,12 +63,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
+            // One signature check per token; expired or tampered tokens throw here
+            VerifiedToken token = jwtService.verify(jwt);
+            userEmail = token.getSubject();
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = resolveUser(token);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && userEmail.equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -75,4 +93,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     }
 
+    /**
+     * In stateless mode the principal is built from the token claims with no user lookup.
+     * Tokens issued before the uid/role claims existed still go through the database.
+     */
+    private UserDetails resolveUser(VerifiedToken token) {
+        if (stateless && token.getUserId() != null && token.getRole() != null) {
+            if (!userStatusService.hasRole(token.getUserId(), token.getRole())) {
+                // User was deleted or their role changed after this token was issued
+                return null;
+            }
+            User user = User.builder()
+                    .id(token.getUserId())
+                    .email(token.getSubject())
+                    .role(token.getRole())
+                    .build();
+            return new UserPrincipal(user);
+        }
+        return userDetailsService.loadUserByUsername(token.getSubject());
+    }
+
 }
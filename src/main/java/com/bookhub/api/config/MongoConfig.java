@@ -0,0 +1,10 @@
+package com.bookhub.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+// Kept off ApiApplication so web slice tests (@WebMvcTest) can start without Mongo
+@Configuration
+@EnableMongoAuditing
+public class MongoConfig {
+}
@@ -0,0 +1,116 @@
+package com.bookhub.api.config;
+
+import com.bookhub.api.dto.ApiErrorResponseDto;
+import com.bookhub.api.model.UserPrincipal;
+import com.bookhub.api.utils.TokenBucket;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token buckets in front of the expensive endpoints configured under rate-limit.routes.
+ * Runs after JwtAuthenticationFilter so signed-in clients are keyed by user id, everyone else by IP.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RateLimitProperties.Route route = properties.isEnabled() ? findRoute(request) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = route.getName() + ":" + clientKey(request);
+        TokenBucket bucket = buckets.computeIfAbsent(key, k ->
+                new TokenBucket(route.getCapacity(), route.getRefillTokens(), route.getRefillPeriod()));
+
+        long waitNanos = bucket.tryConsume();
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        reject(request, response, waitNanos);
+    }
+
+    /**
+     * Drops buckets nobody has used for a while so the map doesn't grow with every client ever seen.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.idle-eviction:10m}")
+    public void evictIdleBuckets() {
+        long idleSince = System.nanoTime() - properties.getIdleEviction().toNanos();
+        buckets.values().removeIf(bucket -> bucket.isIdleSince(idleSince));
+    }
+
+    //helper methods
+    private RateLimitProperties.Route findRoute(HttpServletRequest request) {
+        String path = request.getServletPath();
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            if (route.getMethod() != null && !route.getMethod().equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (pathMatcher.match(route.getPattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return "user:" + principal.getUser().getId();
+        }
+        // The client's address, not the load balancer's: server.forward-headers-strategy resolves it from
+        // X-Forwarded-For, trusting the header only from known proxies
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+
+        ApiErrorResponseDto errorResponse = ApiErrorResponseDto.builder()
+                .error(ApiErrorResponseDto.ErrorDetails.of(
+                        "RATE_LIMITED",
+                        "Too many requests, retry in " + retryAfterSeconds + " seconds"
+                ))
+                .path(request.getRequestURI())
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
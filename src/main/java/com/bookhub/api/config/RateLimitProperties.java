@@ -0,0 +1,34 @@
+package com.bookhub.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Buckets not touched for this long are dropped; a returning client simply starts with a full bucket
+    private Duration idleEviction = Duration.ofMinutes(10);
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String name;
+        // null matches every method
+        private String method;
+        // Ant-style, e.g. /api/v1/auth/**
+        private String pattern;
+        private long capacity;
+        private long refillTokens;
+        private Duration refillPeriod = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookhub.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Two schedulers: the write buffers flush on their own threads, so a long migration, reconcile or
+ * fan-out run on the shared one can't hold back flushes (and with them the request threads that
+ * wait on a full buffer).
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String BUFFER_FLUSH_SCHEDULER = "bufferFlushScheduler";
+
+    // Declared by hand because any other scheduler bean switches off Boot's default one; still takes spring.task.scheduling.*
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(BUFFER_FLUSH_SCHEDULER)
+    public ThreadPoolTaskScheduler bufferFlushScheduler(@Value("${buffer-flush.pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("buffer-flush-");
+        // Let an in-flight flush finish; the buffers' @PreDestroy then writes what is left
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
@@ -2,6 +2,7 @@ package com.bookhub.api.config;
 
 import com.bookhub.api.service.MyUserDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -32,6 +33,7 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter; // You’ll create this filter later
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationConfiguration authConfig;
 
 //    private final UserRepository userRepository;
@@ -54,12 +56,16 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/swagger-ui/**"
                         ).permitAll()
+
+                        // Counters and timers say a lot about traffic and internals; admins only
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                         .anyRequest().authenticated() // protect other endpoints
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                  .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class) // 🛡️ JWT filter
+                 .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class) // needs the user from the JWT filter
                  .build();
     }
 
@@ -68,7 +74,9 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(List.of("*")); // Allow all origins during testing
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Cache-Control",
+                "If-None-Match", "If-Modified-Since"));
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Last-Modified")); // so browser clients can revalidate
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -83,8 +91,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // Don't use NoOp in production
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength); // Don't use NoOp in production
     }
 
 }
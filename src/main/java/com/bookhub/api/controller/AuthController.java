@@ -1,7 +1,9 @@
 package com.bookhub.api.controller;
 
 import com.bookhub.api.dto.*;
+import com.bookhub.api.exception.ServiceBusyException;
 import com.bookhub.api.service.UserService;
+import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +29,8 @@ public class AuthController {
                     .data(loginResponse)
                     .build();
             return new ResponseEntity<>(response, HttpStatus.CREATED);
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             ApiResponse<LoginResponseDTO> errorResponse = ApiResponse.<LoginResponseDTO>builder()
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -46,6 +50,9 @@ public class AuthController {
                     .data(loginResponse)
                     .build();
             return ResponseEntity.ok(response);
+        } catch (ServiceBusyException e) {
+            // Let GlobalExceptionHandler answer 503 so clients know to back off
+            throw e;
         } catch (Exception e) {
             ApiResponse<LoginResponseDTO> errorResponse = ApiResponse.<LoginResponseDTO>builder()
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -67,4 +74,15 @@ public class AuthController {
                 .build();
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestBody @Valid RefreshTokenRequestDTO refreshRequest) {
+        service.logout(refreshRequest.getRefreshToken());
+
+        ApiResponse<Void> response = ApiResponse.<Void>builder()
+                .status(HttpStatus.OK)
+                .message("Logout successful")
+                .build();
+        return ResponseEntity.ok(response);
+    }
 }
@@ -3,14 +3,33 @@ package com.bookhub.api.controller;
 import com.bookhub.api.dto.ApiResponse;
 import com.bookhub.api.dto.BookDTO;
 import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.dto.BookSummaryDTO;
+import com.bookhub.api.dto.BookSuggestionDTO;
+import com.bookhub.api.dto.CursorPage;
+import com.bookhub.api.model.BookSort;
+import com.bookhub.api.service.BookExportService;
 import com.bookhub.api.service.BookService;
+import com.bookhub.api.utils.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/books")
@@ -18,16 +37,27 @@ import org.springframework.web.bind.annotation.*;
 public class BookController {
 
     private final BookService bookService;
+    private final BookExportService bookExportService;
 
+    // includeTotal=false returns a Slice (no totalElements/totalPages) and skips the count entirely
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<BookResponseDTO>>> getAllBooks(
+    public ResponseEntity<ApiResponse<Slice<BookSummaryDTO>>> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            WebRequest webRequest) {
 
         try {
-            Page<BookResponseDTO> booksPage = bookService.getAllBooks(page, size);
+            Pageable pageable = PageRequest.of(page, size);
+            Slice<BookSummaryDTO> booksPage = includeTotal
+                    ? bookService.getBooksByCategory(categoryId, pageable)
+                    : bookService.getBookSlice(categoryId, pageable);
+            if (ETags.checkNotModified(webRequest, ETags.forSlice(booksPage))) {
+                return null; // 304, nothing gets serialized
+            }
 
-            ApiResponse<Page<BookResponseDTO>> response = ApiResponse.<Page<BookResponseDTO>>builder()
+            ApiResponse<Slice<BookSummaryDTO>> response = ApiResponse.<Slice<BookSummaryDTO>>builder()
                     .status(HttpStatus.OK)
                     .message("Books retrieved successfully")
                     .data(booksPage)
@@ -35,7 +65,7 @@ public class BookController {
 
             return ResponseEntity.ok(response);
         }catch (Exception e) {
-            ApiResponse<Page<BookResponseDTO>> errorResponse = ApiResponse.<Page<BookResponseDTO>>builder()
+            ApiResponse<Slice<BookSummaryDTO>> errorResponse = ApiResponse.<Slice<BookSummaryDTO>>builder()
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .message("Failed to retrieve books: " + e.getMessage())
                     .data(null)
@@ -45,20 +75,51 @@ public class BookController {
         }
     }
 
+    // Opt-in keyset paging: send ?cursor= (empty for the first page), then the nextCursor of each response
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<BookSummaryDTO>>> getBooksByCursor(
+            @RequestParam String cursor,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+
+        CursorPage<BookSummaryDTO> books = bookService.getBooksAfter(categoryId, cursor, size);
+        if (ETags.checkNotModified(webRequest, ETags.forCursorPage(books))) {
+            return null;
+        }
+
+        ApiResponse<CursorPage<BookSummaryDTO>> response = ApiResponse.<CursorPage<BookSummaryDTO>>builder()
+                .status(HttpStatus.OK)
+                .message("Books retrieved successfully")
+                .data(books)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<Page<BookResponseDTO>>> searchBooks(
-            @RequestParam(required = false) String title,
+    public ResponseEntity<ApiResponse<Page<BookSummaryDTO>>> searchBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String title, // older clients: case-insensitive substring of the title
+            @RequestParam(required = false) List<String> categoryIds,
+            @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
+
+        BookSort bookSort = BookSort.fromParam(sort); // bad values are a 400, not a failed search
 
         try {
-            Page<BookResponseDTO> booksPage = bookService.searchBooksByTitle(title, page, size);
+            Page<BookSummaryDTO> booksPage = bookService.searchBooks(q, title, categoryIds, bookSort, PageRequest.of(page, size));
+            if (ETags.checkNotModified(webRequest, ETags.forSlice(booksPage))) {
+                return null;
+            }
 
             String message = booksPage.getTotalElements() == 0
                     ? "No books found matching your search"
                     : "Books retrieved successfully";
 
-            ApiResponse<Page<BookResponseDTO>> response = ApiResponse.<Page<BookResponseDTO>>builder()
+            ApiResponse<Page<BookSummaryDTO>> response = ApiResponse.<Page<BookSummaryDTO>>builder()
                     .status(HttpStatus.OK)
                     .message(message)
                     .data(booksPage)
@@ -67,7 +128,7 @@ public class BookController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            ApiResponse<Page<BookResponseDTO>> errorResponse = ApiResponse.<Page<BookResponseDTO>>builder()
+            ApiResponse<Page<BookSummaryDTO>> errorResponse = ApiResponse.<Page<BookSummaryDTO>>builder()
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .message("Search failed: " + e.getMessage())
                     .data(null)
@@ -77,10 +138,64 @@ public class BookController {
         }
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<BookSuggestionDTO>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest webRequest) {
+
+        List<BookSuggestionDTO> suggestions = bookService.suggest(prefix, Math.max(1, limit));
+        if (ETags.checkNotModified(webRequest, ETags.forList(suggestions))) {
+            return null;
+        }
+
+        ApiResponse<List<BookSuggestionDTO>> response = ApiResponse.<List<BookSuggestionDTO>>builder()
+                .status(HttpStatus.OK)
+                .message("Suggestions retrieved successfully")
+                .data(suggestions)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Full (or ?since= incremental) catalog dump as NDJSON, streamed from a cursor; ?gzip=true sends a .ndjson.gz
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                bookExportService.export(since, gzipOut);
+                gzipOut.finish();
+            } else {
+                bookExportService.export(since, out);
+            }
+        };
+
+        String fileName = "books" + (since != null ? "-since-" + since.toLocalDate() : "") + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
     @GetMapping("/{bookId}")
-    public ResponseEntity<ApiResponse<BookResponseDTO>> getBookById(@PathVariable String bookId) {
+    public ResponseEntity<ApiResponse<BookResponseDTO>> getBookById(@PathVariable String bookId, WebRequest webRequest) {
+
+            // A revalidation is decided from the cached entry or a timestamps-only query, before the book is loaded.
+            // Plain GETs skip that query: the book is loaded first and its version then comes from the detail cache.
+            boolean conditional = ETags.isConditional(webRequest);
+            if (conditional && bookNotModified(bookId, webRequest)) {
+                return null;
+            }
 
             BookResponseDTO book = bookService.getBookById(bookId);
+            if (!conditional) {
+                bookNotModified(bookId, webRequest); // only tags the response
+            }
 
             ApiResponse<BookResponseDTO> response = ApiResponse.<BookResponseDTO>builder()
                     .status(HttpStatus.OK)
@@ -137,4 +252,10 @@ public class BookController {
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-}
\ No newline at end of file
+
+    //helper methods
+    private boolean bookNotModified(String bookId, WebRequest webRequest) {
+        long lastModified = bookService.getBookLastModified(bookId);
+        return ETags.checkNotModified(webRequest, ETags.forVersion(bookId, lastModified), lastModified);
+    }
+}
@@ -0,0 +1,69 @@
+package com.bookhub.api.controller;
+
+import com.bookhub.api.dto.ApiResponse;
+import com.bookhub.api.dto.ImportJobDTO;
+import com.bookhub.api.service.BookImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/books/import")
+@RequiredArgsConstructor
+public class BookImportController {
+
+    private final BookImportService bookImportService;
+
+    // Body: the metadata as text/csv or application/x-ndjson, or an application/zip holding
+    // metadata.csv / metadata.ndjson plus the covers and book files it names. Read as a stream,
+    // so it isn't bound by the multipart limits the other upload endpoints use.
+    @PostMapping(consumes = {"application/zip", "text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> startImport(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+
+        ImportJobDTO job = bookImportService.startImport(body, contentType);
+
+        ApiResponse<ImportJobDTO> response = ApiResponse.<ImportJobDTO>builder()
+                .status(HttpStatus.ACCEPTED)
+                .message("Import queued with " + job.getTotalRows() + " rows")
+                .data(job)
+                .build();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> getImportJob(@PathVariable String jobId) {
+
+        ImportJobDTO job = bookImportService.getJob(jobId);
+
+        ApiResponse<ImportJobDTO> response = ApiResponse.<ImportJobDTO>builder()
+                .status(HttpStatus.OK)
+                .message("Import job retrieved successfully")
+                .data(job)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> cancelImportJob(@PathVariable String jobId) {
+
+        ImportJobDTO job = bookImportService.cancelJob(jobId);
+
+        ApiResponse<ImportJobDTO> response = ApiResponse.<ImportJobDTO>builder()
+                .status(HttpStatus.OK)
+                .message("Import job cancelled after " + job.getProcessedRows() + " rows")
+                .data(job)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+}
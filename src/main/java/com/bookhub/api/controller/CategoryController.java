@@ -2,6 +2,7 @@ package com.bookhub.api.controller;
 
 import com.bookhub.api.dto.CategoryDTO;
 import com.bookhub.api.service.CategoryService;
+import com.bookhub.api.utils.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -9,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/v1/categories")
@@ -20,8 +22,13 @@ public class CategoryController {
     @GetMapping
     public ResponseEntity<Page<CategoryDTO>> getAllCategories(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(categoryService.getAllCategories(page, size));
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
+        Page<CategoryDTO> categories = categoryService.getAllCategories(page, size);
+        if (ETags.checkNotModified(webRequest, ETags.forSlice(categories))) {
+            return null;
+        }
+        return ResponseEntity.ok(categories);
     }
 
     @PostMapping
@@ -2,16 +2,20 @@ package com.bookhub.api.controller;
 
 import com.bookhub.api.dto.ApiResponse;
 import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.dto.BookSummaryDTO;
+import com.bookhub.api.dto.CursorPage;
 import com.bookhub.api.dto.ToggleSaveResponseDTO;
 import com.bookhub.api.service.BookService;
+import com.bookhub.api.utils.ETags;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/v1/saved")
@@ -36,13 +40,39 @@ public class SavedBookController {
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ApiResponse<Page<BookResponseDTO>>> getSavedBooks(
+    public ResponseEntity<ApiResponse<Slice<BookSummaryDTO>>> getSavedBooks(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            WebRequest webRequest) {
             Pageable pageable = PageRequest.of(page, size);
-            Page<BookResponseDTO> savedBooks = bookService.getSavedBooksForCurrentUser(pageable);
+            Slice<BookSummaryDTO> savedBooks = includeTotal
+                    ? bookService.getSavedBooksForCurrentUser(pageable)
+                    : bookService.getSavedBookSliceForCurrentUser(pageable);
+            if (ETags.checkNotModified(webRequest, ETags.forSlice(savedBooks))) {
+                return null;
+            }
 
-            ApiResponse<Page<BookResponseDTO>> response = ApiResponse.<Page<BookResponseDTO>>builder()
+            ApiResponse<Slice<BookSummaryDTO>> response = ApiResponse.<Slice<BookSummaryDTO>>builder()
+                    .status(HttpStatus.OK)
+                    .message("Saved books retrieved successfully.")
+                    .data(savedBooks)
+                    .build();
+            return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<CursorPage<BookSummaryDTO>>> getSavedBooksByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+            CursorPage<BookSummaryDTO> savedBooks = bookService.getSavedBooksForCurrentUser(cursor, size);
+            if (ETags.checkNotModified(webRequest, ETags.forCursorPage(savedBooks))) {
+                return null;
+            }
+
+            ApiResponse<CursorPage<BookSummaryDTO>> response = ApiResponse.<CursorPage<BookSummaryDTO>>builder()
                     .status(HttpStatus.OK)
                     .message("Saved books retrieved successfully.")
                     .data(savedBooks)
@@ -1,19 +1,27 @@
 package com.bookhub.api.controller;
 
 import com.bookhub.api.dto.ApiResponse; // Your custom response wrapper
+import com.bookhub.api.dto.ContinueReadingDTO;
+import com.bookhub.api.dto.CursorPage;
 import com.bookhub.api.dto.LogHistoryRequestDTO;
+import com.bookhub.api.dto.ProgressBatchSyncRequestDTO;
+import com.bookhub.api.dto.ProgressSyncResultDTO;
 import com.bookhub.api.dto.ReadingHistoryResponseDTO;
 import com.bookhub.api.dto.ReadingProgressDTO;
 import com.bookhub.api.service.UserActivityService;
+import com.bookhub.api.utils.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -45,22 +53,29 @@ public class UserActivityController {
 
     @GetMapping("/history")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ApiResponse<Page<ReadingHistoryResponseDTO>>> getReadingHistory(
+    public ResponseEntity<ApiResponse<Slice<ReadingHistoryResponseDTO>>> getReadingHistory(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            WebRequest webRequest) {
 
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<ReadingHistoryResponseDTO> historyPage = userActivityService.getHistory(pageable);
+            Slice<ReadingHistoryResponseDTO> historyPage = includeTotal
+                    ? userActivityService.getHistory(pageable)
+                    : userActivityService.getHistorySlice(pageable);
+            if (ETags.checkNotModified(webRequest, ETags.forSlice(historyPage))) {
+                return null;
+            }
 
-            ApiResponse<Page<ReadingHistoryResponseDTO>> response = ApiResponse.<Page<ReadingHistoryResponseDTO>>builder()
+            ApiResponse<Slice<ReadingHistoryResponseDTO>> response = ApiResponse.<Slice<ReadingHistoryResponseDTO>>builder()
                     .status(HttpStatus.OK)
                     .message("Reading history retrieved successfully.")
                     .data(historyPage)
                     .build();
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            ApiResponse<Page<ReadingHistoryResponseDTO>> errorResponse = ApiResponse.<Page<ReadingHistoryResponseDTO>>builder()
+            ApiResponse<Slice<ReadingHistoryResponseDTO>> errorResponse = ApiResponse.<Slice<ReadingHistoryResponseDTO>>builder()
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .message("Failed to retrieve history: " + e.getMessage())
                     .build();
@@ -68,6 +83,47 @@ public class UserActivityController {
         }
     }
 
+    // Keyset paging for long histories; invalid cursors are a 400 from the global handler
+    @GetMapping(value = "/history", params = "cursor")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<CursorPage<ReadingHistoryResponseDTO>>> getReadingHistoryByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+
+        CursorPage<ReadingHistoryResponseDTO> history = userActivityService.getHistory(cursor, size);
+        if (ETags.checkNotModified(webRequest, ETags.forCursorPage(history))) {
+            return null;
+        }
+
+        ApiResponse<CursorPage<ReadingHistoryResponseDTO>> response = ApiResponse.<CursorPage<ReadingHistoryResponseDTO>>builder()
+                .status(HttpStatus.OK)
+                .message("Reading history retrieved successfully.")
+                .data(history)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    // Everything the home screen's first paint needs in one call; see UserActivityService.getContinueReading
+    @GetMapping("/shelf/continue")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<List<ContinueReadingDTO>>> getContinueReading(
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
+
+        List<ContinueReadingDTO> shelf = userActivityService.getContinueReading(size);
+        if (ETags.checkNotModified(webRequest, ETags.forList(shelf))) {
+            return null;
+        }
+
+        ApiResponse<List<ContinueReadingDTO>> response = ApiResponse.<List<ContinueReadingDTO>>builder()
+                .status(HttpStatus.OK)
+                .message("Continue reading shelf retrieved successfully.")
+                .data(shelf)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     /// progress endpoints
 
     @PutMapping("/progress/{bookId}")
@@ -93,11 +149,38 @@ public class UserActivityController {
         }
     }
 
+    // Offline clients replay many books at once; entries that lost to a newer position come back STALE
+    @PostMapping("/progress:batchSync")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<List<ProgressSyncResultDTO>>> batchSyncProgress(
+            @RequestBody @Valid ProgressBatchSyncRequestDTO request) {
+
+        try {
+            List<ProgressSyncResultDTO> results = userActivityService.batchSyncProgress(request.getEntries());
+            ApiResponse<List<ProgressSyncResultDTO>> response = ApiResponse.<List<ProgressSyncResultDTO>>builder()
+                    .status(HttpStatus.OK)
+                    .message("Progress synced successfully.")
+                    .data(results)
+                    .build();
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            ApiResponse<List<ProgressSyncResultDTO>> errorResponse = ApiResponse.<List<ProgressSyncResultDTO>>builder()
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .message("Failed to sync progress: " + e.getMessage())
+                    .build();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     @GetMapping("/progress/{bookId}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ApiResponse<ReadingProgressDTO>> getProgress(@PathVariable String bookId) {
+    public ResponseEntity<ApiResponse<ReadingProgressDTO>> getProgress(@PathVariable String bookId, WebRequest webRequest) {
         try {
             ReadingProgressDTO progress = userActivityService.getProgress(bookId);
+            long lastModified = progress.getUpdatedAt() != null ? progress.getUpdatedAt().toEpochMilli() : -1;
+            if (ETags.checkNotModified(webRequest, ETags.forVersion(bookId, lastModified), lastModified)) {
+                return null;
+            }
             ApiResponse<ReadingProgressDTO> response = ApiResponse.<ReadingProgressDTO>builder()
                     .status(HttpStatus.OK)
                     .message("Progress retrieved successfully.")
@@ -0,0 +1,34 @@
+package com.bookhub.api.dto;
+
+import com.bookhub.api.model.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One line of the catalog export: every stored field of a book except the legacy savedBy array
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookExportDTO {
+
+    private String id;
+    private String title;
+    private String author;
+    private String description;
+    private String isbn;
+    private String publishedDate;
+    private List<String> categoryIds;
+    private String coverImage;
+    private List<Resource> bookFiles;
+    private List<String> relatedBooks;
+    private long saveCount;
+    private LocalDateTime addedOn;
+    private String addedBy;
+    private LocalDateTime updatedOn;
+    private String updatedBy;
+}
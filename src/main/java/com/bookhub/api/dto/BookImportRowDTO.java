@@ -0,0 +1,27 @@
+package com.bookhub.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One book in a bulk import file. coverImage and bookFiles are entry names in the uploaded archive.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRowDTO {
+
+    private String title;
+    private String author;
+    private String description;
+    private String isbn;
+    private String publishedDate;
+    private List<String> categoryIds;
+    private String coverImage;
+    private List<String> bookFiles;
+}
@@ -0,0 +1,24 @@
+package com.bookhub.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestionDTO {
+
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+
+    private String text;
+    private Type type;
+
+    // Only set for TITLE suggestions
+    private String bookId;
+}
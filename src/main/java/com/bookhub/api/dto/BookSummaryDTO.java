@@ -0,0 +1,26 @@
+package com.bookhub.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// What list and search endpoints return per book; BookResponseDTO is the detail view
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookSummaryDTO {
+
+    private String id;
+
+    private String title;
+
+    private String author;
+
+    private String coverImage;
+
+    private List<String> categoryIds;
+}
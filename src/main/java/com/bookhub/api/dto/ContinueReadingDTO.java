@@ -0,0 +1,16 @@
+package com.bookhub.api.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+// One book on the home screen's "continue reading" shelf; progress is null if the user never saved a position
+@Data
+@Builder
+public class ContinueReadingDTO {
+
+    private BookSummaryDTO book;
+    private ReadingProgressDTO progress;
+    private Instant lastOpenedAt;
+}
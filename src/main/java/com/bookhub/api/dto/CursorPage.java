@@ -0,0 +1,41 @@
+package com.bookhub.api.dto;
+
+import com.bookhub.api.utils.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. There is no total or page number;
+ * pass nextCursor back as ?cursor= to get the following page, it is null on the last one.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+
+    /**
+     * @param fetched up to size + 1 items; the extra one only tells whether another page exists
+     * @param cursorOf the cursor pointing just past an item
+     */
+    public static <E, T> CursorPage<T> of(List<E> fetched, int size,
+                                          Function<E, KeysetCursor> cursorOf, Function<E, T> mapper) {
+        boolean hasNext = fetched.size() > size;
+        List<E> page = hasNext ? fetched.subList(0, size) : fetched;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), size, nextCursor, hasNext);
+    }
+
+    // The page size a client asked for, kept between 1 and MAX_SIZE
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+}
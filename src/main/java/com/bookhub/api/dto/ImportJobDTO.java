@@ -0,0 +1,26 @@
+package com.bookhub.api.dto;
+
+import com.bookhub.api.model.ImportJob;
+import com.bookhub.api.model.ImportJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+public class ImportJobDTO {
+
+    private String id;
+    private ImportJobStatus status;
+    private long totalRows;
+    private long processedRows;
+    private long importedBooks;
+    private long failedRows;
+    private List<ImportJob.RowError> errors;
+    private String failureReason;
+    private Instant createdOn;
+    private Instant updatedOn;
+    private Instant finishedOn;
+}
@@ -0,0 +1,16 @@
+package com.bookhub.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProgressBatchSyncRequestDTO {
+
+    @NotEmpty(message = "entries cannot be empty")
+    @Size(max = 500, message = "At most 500 entries per sync")
+    private List<@Valid ProgressSyncEntryDTO> entries;
+}
@@ -0,0 +1,29 @@
+package com.bookhub.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+// One book's position replayed by an offline client
+@Data
+public class ProgressSyncEntryDTO {
+
+    @NotBlank(message = "bookId is required")
+    private String bookId;
+
+    @NotNull
+    private String format;
+
+    @NotNull
+    private Map<String, Object> locator;
+
+    @NotNull
+    private Double percent;
+
+    // When the device recorded the position; required here since it decides which write wins
+    @NotNull(message = "updatedAt is required")
+    private Instant updatedAt;
+}
@@ -0,0 +1,18 @@
+package com.bookhub.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProgressSyncResultDTO {
+
+    public enum Status {
+        APPLIED,
+        STALE // the server already had a newer position; current holds it
+    }
+
+    private String bookId;
+    private Status status;
+    private ReadingProgressDTO current;
+}
@@ -17,6 +17,7 @@ public class ReadingProgressDTO {
     @NotNull
     private Double percent;
 
-    // The frontend sends this, but we'll rely on the server's timestamp for our database record.
+    // When the device recorded this position. Writes older than the stored one are ignored;
+    // responses carry the stored position's device time.
     private Instant updatedAt;
 }
@@ -11,6 +11,6 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class RefreshTokenResponseDTO {
     private String accessToken;    // New short-lived token (1 hour)
-    private String refreshToken;   // Same refresh token (return as-is)
+    private String refreshToken;   // Rotated refresh token, the one sent in is no longer valid
     private UserAccountDTO user;   // User information
 }
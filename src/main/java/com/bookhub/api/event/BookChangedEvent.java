@@ -0,0 +1,44 @@
+package com.bookhub.api.event;
+
+import com.bookhub.api.model.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a book is created, updated or deleted so in-memory indexes
+ * and caches can follow the catalog without BookService knowing about each of them.
+ */
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+
+    // State after the change, null for DELETED
+    private final Book book;
+
+    // State before the change, null for CREATED
+    private final Book previous;
+
+    public static BookChangedEvent created(Book book) {
+        return new BookChangedEvent(Type.CREATED, book, null);
+    }
+
+    public static BookChangedEvent updated(Book previous, Book book) {
+        return new BookChangedEvent(Type.UPDATED, book, previous);
+    }
+
+    public static BookChangedEvent deleted(Book previous) {
+        return new BookChangedEvent(Type.DELETED, null, previous);
+    }
+
+    public String getBookId() {
+        return book != null ? book.getId() : previous.getId();
+    }
+}
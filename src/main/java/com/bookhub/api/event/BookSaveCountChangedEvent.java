@@ -0,0 +1,17 @@
+package com.bookhub.api.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a book is saved or unsaved. Kept apart from BookChangedEvent because
+ * nothing but popularity changed, so listeners that only care about the content can ignore it.
+ */
+@Getter
+@AllArgsConstructor
+public class BookSaveCountChangedEvent {
+
+    private final String bookId;
+
+    private final long saveCount;
+}
@@ -2,6 +2,7 @@ package com.bookhub.api.exception;
 
 import com.bookhub.api.dto.ApiErrorResponseDto;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -166,6 +167,25 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiErrorResponseDto> handleServiceBusy(ServiceBusyException exception,
+                                                                 WebRequest webRequest) {
+        String path = webRequest.getDescription(false).replace("uri=", "");
+        log.warn("ServiceBusyException: {} for path: {}", exception.getMessage(), path);
+
+        ApiErrorResponseDto errorResponse = ApiErrorResponseDto.builder()
+                .error(ApiErrorResponseDto.ErrorDetails.of(
+                        "SERVICE_BUSY",
+                        exception.getMessage()
+                ))
+                .path(path)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     // Global fallback handler
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponseDto> handleGlobalException(Exception exception,
@@ -5,26 +5,39 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "books")
+// One index per sort of /books/search, with and without the category filter in front (see BookRepositoryCustomImpl)
+@CompoundIndex(name = "recent_idx", def = "{'addedOn' : -1, '_id' : -1}")
+@CompoundIndex(name = "title_idx", def = "{'title' : 1, '_id' : 1}")
+@CompoundIndex(name = "popularity_idx", def = "{'saveCount' : -1, '_id' : -1}")
+@CompoundIndex(name = "category_recent_idx", def = "{'categoryIds' : 1, 'addedOn' : -1, '_id' : -1}")
+@CompoundIndex(name = "category_title_idx", def = "{'categoryIds' : 1, 'title' : 1, '_id' : 1}")
+@CompoundIndex(name = "category_popularity_idx", def = "{'categoryIds' : 1, 'saveCount' : -1, '_id' : -1}")
+// Incremental exports (?since=) on books changed after a point in time
+@CompoundIndex(name = "updated_idx", def = "{'updatedOn' : 1}")
 public class Book {
 
     @Id
     private String id;
 
+    @TextIndexed(weight = 3)
     private String title;
 
+    @TextIndexed(weight = 2)
     private String author;
 
+    @TextIndexed
     private String description;
 
     private List<Resource> bookFileUrl;
@@ -47,6 +60,11 @@ public class Book {
 
     private List<String> relatedBooks; // later will add a list of books ids related to this books
 
-    @Builder.Default
-    private List<String> savedBy = new ArrayList<>();
+    // Saves live in the saved_books collection now. Only books the SavedBooksMigration
+    // hasn't drained yet still have this; nothing should write to it anymore.
+    @Deprecated
+    private List<String> savedBy;
+
+    // How many users saved this book; $inc'ed on every toggle and used for the popularity sort
+    private long saveCount;
 }
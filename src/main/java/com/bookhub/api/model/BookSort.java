@@ -0,0 +1,21 @@
+package com.bookhub.api.model;
+
+import com.bookhub.api.exception.ValidationException;
+
+public enum BookSort {
+    RELEVANCE,  // Text score, only meaningful with a free-text query
+    RECENT,     // Newest additions first
+    TITLE,      // A to Z
+    POPULARITY; // Most saved first
+
+    public static BookSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return BookSort.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unsupported sort: " + value + ". Use relevance, recent, title or popularity");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.bookhub.api.model;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable copy of every category, replaced as a whole whenever something changes.
+ * Readers take one reference and see a consistent set, never a half-applied write.
+ */
+@Getter
+public final class CategorySnapshot {
+
+    public record Entry(String id, String name, int bookCount) {
+    }
+
+    public static final CategorySnapshot EMPTY = new CategorySnapshot(0, List.of());
+
+    private final long version;
+    private final List<Entry> entries; // in the order Mongo returned them
+    private final Map<String, Entry> byId;
+    private final Map<String, Entry> byName;
+
+    private CategorySnapshot(long version, List<Entry> entries) {
+        this.version = version;
+        this.entries = List.copyOf(entries);
+        this.byId = toMap(entries, Entry::id);
+        this.byName = toMap(entries, Entry::name);
+    }
+
+    public static CategorySnapshot of(long version, Collection<Categories> categories) {
+        return new CategorySnapshot(version, categories.stream()
+                .map(c -> new Entry(c.getId(), c.getName(), c.getBookCount()))
+                .toList());
+    }
+
+    public Optional<Entry> findById(String id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<Entry> findByName(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    /**
+     * The ids from the list that aren't categories.
+     */
+    public List<String> missing(Collection<String> ids) {
+        return ids.stream().filter(id -> !byId.containsKey(id)).toList();
+    }
+
+    /**
+     * A copy with bookCount moved by the given deltas and the version bumped.
+     */
+    public CategorySnapshot withCountDeltas(Map<String, Integer> deltas) {
+        List<Entry> updated = entries.stream()
+                .map(e -> deltas.containsKey(e.id())
+                        ? new Entry(e.id(), e.name(), Math.max(0, e.bookCount() + deltas.get(e.id())))
+                        : e)
+                .toList();
+        return new CategorySnapshot(version + 1, updated);
+    }
+
+    private static Map<String, Entry> toMap(List<Entry> entries, Function<Entry, String> key) {
+        return Map.copyOf(entries.stream().collect(Collectors.toMap(key, e -> e, (first, duplicate) -> first)));
+    }
+}
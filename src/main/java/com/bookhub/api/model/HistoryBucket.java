@@ -0,0 +1,56 @@
+package com.bookhub.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bucketed reading history: up to history.bucket.max-entries opens of one user in one month
+ * (UTC, "yyyy-MM"). A full month spills into another bucket for the same month. A book sits in
+ * one bucket only, the one of its latest open. firstOpenedAt/lastOpenedAt are the exact oldest and
+ * newest entry times: moving an entry out recomputes them from what's left, and paging relies on it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "history_buckets")
+// Newest buckets first when paging a user's history
+@CompoundIndex(name = "user_recent_idx", def = "{'userId' : 1, 'lastOpenedAt' : -1}")
+// Finding the month's open bucket on write
+@CompoundIndex(name = "user_month_idx", def = "{'userId' : 1, 'month' : 1}")
+// Book title/cover fan-out (see HistoryFanoutService)
+@CompoundIndex(name = "book_idx", def = "{'opens.bookId' : 1, '_id' : 1}")
+public class HistoryBucket {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String bookId;
+        private String bookTitle;
+        private String bookCoverImage;
+        private Instant openedAt;
+    }
+
+    @Id
+    private String id;
+
+    private String userId;
+    private String month;
+
+    private int count;
+    private Instant firstOpenedAt;
+    private Instant lastOpenedAt;
+
+    @Builder.Default
+    private List<Entry> opens = new ArrayList<>();
+}
@@ -0,0 +1,42 @@
+package com.bookhub.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Copying a book's title and cover into its reading_history entries, one batch at a time.
+ * There's one task per book (id is the book id): another edit before it finishes restarts it
+ * with the new values and a new generation. cursor is the checkpoint, the last history _id done.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "history_fanout_tasks")
+public class HistoryFanoutTask {
+
+    @Id
+    private String id;
+
+    private String bookTitle;
+    private String bookCoverImage;
+
+    // Bumped by every edit; a runner only checkpoints or finishes the generation it claimed
+    private long generation;
+
+    private String cursor;
+
+    // Set while a node works on it; an expired lease (crashed node) lets another node take over
+    private Instant leaseUntil;
+
+    private Instant createdOn;
+
+    // Last enqueued or released; tasks are claimed oldest first
+    private Instant updatedOn;
+}
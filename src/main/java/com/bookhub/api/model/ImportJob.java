@@ -0,0 +1,63 @@
+package com.bookhub.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One bulk catalog import. processedRows is the checkpoint: every row before it has been
+ * inserted or rejected, and a resumed job starts reading right after it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "import_jobs")
+public class ImportJob {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+
+    @Id
+    private String id;
+
+    @Indexed
+    private ImportJobStatus status;
+
+    private Format format;
+    private boolean hasArchive;
+
+    private String createdBy;
+    private Instant createdOn;
+    private Instant updatedOn;
+    private Instant finishedOn;
+
+    private long totalRows;
+    private long processedRows;
+    private long importedBooks;
+    private long failedRows;
+
+    // Only the first few are kept; failedRows has the full count
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    private String failureReason; // why the whole job stopped, if it did
+}
@@ -14,6 +14,10 @@ import java.time.Instant;
 @Builder
 @Document(collection = "reading_history")
 @CompoundIndex(name = "user_book_idx", def = "{'userId' : 1, 'bookId' : 1}", unique = true)
+// Newest-first history listing and its keyset cursor (see ReadingHistoryRepositoryCustomImpl)
+@CompoundIndex(name = "user_recent_idx", def = "{'userId' : 1, 'lastOpenedAt' : -1, '_id' : -1}")
+// Walking one book's entries in _id order when its title or cover changes (see HistoryFanoutService)
+@CompoundIndex(name = "book_idx", def = "{'bookId' : 1, '_id' : 1}")
 public class ReadingHistory {
 
     @Id
@@ -34,4 +34,8 @@ public class ReadingProgress {
 
     @LastModifiedDate
     private Instant updatedAt; // The server's timestamp for the last update
+
+    // The device's time for this position; a write only lands if it is newer than the stored one,
+    // so a delayed request from another device can't roll progress back
+    private Instant clientUpdatedAt;
 }
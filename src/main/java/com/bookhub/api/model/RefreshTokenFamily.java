@@ -0,0 +1,42 @@
+package com.bookhub.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One login session. Every refresh rotates currentTokenId; presenting any
+ * other token id from the same family means it was stolen and replayed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refresh_token_families")
+public class RefreshTokenFamily {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId;
+
+    // jti of the only refresh token in this family that may still be used
+    private String currentTokenId;
+
+    private boolean revoked;
+
+    private Instant createdAt;
+
+    private Instant rotatedAt;
+
+    // Mongo drops the family once its last refresh token has expired
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
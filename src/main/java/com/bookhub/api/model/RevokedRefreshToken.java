@@ -0,0 +1,37 @@
+package com.bookhub.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Exact record of a refresh token that must no longer be accepted.
+ * Each node mirrors these ids in an in-memory Bloom filter, see RefreshTokenDenyList.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revoked_refresh_tokens")
+public class RevokedRefreshToken {
+
+    // The token's jti
+    @Id
+    private String id;
+
+    private String familyId;
+
+    // Nodes poll on this to pick up revocations made elsewhere
+    @Indexed
+    private Instant revokedAt;
+
+    // No point remembering a token past its own expiry
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
@@ -0,0 +1,36 @@
+package com.bookhub.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// One document per (user, book) save, instead of an ever-growing savedBy array on the book
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "saved_books")
+// The toggle relies on this to never save the same book twice for a user
+@CompoundIndex(name = "user_book_idx", def = "{'userId' : 1, 'bookId' : 1}", unique = true)
+// The user's saved list, newest first, and its keyset cursor
+@CompoundIndex(name = "user_saved_idx", def = "{'userId' : 1, 'savedAt' : -1, '_id' : -1}")
+public class SavedBook {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    // Indexed on its own for cleaning up after a deleted book and recounting saveCount
+    @Indexed
+    private String bookId;
+
+    private Instant savedAt;
+}
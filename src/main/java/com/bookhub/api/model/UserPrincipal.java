@@ -53,7 +53,7 @@ public class UserPrincipal implements UserDetails {
     }
 
     // Extra helper: get the actual User object if needed
-//    public User getUser() {
-//        return user;
-//    }
+    public User getUser() {
+        return user;
+    }
 }
@@ -0,0 +1,48 @@
+package com.bookhub.api.model;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The result of a successful signature check on a JWT.
+ * Immutable so that one instance can be shared by every request carrying the same token.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String FAMILY_ID_CLAIM = "fam";
+
+    private final String subject;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final Claims claims;
+
+    // Only present on access tokens issued with the user embedded, see JwtService.generateAccessToken(User)
+    public String getUserId() {
+        return claims.get(USER_ID_CLAIM, String.class);
+    }
+
+    public Role getRole() {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        return role == null ? null : Role.valueOf(role);
+    }
+
+    // Only present on refresh tokens issued by RefreshTokenService
+    public String getTokenId() {
+        return claims.getId();
+    }
+
+    public String getFamilyId() {
+        return claims.get(FAMILY_ID_CLAIM, String.class);
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+}
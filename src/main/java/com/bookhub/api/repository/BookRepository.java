@@ -9,7 +9,7 @@ import org.springframework.lang.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends MongoRepository<Book, String> {
+public interface BookRepository extends MongoRepository<Book, String>, BookRepositoryCustom {
 
 //    @Override
 //    Optional<Book> findById(String id);
@@ -26,10 +26,4 @@ public interface BookRepository extends MongoRepository<Book, String> {
     Page<Book> findByCategoryIdsContaining(String categoryId, Pageable pageable);
 
 
-    //I think this is wrongly made it should be a custom query based on which are present
-    //soooooooooooooooo again TODO: fix this and make it a good boi
-//    Page<Book> findComplex(String query, String categoryId, String sort, Pageable pageable);
-
-    // This finds all books where the 'savedBy' array field contains the given userId.
-    Page<Book> findBySavedByContains(String userId, Pageable pageable);
 }
@@ -0,0 +1,120 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.BookSort;
+import com.bookhub.api.utils.KeysetCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Queries that depend on which filters are present, implemented with MongoTemplate in BookRepositoryCustomImpl
+public interface BookRepositoryCustom {
+
+    // Fields the list endpoints need (BookSummaryDTO plus the cursor's sort key); never savedBy or the file list
+    String SUMMARY_PROJECTION = "{ 'title' : 1, 'author' : 1, 'coverImageUrl' : 1, 'categoryIds' : 1, 'addedOn' : 1 }";
+
+    /**
+     * One query for the catalog list: any combination of free text, a title substring, categories and sort.
+     * Like every list query here, only the SUMMARY_PROJECTION fields are loaded.
+     * <p>
+     * Without free text, each sort walks its own index (category_* when filtering by category), so paging
+     * never sorts in memory; a title substring is checked against each book on that walk. Free text finds
+     * its matches through the text index: relevance comes with them, but any other sort is done in memory
+     * over all matches, which is only cheap while a query matches few books. Relevance without free text
+     * is treated as RECENT.
+     */
+    Page<Book> search(String text, String titleContains, List<String> categoryIds, BookSort sort, Pageable pageable);
+
+    /**
+     * Plain catalog listing (optionally one category) in natural order. Only fetches the rows;
+     * callers decide whether a total is needed and where it comes from.
+     */
+    List<Book> findCatalog(String categoryId, long offset, int limit);
+
+    /**
+     * Everything BookResponseDTO shows, without the savedBy array.
+     */
+    Optional<Book> findDetailById(String id);
+
+    /**
+     * Writes the fields an edit can change with one $set, leaving saveCount, savedBy and anything
+     * else written concurrently alone, unlike a save of the whole document.
+     *
+     * @return the book as stored after the edit (minus savedBy), empty if it was deleted meanwhile
+     */
+    Optional<Book> updateEditableFields(Book book);
+
+    /**
+     * Only addedOn and updatedOn, for answering conditional GETs without loading the book.
+     */
+    Optional<Book> findTimestampsById(String id);
+
+    /**
+     * Which of the given ids are already books; reads only _id.
+     */
+    Set<String> findExistingIds(Collection<String> ids);
+
+    /**
+     * Summaries for the given ids, in no particular order.
+     */
+    List<Book> findSummariesByIds(List<String> ids);
+
+    /**
+     * Newest books first (optionally in one category), starting after the cursor. Returns up to limit books.
+     */
+    List<Book> findRecentAfter(String categoryId, KeysetCursor after, int limit);
+
+    /**
+     * Every book (minus savedBy) off one Mongo cursor, for the export. With since, only books changed
+     * at or after it: updatedOn, or addedOn for books never updated. The caller must close the stream.
+     */
+    Stream<Book> streamForExport(LocalDateTime since);
+
+    /**
+     * How many books list each category id, from one aggregation over categoryIds.
+     * Categories without books are absent.
+     */
+    Map<String, Integer> countBooksPerCategory();
+
+    /**
+     * Atomically adds delta to saveCount.
+     *
+     * @return the new count, empty if the book doesn't exist
+     */
+    OptionalLong incrementSaveCount(String bookId, long delta);
+
+    /**
+     * saveCount of every book where it isn't zero, covered by popularity_idx.
+     */
+    Map<String, Long> findNonZeroSaveCounts();
+
+    /**
+     * Sets saveCount only if it still holds the value the caller read, so a concurrent $inc is never
+     * overwritten. An expected 0 also matches a book that never had the field.
+     *
+     * @return true if the count was replaced
+     */
+    boolean replaceSaveCount(String bookId, long expected, long actual);
+
+    /**
+     * Removes one user from a book's legacy savedBy array.
+     *
+     * @return true if the user was in it
+     */
+    boolean pullLegacySave(String bookId, String userId);
+
+    /**
+     * Removes several users from a book's legacy savedBy array in one findAndModify.
+     *
+     * @return those of them that were still in it, read from the pre-image
+     */
+    Set<String> pullLegacySaves(String bookId, Collection<String> userIds);
+}
@@ -0,0 +1,238 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.BookSort;
+import com.bookhub.api.utils.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String[] SUMMARY_FIELDS = Document.parse(SUMMARY_PROJECTION).keySet().toArray(String[]::new);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Page<Book> search(String text, String titleContains, List<String> categoryIds, BookSort sort, Pageable pageable) {
+        boolean hasText = text != null && !text.isBlank();
+        // Relevance without free text has nothing to rank by; unsorted it would be a collection scan in no stable order
+        BookSort effectiveSort = sort != null && (hasText || sort != BookSort.RELEVANCE)
+                ? sort
+                : (hasText ? BookSort.RELEVANCE : BookSort.RECENT);
+
+        Query query;
+        if (hasText) {
+            // Served by the books text index over title, author and description; Mongo can't walk
+            // it in another order, so an explicit sort is an in-memory SORT over every match
+            TextQuery textQuery = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text.trim()));
+            if (effectiveSort == BookSort.RELEVANCE) {
+                textQuery.sortByScore();
+            }
+            query = textQuery;
+        } else {
+            query = new Query();
+        }
+
+        if (categoryIds != null && !categoryIds.isEmpty()) {
+            // categoryIds is the prefix of the category_* compound indexes
+            query.addCriteria(Criteria.where("categoryIds").in(categoryIds));
+        }
+
+        if (titleContains != null && !titleContains.isBlank()) {
+            // Same match as the old title search: case-insensitive substring, taken literally
+            query.addCriteria(Criteria.where("title").regex(Pattern.quote(titleContains.trim()), "i"));
+        }
+
+        // Counting uses the filter only, before paging and sorting are applied
+        Query countQuery = Query.of(query);
+
+        Sort order = toSort(effectiveSort);
+        if (order.isSorted()) {
+            query.with(order);
+        }
+        query.with(pageable);
+
+        List<Book> books = mongoTemplate.find(summary(query), Book.class);
+        // Skips the count when the page itself shows there is nothing more
+        return PageableExecutionUtils.getPage(books, pageable,
+                () -> mongoTemplate.count(countQuery, Book.class));
+    }
+
+    @Override
+    public List<Book> findCatalog(String categoryId, long offset, int limit) {
+        Query query = categoryId == null ? new Query() : Query.query(Criteria.where("categoryIds").is(categoryId));
+        return mongoTemplate.find(summary(query.skip(offset).limit(limit)), Book.class);
+    }
+
+    @Override
+    public Optional<Book> findDetailById(String id) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().exclude("savedBy");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Book.class));
+    }
+
+    @Override
+    public Optional<Book> updateEditableFields(Book book) {
+        Query query = Query.query(Criteria.where("id").is(book.getId()));
+        query.fields().exclude("savedBy");
+        Update update = new Update()
+                .set("title", book.getTitle())
+                .set("author", book.getAuthor())
+                .set("description", book.getDescription())
+                .set("isbn", book.getIsbn())
+                .set("publishedDate", book.getPublishedDate())
+                .set("relatedBooks", book.getRelatedBooks())
+                .set("bookFileUrl", book.getBookFileUrl())
+                .set("coverImageUrl", book.getCoverImageUrl())
+                .set("categoryIds", book.getCategoryIds())
+                .set("updatedOn", book.getUpdatedOn())
+                .set("updatedBy", book.getUpdatedBy());
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Book.class));
+    }
+
+    @Override
+    public Optional<Book> findTimestampsById(String id) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("addedOn", "updatedOn");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Book.class));
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("id").in(ids));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Book.class).stream().map(Book::getId).collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<Book> findSummariesByIds(List<String> ids) {
+        return mongoTemplate.find(summary(Query.query(Criteria.where("id").in(ids))), Book.class);
+    }
+
+    @Override
+    public List<Book> findRecentAfter(String categoryId, KeysetCursor after, int limit) {
+        // recent_idx, or category_recent_idx when filtering
+        Criteria filter = categoryId == null ? null : Criteria.where("categoryIds").is(categoryId);
+        Query query = after == null
+                ? KeysetQueries.after(filter, "addedOn", null, null, limit)
+                : KeysetQueries.after(filter, "addedOn", after.sortValueAsLocalDateTime(), after.id(), limit);
+        return mongoTemplate.find(summary(query), Book.class);
+    }
+
+    @Override
+    public Stream<Book> streamForExport(LocalDateTime since) {
+        Query query = new Query();
+        if (since != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("updatedOn").gte(since),
+                    Criteria.where("updatedOn").is(null).and("addedOn").gte(since)));
+        }
+        query.fields().exclude("savedBy");
+        query.cursorBatchSize(1000);
+        return mongoTemplate.stream(query, Book.class);
+    }
+
+    @Override
+    public Map<String, Integer> countBooksPerCategory() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.project("categoryIds"),
+                Aggregation.unwind("categoryIds"),
+                Aggregation.group("categoryIds").count().as("count"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, Book.class, Document.class)
+                .forEach(row -> counts.put(String.valueOf(row.get("_id")), row.getInteger("count")));
+        return counts;
+    }
+
+    @Override
+    public OptionalLong incrementSaveCount(String bookId, long delta) {
+        Query query = Query.query(Criteria.where("id").is(bookId));
+        query.fields().include("saveCount");
+        Book updated = mongoTemplate.findAndModify(query, new Update().inc("saveCount", delta),
+                FindAndModifyOptions.options().returnNew(true), Book.class);
+        return updated == null ? OptionalLong.empty() : OptionalLong.of(updated.getSaveCount());
+    }
+
+    @Override
+    public Map<String, Long> findNonZeroSaveCounts() {
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("saveCount").gt(0), Criteria.where("saveCount").lt(0)));
+        query.fields().include("_id", "saveCount");
+        Map<String, Long> counts = new HashMap<>();
+        mongoTemplate.find(query, Book.class).forEach(book -> counts.put(book.getId(), book.getSaveCount()));
+        return counts;
+    }
+
+    @Override
+    public boolean replaceSaveCount(String bookId, long expected, long actual) {
+        Criteria unchanged = expected == 0
+                ? Criteria.where("saveCount").in(0, null)
+                : Criteria.where("saveCount").is(expected);
+        Query query = Query.query(Criteria.where("id").is(bookId).andOperator(unchanged));
+        return mongoTemplate.updateFirst(query, new Update().set("saveCount", actual), Book.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean pullLegacySave(String bookId, String userId) {
+        Query query = Query.query(Criteria.where("id").is(bookId).and("savedBy").is(userId));
+        return mongoTemplate.updateFirst(query, new Update().pull("savedBy", userId), Book.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public Set<String> pullLegacySaves(String bookId, Collection<String> userIds) {
+        Query query = Query.query(Criteria.where("id").is(bookId));
+        // Only the pulled users come back, not the whole array
+        query.fields().project((AggregationExpression) context -> new Document("$filter", new Document("input", "$savedBy")
+                .append("as", "user")
+                .append("cond", new Document("$in", List.of("$$user", List.copyOf(userIds)))))).as("savedBy");
+        // Read as a Document: Book.savedBy is deprecated so that nothing new reads or writes it
+        Document before = mongoTemplate.findAndModify(query, new Update().pullAll("savedBy", userIds.toArray()),
+                FindAndModifyOptions.options().returnNew(false), Document.class, mongoTemplate.getCollectionName(Book.class));
+        List<String> pulled = before == null ? null : before.getList("savedBy", String.class);
+        return pulled == null ? Set.of() : Set.copyOf(pulled);
+    }
+
+    private static Query summary(Query query) {
+        query.fields().include(SUMMARY_FIELDS);
+        return query;
+    }
+
+    // _id is always the tie-breaker so paging is stable between requests
+    private static Sort toSort(BookSort sort) {
+        return switch (sort) {
+            case RELEVANCE -> Sort.unsorted();
+            case RECENT -> Sort.by(Sort.Order.desc("addedOn"), Sort.Order.desc("_id"));
+            case TITLE -> Sort.by(Sort.Order.asc("title"), Sort.Order.asc("_id"));
+            case POPULARITY -> Sort.by(Sort.Order.desc("saveCount"), Sort.Order.desc("_id"));
+        };
+    }
+}
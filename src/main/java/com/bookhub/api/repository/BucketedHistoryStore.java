@@ -0,0 +1,333 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.HistoryBucket;
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.ContinueReading;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.Open;
+import com.bookhub.api.utils.KeysetCursor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reading history in history_buckets, one document per user per month (see HistoryBucket).
+ * A heavy reader has a few dozen small buckets and index entries, not one per book.
+ * Because the newest page is almost always in the first bucket or two, getHistory reads those and stops.
+ * <p>
+ * An open moves the book out of whatever bucket held it and into the month's open bucket, so each book
+ * is listed once. Bucket bounds are recomputed when an entry moves out, which keeps them exact; paging
+ * relies on that to know when it can stop. Like the document layout's $max, an open no newer than the
+ * stored one is skipped, so a delayed flush (a retry, or a slow node) can't move a book back in time.
+ * Entries returned as ReadingHistory have the book id as their id, which is what cursors carry.
+ */
+@Repository
+@ConditionalOnProperty(name = "history.store", havingValue = "bucketed")
+public class BucketedHistoryStore implements ReadingHistoryStore {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+    private static final int BUCKETS_PER_FETCH = 4;
+
+    private record UserBook(String userId, String bookId) {
+    }
+
+    // Newest first; the book id breaks ties so a cursor points at exactly one entry
+    static final Comparator<ReadingHistory> NEWEST_FIRST = Comparator
+            .comparing(ReadingHistory::getLastOpenedAt).reversed()
+            .thenComparing(ReadingHistory::getBookId, Comparator.reverseOrder());
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxEntries;
+
+    public BucketedHistoryStore(MongoTemplate mongoTemplate,
+                                @Value("${history.bucket.max-entries:200}") int maxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public void recordOpens(Collection<Open> opens) {
+        if (opens.isEmpty()) {
+            return;
+        }
+        Map<UserBook, Instant> stored = storedOpens(opens);
+
+        // Ordered, since each open's move-out has to run before its push
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, HistoryBucket.class);
+        int queued = 0;
+        for (Open open : opens) {
+            Instant current = stored.get(new UserBook(open.userId(), open.bookId()));
+            if (current != null && !current.isBefore(open.openedAt())) {
+                continue;
+            }
+            // Only older entries move out; one written by another node since the read above stays, and reads
+            // keep the newer of the two until the book's next open cleans up
+            bulk.updateMulti(Query.query(Criteria.where("userId").is(open.userId()).and("opens").elemMatch(
+                            Criteria.where("bookId").is(open.bookId()).and("openedAt").lt(open.openedAt()))),
+                    withoutBook(open.bookId(), open.openedAt()));
+            Query openBucket = Query.query(Criteria.where("userId").is(open.userId())
+                    .and("month").is(MONTH.format(open.openedAt()))
+                    .and("count").lt(maxEntries));
+            // No open bucket for the month (none yet, or all full) upserts a new one
+            bulk.upsert(openBucket, new Update()
+                    .push("opens", new HistoryBucket.Entry(open.bookId(), open.bookTitle(), open.bookCoverImage(), open.openedAt()))
+                    .inc("count", 1)
+                    .min("firstOpenedAt", open.openedAt())
+                    .max("lastOpenedAt", open.openedAt()));
+            queued++;
+        }
+        if (queued > 0) {
+            bulk.execute();
+        }
+    }
+
+    @Override
+    public Page<ReadingHistory> findHistory(String userId, Pageable pageable) {
+        List<ReadingHistory> upToPage = findNewest(userId, null, (int) pageable.getOffset() + pageable.getPageSize());
+        return PageableExecutionUtils.getPage(pageOf(upToPage, pageable), pageable, () -> countEntries(userId));
+    }
+
+    @Override
+    public Slice<ReadingHistory> findHistorySlice(String userId, Pageable pageable) {
+        List<ReadingHistory> upToPage = findNewest(userId, null, (int) pageable.getOffset() + pageable.getPageSize() + 1);
+        boolean hasNext = upToPage.size() > pageable.getOffset() + pageable.getPageSize();
+        return new SliceImpl<>(pageOf(upToPage, pageable), pageable, hasNext);
+    }
+
+    @Override
+    public List<ReadingHistory> findHistoryAfter(String userId, KeysetCursor after, int limit) {
+        return findNewest(userId, after, limit);
+    }
+
+    @Override
+    public List<ContinueReading> findContinueReading(String userId, int limit) {
+        // With exact bounds, the newest limit entries all sit in the newest limit non-empty buckets
+        List<AggregationOperation> stages = new ArrayList<>(List.of(
+                Aggregation.match(Criteria.where("userId").is(userId).and("count").gt(0)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "lastOpenedAt")),
+                Aggregation.limit(limit),
+                context -> new Document("$unwind", "$opens"),
+                context -> new Document("$project", new Document("_id", "$opens.bookId")
+                        .append("bookId", "$opens.bookId")
+                        .append("lastOpenedAt", "$opens.openedAt")),
+                context -> new Document("$sort", new Document("lastOpenedAt", -1).append("bookId", -1)),
+                Aggregation.limit(limit)));
+        stages.addAll(ReadingHistoryRepositoryCustomImpl.joinBookAndProgress(mongoTemplate, userId));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), HistoryBucket.class, ContinueReading.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public String updateBookFields(String bookId, String afterId, int batchSize, String bookTitle, String bookCoverImage) {
+        Criteria filter = Criteria.where("opens.bookId").is(bookId);
+        if (afterId != null) {
+            filter = filter.and("id").gt(afterId);
+        }
+        Query page = Query.query(filter).with(Sort.by("id")).limit(batchSize);
+        page.fields().include("id");
+        List<String> ids = mongoTemplate.find(page, HistoryBucket.class).stream().map(HistoryBucket::getId).toList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        Update update = new Update()
+                .set("opens.$[entry].bookTitle", bookTitle)
+                .set("opens.$[entry].bookCoverImage", bookCoverImage)
+                .filterArray(Criteria.where("entry.bookId").is(bookId));
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(ids)), update, HistoryBucket.class);
+        return ids.get(ids.size() - 1);
+    }
+
+    /**
+     * Adds history carried over from the document layout (see HistoryBucketMigration). Books the user
+     * already has here were opened since the switch, so they're newer and kept. The rest go into
+     * new buckets per month.
+     *
+     * @return how many entries were added
+     */
+    public int importHistory(String userId, List<ReadingHistory> history) {
+        Query mine = Query.query(Criteria.where("userId").is(userId));
+        mine.fields().include("opens.bookId");
+        Set<String> present = mongoTemplate.find(mine, HistoryBucket.class).stream()
+                .flatMap(bucket -> bucket.getOpens().stream())
+                .map(HistoryBucket.Entry::getBookId)
+                .collect(Collectors.toSet());
+
+        Map<String, List<HistoryBucket.Entry>> byMonth = new TreeMap<>();
+        for (ReadingHistory entry : history) {
+            Instant openedAt = entry.getLastOpenedAt() != null ? entry.getLastOpenedAt() : entry.getFirstOpenedAt();
+            if (openedAt == null || present.contains(entry.getBookId())) {
+                continue;
+            }
+            byMonth.computeIfAbsent(MONTH.format(openedAt), month -> new ArrayList<>())
+                    .add(new HistoryBucket.Entry(entry.getBookId(), entry.getBookTitle(), entry.getBookCoverImage(), openedAt));
+        }
+
+        List<HistoryBucket> buckets = new ArrayList<>();
+        byMonth.forEach((month, entries) -> {
+            entries.sort(Comparator.comparing(HistoryBucket.Entry::getOpenedAt));
+            for (int from = 0; from < entries.size(); from += maxEntries) {
+                List<HistoryBucket.Entry> chunk = new ArrayList<>(entries.subList(from, Math.min(from + maxEntries, entries.size())));
+                buckets.add(HistoryBucket.builder()
+                        .userId(userId)
+                        .month(month)
+                        .count(chunk.size())
+                        .firstOpenedAt(chunk.get(0).getOpenedAt())
+                        .lastOpenedAt(chunk.get(chunk.size() - 1).getOpenedAt())
+                        .opens(chunk)
+                        .build());
+            }
+        });
+        mongoTemplate.insertAll(buckets);
+        return buckets.stream().mapToInt(HistoryBucket::getCount).sum();
+    }
+
+    //helper methods
+    private List<ReadingHistory> findNewest(String userId, KeysetCursor after, int limit) {
+        // Served by user_recent_idx; a few buckets per round trip, since one or two usually fill a page
+        Query query = Query.query(Criteria.where("userId").is(userId).and("count").gt(0));
+        if (after != null && after.sortValueAsInstant() != null) {
+            query.addCriteria(Criteria.where("firstOpenedAt").lte(after.sortValueAsInstant()));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "lastOpenedAt")).cursorBatchSize(BUCKETS_PER_FETCH);
+        try (Stream<HistoryBucket> buckets = mongoTemplate.stream(query, HistoryBucket.class)) {
+            return newestFirst(buckets.iterator(), userId, after, limit);
+        }
+    }
+
+    /**
+     * Merges buckets, given newest lastOpenedAt first, into the newest limit entries after the cursor.
+     * Buckets of the same month can overlap in time, so it reads on until the next bucket's newest
+     * entry is older than everything it already has.
+     */
+    static List<ReadingHistory> newestFirst(Iterator<HistoryBucket> buckets, String userId, KeysetCursor after, int limit) {
+        ReadingHistory cursor = null;
+        if (after != null) {
+            if (after.sortValueAsInstant() == null) {
+                return List.of(); // entries here always have a time, so nothing sorts after one without
+            }
+            cursor = ReadingHistory.builder().bookId(after.id()).lastOpenedAt(after.sortValueAsInstant()).build();
+        }
+
+        TreeSet<ReadingHistory> newest = new TreeSet<>(NEWEST_FIRST);
+        Map<String, ReadingHistory> byBook = new HashMap<>();
+        while (buckets.hasNext()) {
+            HistoryBucket bucket = buckets.next();
+            if (newest.size() >= limit && bucket.getLastOpenedAt().isBefore(newest.last().getLastOpenedAt())) {
+                break;
+            }
+            for (HistoryBucket.Entry entry : bucket.getOpens()) {
+                ReadingHistory history = toHistory(userId, entry);
+                if (cursor != null && NEWEST_FIRST.compare(history, cursor) <= 0) {
+                    continue; // on an earlier page
+                }
+                ReadingHistory seen = byBook.get(entry.getBookId());
+                if (seen != null) {
+                    // A book in two buckets (an open racing the migration): keep its latest open
+                    if (NEWEST_FIRST.compare(seen, history) <= 0) {
+                        continue;
+                    }
+                    newest.remove(seen);
+                }
+                byBook.put(entry.getBookId(), history);
+                newest.add(history);
+                if (newest.size() > limit) {
+                    byBook.remove(newest.pollLast().getBookId());
+                }
+            }
+        }
+        return new ArrayList<>(newest);
+    }
+
+    private static ReadingHistory toHistory(String userId, HistoryBucket.Entry entry) {
+        return ReadingHistory.builder()
+                .id(entry.getBookId())
+                .userId(userId)
+                .bookId(entry.getBookId())
+                .bookTitle(entry.getBookTitle())
+                .bookCoverImage(entry.getBookCoverImage())
+                .lastOpenedAt(entry.getOpenedAt())
+                .build();
+    }
+
+    // Latest stored open per (user, book) among the given ones; only the matching entries come back
+    private Map<UserBook, Instant> storedOpens(Collection<Open> opens) {
+        List<String> userIds = opens.stream().map(Open::userId).distinct().toList();
+        List<String> bookIds = opens.stream().map(Open::bookId).distinct().toList();
+        Query query = Query.query(Criteria.where("userId").in(userIds).and("opens.bookId").in(bookIds));
+        query.fields().include("userId")
+                .project((AggregationExpression) context -> new Document("$filter", new Document("input", "$opens")
+                        .append("as", "entry")
+                        .append("cond", new Document("$in", List.of("$$entry.bookId", bookIds)))))
+                .as("opens");
+
+        Map<UserBook, Instant> stored = new HashMap<>();
+        for (HistoryBucket bucket : mongoTemplate.find(query, HistoryBucket.class)) {
+            for (HistoryBucket.Entry entry : bucket.getOpens()) {
+                stored.merge(new UserBook(bucket.getUserId(), entry.getBookId()), entry.getOpenedAt(),
+                        (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        return stored;
+    }
+
+    // Drops the book's entries older than the given time and recomputes count and bounds from what's left
+    private static AggregationUpdate withoutBook(String bookId, Instant before) {
+        Document olderOpenOfBook = new Document("$and", List.of(
+                new Document("$eq", List.of("$$entry.bookId", bookId)),
+                new Document("$lt", List.of("$$entry.openedAt", Date.from(before)))));
+        Document remaining = new Document("$filter", new Document("input", "$opens").append("as", "entry")
+                .append("cond", new Document("$not", List.of(olderOpenOfBook))));
+        return AggregationUpdate.from(List.of(
+                context -> new Document("$set", new Document("opens", remaining)),
+                context -> new Document("$set", new Document("count", new Document("$size", "$opens"))
+                        .append("firstOpenedAt", new Document("$min", "$opens.openedAt"))
+                        .append("lastOpenedAt", new Document("$max", "$opens.openedAt")))));
+    }
+
+    private static List<ReadingHistory> pageOf(List<ReadingHistory> upToPage, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), upToPage.size());
+        return upToPage.subList(from, Math.min(from + pageable.getPageSize(), upToPage.size()));
+    }
+
+    private long countEntries(String userId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.group().sum("count").as("total"));
+        Document row = mongoTemplate.aggregate(aggregation, HistoryBucket.class, Document.class).getUniqueMappedResult();
+        return row == null ? 0 : ((Number) row.get("total")).longValue();
+    }
+}
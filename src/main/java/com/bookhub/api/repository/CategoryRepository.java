@@ -5,7 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface CategoryRepository extends MongoRepository<Categories, String> {
+public interface CategoryRepository extends MongoRepository<Categories, String>, CategoryRepositoryCustom {
     Optional<Categories> findByName(String name);
     Optional<Categories> findByNameIgnoreCase(String name);
 
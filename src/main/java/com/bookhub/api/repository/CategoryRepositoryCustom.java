@@ -0,0 +1,19 @@
+package com.bookhub.api.repository;
+
+import java.util.Map;
+
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Applies every category's bookCount delta in one unordered bulk write: $inc for increases,
+     * a pipeline update that stops at zero for decreases.
+     */
+    void incrementBookCounts(Map<String, Integer> deltas);
+
+    /**
+     * Sets bookCount only if it still holds the value the caller read, so a concurrent $inc is never overwritten.
+     *
+     * @return true if the count was replaced
+     */
+    boolean replaceBookCount(String categoryId, int expected, int actual);
+}
@@ -0,0 +1,51 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Categories;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementBookCounts(Map<String, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // Usually every id moves by the same amount, so this is a single updateMany
+        Map<Integer, List<String>> idsByDelta = deltas.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Categories.class);
+        idsByDelta.forEach((delta, ids) -> bulk.updateMulti(Query.query(Criteria.where("id").in(ids)),
+                delta > 0 ? new Update().inc("bookCount", delta) : decrementToZero(delta)));
+        bulk.execute();
+    }
+
+    // A drifted count must not go negative; the reconciler brings it back to the real value
+    private static AggregationUpdate decrementToZero(int delta) {
+        Document decremented = new Document("$add", List.of(new Document("$ifNull", List.of("$bookCount", 0)), delta));
+        return AggregationUpdate.from(List.of(
+                context -> new Document("$set", new Document("bookCount", new Document("$max", List.of(0, decremented))))));
+    }
+
+    @Override
+    public boolean replaceBookCount(String categoryId, int expected, int actual) {
+        Query query = Query.query(Criteria.where("id").is(categoryId).and("bookCount").is(expected));
+        return mongoTemplate.updateFirst(query, new Update().set("bookCount", actual), Categories.class)
+                .getModifiedCount() > 0;
+    }
+}
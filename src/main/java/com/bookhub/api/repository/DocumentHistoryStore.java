@@ -0,0 +1,54 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.ContinueReading;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.Open;
+import com.bookhub.api.utils.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+// One reading_history document per (user, book); the original layout and the default
+@Repository
+@ConditionalOnProperty(name = "history.store", havingValue = "document", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DocumentHistoryStore implements ReadingHistoryStore {
+
+    private final ReadingHistoryRepository historyRepo;
+
+    @Override
+    public void recordOpens(Collection<Open> opens) {
+        historyRepo.recordOpens(opens);
+    }
+
+    @Override
+    public Page<ReadingHistory> findHistory(String userId, Pageable pageable) {
+        return historyRepo.findByUserIdOrderByLastOpenedAtDesc(userId, pageable);
+    }
+
+    @Override
+    public Slice<ReadingHistory> findHistorySlice(String userId, Pageable pageable) {
+        return historyRepo.findSliceByUserIdOrderByLastOpenedAtDesc(userId, pageable);
+    }
+
+    @Override
+    public List<ReadingHistory> findHistoryAfter(String userId, KeysetCursor after, int limit) {
+        return historyRepo.findHistoryAfter(userId, after, limit);
+    }
+
+    @Override
+    public List<ContinueReading> findContinueReading(String userId, int limit) {
+        return historyRepo.findContinueReading(userId, limit);
+    }
+
+    @Override
+    public String updateBookFields(String bookId, String afterId, int batchSize, String bookTitle, String bookCoverImage) {
+        return historyRepo.updateBookFields(bookId, afterId, batchSize, bookTitle, bookCoverImage);
+    }
+}
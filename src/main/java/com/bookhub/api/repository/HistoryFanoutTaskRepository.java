@@ -0,0 +1,9 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.HistoryFanoutTask;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HistoryFanoutTaskRepository extends MongoRepository<HistoryFanoutTask, String>, HistoryFanoutTaskRepositoryCustom {
+}
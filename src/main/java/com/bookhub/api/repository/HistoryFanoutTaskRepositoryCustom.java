@@ -0,0 +1,36 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.HistoryFanoutTask;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface HistoryFanoutTaskRepositoryCustom {
+
+    /**
+     * Creates the book's task, or restarts it from the first history entry with the new values.
+     */
+    void enqueue(String bookId, String bookTitle, String bookCoverImage);
+
+    /**
+     * Leases the task nobody holds (or whose lease ran out) that has waited longest, until leaseUntil.
+     */
+    Optional<HistoryFanoutTask> claim(Instant now, Instant leaseUntil);
+
+    /**
+     * Moves the cursor and extends the lease.
+     *
+     * @return false if the task was re-enqueued or finished since it was claimed
+     */
+    boolean checkpoint(HistoryFanoutTask task, String cursor, Instant leaseUntil);
+
+    /**
+     * Lets the task be claimed again right away, keeping its cursor, behind every task already waiting.
+     */
+    void release(HistoryFanoutTask task);
+
+    /**
+     * Deletes the task unless it was re-enqueued meanwhile.
+     */
+    void complete(HistoryFanoutTask task);
+}
@@ -0,0 +1,66 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.HistoryFanoutTask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class HistoryFanoutTaskRepositoryCustomImpl implements HistoryFanoutTaskRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void enqueue(String bookId, String bookTitle, String bookCoverImage) {
+        Instant now = Instant.now();
+        // Dropping the lease hands it to the next run; the current holder's checkpoint fails on the generation
+        Update update = new Update()
+                .set("bookTitle", bookTitle)
+                .set("bookCoverImage", bookCoverImage)
+                .inc("generation", 1)
+                .unset("cursor")
+                .unset("leaseUntil")
+                .set("updatedOn", now)
+                .setOnInsert("createdOn", now);
+        mongoTemplate.upsert(Query.query(Criteria.where("id").is(bookId)), update, HistoryFanoutTask.class);
+    }
+
+    @Override
+    public Optional<HistoryFanoutTask> claim(Instant now, Instant leaseUntil) {
+        Query query = Query.query(new Criteria().orOperator(
+                        Criteria.where("leaseUntil").is(null),
+                        Criteria.where("leaseUntil").lt(now)))
+                .with(Sort.by("updatedOn"));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().set("leaseUntil", leaseUntil),
+                FindAndModifyOptions.options().returnNew(true), HistoryFanoutTask.class));
+    }
+
+    @Override
+    public boolean checkpoint(HistoryFanoutTask task, String cursor, Instant leaseUntil) {
+        Update update = new Update().set("cursor", cursor).set("leaseUntil", leaseUntil);
+        return mongoTemplate.updateFirst(sameGeneration(task), update, HistoryFanoutTask.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public void release(HistoryFanoutTask task) {
+        // claim takes the smallest updatedOn; without the bump a book with a huge history would win every run
+        Update update = new Update().unset("leaseUntil").set("updatedOn", Instant.now());
+        mongoTemplate.updateFirst(sameGeneration(task), update, HistoryFanoutTask.class);
+    }
+
+    @Override
+    public void complete(HistoryFanoutTask task) {
+        mongoTemplate.remove(sameGeneration(task), HistoryFanoutTask.class);
+    }
+
+    private static Query sameGeneration(HistoryFanoutTask task) {
+        return Query.query(Criteria.where("id").is(task.getId()).and("generation").is(task.getGeneration()));
+    }
+}
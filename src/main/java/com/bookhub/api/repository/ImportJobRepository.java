@@ -0,0 +1,15 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ImportJob;
+import com.bookhub.api.model.ImportJobStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends MongoRepository<ImportJob, String>, ImportJobRepositoryCustom {
+
+    List<ImportJob> findByStatusInOrderByCreatedOnAsc(Collection<ImportJobStatus> statuses);
+}
@@ -0,0 +1,23 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ImportJob;
+
+import java.time.Instant;
+
+public interface ImportJobRepositoryCustom {
+
+    /**
+     * Replaces the stored job with this one unless it was cancelled in the meantime,
+     * so a running import's checkpoint never undoes a cancel.
+     *
+     * @return the saved job, null if it was cancelled (or deleted)
+     */
+    ImportJob saveUnlessCancelled(ImportJob job);
+
+    /**
+     * Marks a queued or running job CANCELLED.
+     *
+     * @return false if the job had already finished
+     */
+    boolean cancel(String jobId, Instant at);
+}
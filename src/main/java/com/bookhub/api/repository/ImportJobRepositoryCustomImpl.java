@@ -0,0 +1,36 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ImportJob;
+import com.bookhub.api.model.ImportJobStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ImportJobRepositoryCustomImpl implements ImportJobRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public ImportJob saveUnlessCancelled(ImportJob job) {
+        Query query = Query.query(Criteria.where("id").is(job.getId()).and("status").ne(ImportJobStatus.CANCELLED));
+        return mongoTemplate.findAndReplace(query, job, FindAndReplaceOptions.options().returnNew());
+    }
+
+    @Override
+    public boolean cancel(String jobId, Instant at) {
+        Query query = Query.query(Criteria.where("id").is(jobId)
+                .and("status").in(List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING)));
+        Update update = new Update()
+                .set("status", ImportJobStatus.CANCELLED)
+                .set("updatedOn", at)
+                .set("finishedOn", at);
+        return mongoTemplate.updateFirst(query, update, ImportJob.class).getModifiedCount() > 0;
+    }
+}
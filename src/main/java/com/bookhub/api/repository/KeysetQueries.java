@@ -0,0 +1,34 @@
+package com.bookhub.api.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Builds "everything after this item" queries for lists sorted by (field desc, _id desc).
+ * Each one is a range scan on an index ending in {field: -1, _id: -1}: no skip, no count.
+ */
+final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    /**
+     * @param filter    conditions every item must match, null for none
+     * @param lastValue sort value of the last item on the previous page, may be null
+     * @param lastId    id of that item, null for the first page
+     */
+    static Query after(Criteria filter, String field, Object lastValue, String lastId, int limit) {
+        Query query = filter == null ? new Query() : new Query(filter);
+        if (lastId != null) {
+            query.addCriteria(lastValue == null
+                    // Items without the field sort last, so only their own _id order is left
+                    ? new Criteria().andOperator(Criteria.where(field).is(null), Criteria.where("id").lt(lastId))
+                    : new Criteria().orOperator(
+                            Criteria.where(field).lt(lastValue),
+                            new Criteria().andOperator(Criteria.where(field).is(lastValue), Criteria.where("id").lt(lastId)),
+                            Criteria.where(field).is(null)));
+        }
+        return query.with(Sort.by(Sort.Order.desc(field), Sort.Order.desc("id"))).limit(limit);
+    }
+}
@@ -0,0 +1,47 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.model.ReadingProgress;
+import com.bookhub.api.utils.KeysetCursor;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReadingHistoryRepositoryCustom {
+
+    // A user opening a book; title and cover are only written when this creates the history entry
+    record Open(String userId, String bookId, String bookTitle, String bookCoverImage, Instant openedAt) {
+    }
+
+    // A "continue reading" row: the history entry with its book summary and the user's stored progress (or null)
+    record ContinueReading(String id, String bookId, Instant lastOpenedAt, Book book, ReadingProgress progress) {
+    }
+
+    /**
+     * Upserts all opens in one unordered bulk write. lastOpenedAt only ever moves forward ($max),
+     * so writing the same open twice, or an older one after a newer, changes nothing.
+     */
+    void recordOpens(Collection<Open> opens);
+
+    /**
+     * The user's history, last opened first, starting after the cursor. Returns up to limit entries.
+     */
+    List<ReadingHistory> findHistoryAfter(String userId, KeysetCursor after, int limit);
+
+    /**
+     * The user's most recently opened books with their summary and progress, in one aggregation:
+     * the newest limit entries from user_recent_idx, then a $lookup by _id into books and one by
+     * user_book_progress_idx into reading_progress. Entries whose book was deleted are left out.
+     */
+    List<ContinueReading> findContinueReading(String userId, int limit);
+
+    /**
+     * Sets the denormalized title and cover on the next batchSize history entries of the book after
+     * the given _id (null for the start), in _id order, with one updateMany. Served by book_idx.
+     *
+     * @return the last _id updated, or null when there were none left
+     */
+    String updateBookFields(String bookId, String afterId, int batchSize, String bookTitle, String bookCoverImage);
+}
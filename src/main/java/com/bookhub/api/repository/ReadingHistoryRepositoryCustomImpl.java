@@ -0,0 +1,131 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.model.ReadingProgress;
+import com.bookhub.api.utils.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReadingHistoryRepositoryCustomImpl implements ReadingHistoryRepositoryCustom {
+
+    private static final String PROGRESS_PROJECTION =
+            "{ 'percent' : 1, 'format' : 1, 'locator' : 1, 'clientUpdatedAt' : 1, 'updatedAt' : 1 }";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<ReadingHistory> findHistoryAfter(String userId, KeysetCursor after, int limit) {
+        // Served by user_recent_idx
+        Criteria filter = Criteria.where("userId").is(userId);
+        Query query = after == null
+                ? KeysetQueries.after(filter, "lastOpenedAt", null, null, limit)
+                : KeysetQueries.after(filter, "lastOpenedAt", after.sortValueAsInstant(), after.id(), limit);
+        return mongoTemplate.find(query, ReadingHistory.class);
+    }
+
+    @Override
+    public List<ContinueReading> findContinueReading(String userId, int limit) {
+        // match/sort/limit first so only the page's entries are joined; served by user_recent_idx
+        List<AggregationOperation> stages = new ArrayList<>(List.of(
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "lastOpenedAt", "_id")),
+                Aggregation.limit(limit)));
+        stages.addAll(joinBookAndProgress(mongoTemplate, userId));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), ReadingHistory.class, ContinueReading.class)
+                .getMappedResults();
+    }
+
+    /**
+     * The continue-reading joins, for any pipeline whose rows have bookId and lastOpenedAt:
+     * a $lookup by _id into books and one by user_book_progress_idx into reading_progress,
+     * projected to the ContinueReading shape. Rows whose book is gone are dropped.
+     */
+    static List<AggregationOperation> joinBookAndProgress(MongoTemplate mongoTemplate, String userId) {
+        // history.bookId is the book's _id as a string; anything that isn't an ObjectId just matches nothing
+        Document bookId = new Document("$convert", new Document("input", "$$bookId")
+                .append("to", "objectId").append("onError", null).append("onNull", null));
+        AggregationOperation lookupBook = context -> new Document("$lookup", new Document()
+                .append("from", mongoTemplate.getCollectionName(Book.class))
+                .append("let", new Document("bookId", "$bookId"))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("$expr", new Document("$eq", List.of("$_id", bookId)))),
+                        new Document("$project", Document.parse(BookRepositoryCustom.SUMMARY_PROJECTION))))
+                .append("as", "book"));
+        AggregationOperation lookupProgress = context -> new Document("$lookup", new Document()
+                .append("from", mongoTemplate.getCollectionName(ReadingProgress.class))
+                .append("let", new Document("bookId", "$bookId"))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("userId", userId)
+                                .append("$expr", new Document("$eq", List.of("$bookId", "$$bookId")))),
+                        new Document("$project", Document.parse(PROGRESS_PROJECTION))))
+                .append("as", "progress"));
+
+        return List.of(
+                lookupBook,
+                context -> new Document("$unwind", "$book"),
+                lookupProgress,
+                context -> new Document("$unwind", new Document("path", "$progress").append("preserveNullAndEmptyArrays", true)),
+                context -> new Document("$project", new Document("bookId", 1).append("lastOpenedAt", 1)
+                        .append("book", 1).append("progress", 1)));
+    }
+
+    @Override
+    public String updateBookFields(String bookId, String afterId, int batchSize, String bookTitle, String bookCoverImage) {
+        Criteria filter = Criteria.where("bookId").is(bookId);
+        if (afterId != null) {
+            filter = filter.and("_id").gt(new ObjectId(afterId));
+        }
+        Query page = Query.query(filter).with(Sort.by("_id")).limit(batchSize);
+        page.fields().include("_id");
+        List<Object> ids = mongoTemplate.find(page, Document.class, mongoTemplate.getCollectionName(ReadingHistory.class))
+                .stream().map(doc -> doc.get("_id")).toList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        // Setting the same values again is a no-op, so a redone batch is harmless
+        Update update = new Update().set("bookTitle", bookTitle).set("bookCoverImage", bookCoverImage);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), update, ReadingHistory.class);
+        return ids.get(ids.size() - 1).toString();
+    }
+
+    @Override
+    public void recordOpens(Collection<Open> opens) {
+        if (opens.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReadingHistory.class);
+        for (Open open : opens) {
+            Query byUserAndBook = Query.query(Criteria.where("userId").is(open.userId()).and("bookId").is(open.bookId()));
+            // Auditing doesn't run for bulk updates, so firstOpenedAt/updatedAt are set here
+            Update update = new Update()
+                    .max("lastOpenedAt", open.openedAt())
+                    .set("updatedAt", now)
+                    .setOnInsert("userId", open.userId())
+                    .setOnInsert("bookId", open.bookId())
+                    .setOnInsert("bookTitle", open.bookTitle())
+                    .setOnInsert("bookCoverImage", open.bookCoverImage())
+                    .setOnInsert("firstOpenedAt", open.openedAt());
+            bulk.upsert(byUserAndBook, update);
+        }
+        bulk.execute();
+    }
+}
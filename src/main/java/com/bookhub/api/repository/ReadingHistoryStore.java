@@ -0,0 +1,43 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.ContinueReading;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.Open;
+import com.bookhub.api.utils.KeysetCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Where reading history lives; history.store picks the layout.
+ * - document (default): one reading_history document per (user, book), see DocumentHistoryStore.
+ * - bucketed: one history_buckets document per user per month, see BucketedHistoryStore.
+ * Either way a user sees each book once, at its latest open, newest first.
+ */
+public interface ReadingHistoryStore {
+
+    void recordOpens(Collection<Open> opens);
+
+    Page<ReadingHistory> findHistory(String userId, Pageable pageable);
+
+    Slice<ReadingHistory> findHistorySlice(String userId, Pageable pageable);
+
+    /**
+     * The user's history, last opened first, starting after the cursor. Returns up to limit entries;
+     * the cursor for an entry is (lastOpenedAt, id).
+     */
+    List<ReadingHistory> findHistoryAfter(String userId, KeysetCursor after, int limit);
+
+    List<ContinueReading> findContinueReading(String userId, int limit);
+
+    /**
+     * Sets the book's denormalized title and cover on the next batch of documents holding it after
+     * afterId (null for the start), in _id order.
+     *
+     * @return the last _id updated, or null when there were none left
+     */
+    String updateBookFields(String bookId, String afterId, int batchSize, String bookTitle, String bookCoverImage);
+}
@@ -0,0 +1,17 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ReadingProgress;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ReadingProgressRepositoryCustom {
+
+    /**
+     * Upserts every entry in one unordered bulk write, each only if its clientUpdatedAt is newer
+     * than the stored one (or nothing is stored yet). Entries for different books don't affect each other.
+     *
+     * @return indexes of the entries that were not written because the stored progress is as new or newer
+     */
+    Set<Integer> upsertAllIfNewer(List<ReadingProgress> entries);
+}
@@ -0,0 +1,87 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.ReadingProgress;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class ReadingProgressRepositoryCustomImpl implements ReadingProgressRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Set<Integer> upsertAllIfNewer(List<ReadingProgress> entries) {
+        Set<Integer> rejected = tryUpsert(entries, allIndexes(entries.size()));
+        if (rejected.isEmpty()) {
+            return rejected;
+        }
+        // A duplicate key means the filter didn't match an existing document: either it is newer (stale write)
+        // or two first writes for the same book raced. Retrying once tells the two apart.
+        return tryUpsert(entries, new ArrayList<>(rejected));
+    }
+
+    //helper methods
+    private Set<Integer> tryUpsert(List<ReadingProgress> entries, List<Integer> indexes) {
+        if (indexes.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReadingProgress.class);
+        for (int index : indexes) {
+            ReadingProgress entry = entries.get(index);
+            bulk.upsert(ifOlderThan(entry), overwriteWith(entry));
+        }
+        try {
+            bulk.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<Integer> rejected = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                rejected.add(indexes.get(error.getIndex()));
+            }
+            return rejected;
+        }
+    }
+
+    // Matches the user's progress on the book only while it's older than the entry; served by user_book_progress_idx
+    private static Query ifOlderThan(ReadingProgress entry) {
+        return Query.query(Criteria.where("userId").is(entry.getUserId())
+                .and("bookId").is(entry.getBookId())
+                .orOperator(
+                        Criteria.where("clientUpdatedAt").lt(entry.getClientUpdatedAt()),
+                        Criteria.where("clientUpdatedAt").is(null)));
+    }
+
+    private static Update overwriteWith(ReadingProgress entry) {
+        return new Update()
+                .set("percent", entry.getPercent())
+                .set("format", entry.getFormat())
+                .set("locator", entry.getLocator())
+                .set("clientUpdatedAt", entry.getClientUpdatedAt())
+                .set("updatedAt", entry.getUpdatedAt())
+                .setOnInsert("userId", entry.getUserId())
+                .setOnInsert("bookId", entry.getBookId());
+    }
+
+    private static List<Integer> allIndexes(int size) {
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+}
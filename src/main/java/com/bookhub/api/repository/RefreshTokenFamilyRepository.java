@@ -0,0 +1,9 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.RefreshTokenFamily;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends MongoRepository<RefreshTokenFamily, String> {
+}
@@ -0,0 +1,20 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.RevokedRefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+@Repository
+public interface RevokedRefreshTokenRepository extends MongoRepository<RevokedRefreshToken, String> {
+
+    // Only the ids are needed to fill the Bloom filter
+    @Query(value = "{ 'expiresAt' : { $gt : ?0 } }", fields = "{ '_id' : 1, 'revokedAt' : 1 }")
+    Stream<RevokedRefreshToken> streamActive(Instant now);
+
+    @Query(value = "{ 'revokedAt' : { $gte : ?0 } }", fields = "{ '_id' : 1, 'revokedAt' : 1 }")
+    Stream<RevokedRefreshToken> streamRevokedSince(Instant since);
+}
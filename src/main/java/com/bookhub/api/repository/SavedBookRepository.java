@@ -0,0 +1,20 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.SavedBook;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface SavedBookRepository extends MongoRepository<SavedBook, String>, SavedBookRepositoryCustom {
+
+    Page<SavedBook> findByUserIdOrderBySavedAtDesc(String userId, Pageable pageable);
+
+    Slice<SavedBook> findSliceByUserIdOrderBySavedAtDesc(String userId, Pageable pageable);
+
+    long deleteByUserIdAndBookId(String userId, String bookId);
+
+    long deleteByBookId(String bookId);
+
+    long countByBookId(String bookId);
+}
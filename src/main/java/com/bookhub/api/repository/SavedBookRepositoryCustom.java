@@ -0,0 +1,35 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.SavedBook;
+import com.bookhub.api.utils.KeysetCursor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public interface SavedBookRepositoryCustom {
+
+    /**
+     * Single upsert on user_book_idx.
+     *
+     * @return true if this call created the save, false if it was already there
+     */
+    boolean insertIfAbsent(String userId, String bookId, Instant savedAt);
+
+    /**
+     * Bulk version for the migration: one unordered round trip, existing saves are left alone.
+     *
+     * @return the saves this call created, saved_books id by user id
+     */
+    Map<String, String> insertAllIfAbsent(String bookId, List<String> userIds, Instant savedAt);
+
+    /**
+     * The user's saves, newest first, starting after the cursor. Returns up to limit entries.
+     */
+    List<SavedBook> findSavedAfter(String userId, KeysetCursor after, int limit);
+
+    /**
+     * How many saves each book has, from one aggregation over saved_books. Books without saves are absent.
+     */
+    Map<String, Long> countSavesPerBook();
+}
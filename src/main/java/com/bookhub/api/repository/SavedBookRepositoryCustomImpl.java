@@ -0,0 +1,84 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.SavedBook;
+import com.bookhub.api.utils.KeysetCursor;
+import com.mongodb.bulk.BulkWriteUpsert;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class SavedBookRepositoryCustomImpl implements SavedBookRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean insertIfAbsent(String userId, String bookId, Instant savedAt) {
+        try {
+            return mongoTemplate.upsert(byUserAndBook(userId, bookId), insertOnly(userId, bookId, savedAt), SavedBook.class)
+                    .getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // Two upserts raced on the unique index; the other one inserted it
+            return false;
+        }
+    }
+
+    @Override
+    public Map<String, String> insertAllIfAbsent(String bookId, List<String> userIds, Instant savedAt) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SavedBook.class);
+        for (String userId : userIds) {
+            bulk.upsert(byUserAndBook(userId, bookId), insertOnly(userId, bookId, savedAt));
+        }
+        Map<String, String> created = new HashMap<>();
+        for (BulkWriteUpsert upsert : bulk.execute().getUpserts()) {
+            created.put(userIds.get(upsert.getIndex()), upsert.getId().asObjectId().getValue().toHexString());
+        }
+        return created;
+    }
+
+    @Override
+    public List<SavedBook> findSavedAfter(String userId, KeysetCursor after, int limit) {
+        // Served by user_saved_idx
+        Criteria filter = Criteria.where("userId").is(userId);
+        Query query = after == null
+                ? KeysetQueries.after(filter, "savedAt", null, null, limit)
+                : KeysetQueries.after(filter, "savedAt", after.sortValueAsInstant(), after.id(), limit);
+        return mongoTemplate.find(query, SavedBook.class);
+    }
+
+    @Override
+    public Map<String, Long> countSavesPerBook() {
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.group("bookId").count().as("count"));
+
+        Map<String, Long> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, SavedBook.class, Document.class)
+                .forEach(row -> counts.put(String.valueOf(row.get("_id")), ((Number) row.get("count")).longValue()));
+        return counts;
+    }
+
+    //helper methods
+    private static Query byUserAndBook(String userId, String bookId) {
+        return Query.query(Criteria.where("userId").is(userId).and("bookId").is(bookId));
+    }
+
+    private static Update insertOnly(String userId, String bookId, Instant savedAt) {
+        return new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("bookId", bookId)
+                .setOnInsert("savedAt", savedAt);
+    }
+}
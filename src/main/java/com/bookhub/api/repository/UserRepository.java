@@ -9,6 +9,6 @@ import java.util.Optional;
 
 // @Repository marks this interface as a Spring Data repository.
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
 }
@@ -0,0 +1,12 @@
+package com.bookhub.api.repository;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Sets the password hash only if it still holds the one the caller read, so a password change made
+     * in the meantime is never overwritten and no other field of the user is touched.
+     *
+     * @return true if the hash was replaced
+     */
+    boolean replacePassword(String userId, String expectedHash, String newHash);
+}
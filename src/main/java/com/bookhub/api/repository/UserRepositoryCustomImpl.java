@@ -0,0 +1,21 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean replacePassword(String userId, String expectedHash, String newHash) {
+        Query query = Query.query(Criteria.where("id").is(userId).and("password").is(expectedHash));
+        return mongoTemplate.updateFirst(query, new Update().set("password", newHash), User.class)
+                .getModifiedCount() > 0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.bookhub.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drives a one-off data migration while the app keeps serving. Each run migrates the next batch of keys
+ * after a cursor; keys that fail are kept and retried once the pass reaches the end, and the migration only
+ * counts as complete when none are left. Progress lives in memory, so a restart begins a new pass over
+ * whatever is still unmigrated.
+ *
+ * @param <K> what one unit of work is keyed by, in the order nextBatch walks
+ */
+@Slf4j
+public abstract class BackgroundMigration<K> {
+
+    private final String name;
+
+    private volatile boolean complete;
+    // Only touched by the scheduler thread
+    private K cursor;
+    private final Set<K> failed = new LinkedHashSet<>();
+
+    protected BackgroundMigration(String name) {
+        this.name = name;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @param after the last key handed out, null at the start of the pass
+     * @return the next keys still to migrate, empty once the pass is through
+     */
+    protected abstract List<K> nextBatch(K after);
+
+    protected abstract void migrate(K key);
+
+    // Called once, after the last key is migrated
+    protected abstract void onComplete();
+
+    /**
+     * Subclasses call this from their @Scheduled method.
+     */
+    protected void runBatch() {
+        if (complete) {
+            return;
+        }
+
+        List<K> batch = nextBatch(cursor);
+        if (batch.isEmpty()) {
+            failed.removeIf(this::tryMigrate);
+            if (!failed.isEmpty()) {
+                log.warn("{} has {} left to retry", name, failed.size());
+                return;
+            }
+            complete = true;
+            onComplete();
+            return;
+        }
+
+        for (K key : batch) {
+            if (!tryMigrate(key)) {
+                failed.add(key); // retried once the pass is through
+            }
+            cursor = key;
+        }
+    }
+
+    //helper methods
+    private boolean tryMigrate(K key) {
+        try {
+            migrate(key);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("{} failed for {}: {}", name, key, e.getMessage());
+            return false;
+        }
+    }
+}
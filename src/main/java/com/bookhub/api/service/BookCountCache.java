@@ -0,0 +1,59 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.CategorySnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Totals for the paged book lists, so a page costs one find instead of a find plus a countDocuments.
+ * The whole catalog comes from the collection metadata, cached and dropped on BookChangedEvent (the TTL
+ * only covers writes that don't publish one). A category's total is its bookCount in the in-memory
+ * CategorySnapshot, which CategoryService keeps current, so it needs no cache of its own.
+ */
+@Service
+public class BookCountCache {
+
+    private static final String ALL_BOOKS = "*";
+
+    private final MongoTemplate mongoTemplate;
+    private final CategorySnapshotHolder categorySnapshot;
+    private final Cache<String, Long> counts;
+
+    public BookCountCache(MongoTemplate mongoTemplate,
+                          CategorySnapshotHolder categorySnapshot,
+                          @Value("${catalog.count-cache-ttl:5m}") Duration ttl) {
+        this.mongoTemplate = mongoTemplate;
+        this.categorySnapshot = categorySnapshot;
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(1)
+                .build();
+    }
+
+    /**
+     * @param categoryId null for the whole catalog
+     */
+    public long count(String categoryId) {
+        if (categoryId == null) {
+            return counts.get(ALL_BOOKS, k -> mongoTemplate.estimatedCount(Book.class));
+        }
+        return categorySnapshot.get().findById(categoryId)
+                .map(CategorySnapshot.Entry::bookCount)
+                .orElse(0);
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() != BookChangedEvent.Type.UPDATED) {
+            counts.invalidate(ALL_BOOKS);
+        }
+    }
+}
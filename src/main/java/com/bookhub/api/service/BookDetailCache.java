@@ -0,0 +1,66 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.event.BookChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+/**
+ * Book details by id. Caffeine's W-TinyLFU admission keeps the books that are read often
+ * rather than the ones read last, so a crawl over the catalog doesn't flush the popular ones.
+ * Entries are dropped on BookChangedEvent; the TTL bounds staleness for writes made on other nodes.
+ * Hit, miss and eviction counts are published as the cache.* metrics with cache=book-details.
+ * Each entry remembers when its book was last modified, so conditional GETs on a hot book never touch Mongo.
+ */
+@Service
+public class BookDetailCache {
+
+    public record Entry(BookResponseDTO book, long lastModified) {
+    }
+
+    private final Cache<String, Entry> cache;
+
+    public BookDetailCache(@Value("${catalog.book-cache.max-size:10000}") long maxSize,
+                           @Value("${catalog.book-cache.ttl:10m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "book-details");
+    }
+
+    /**
+     * Concurrent misses for the same id share one call to the loader; the others wait for its result.
+     *
+     * @param loader returns null when there is no such book, which is not cached
+     */
+    public Entry get(String bookId, Function<String, Entry> loader) {
+        return cache.get(bookId, loader);
+    }
+
+    /**
+     * @return the cached book's modification time in epoch millis, empty on a miss (nothing is loaded)
+     */
+    public OptionalLong lastModified(String bookId) {
+        // Quietly: a revalidation isn't a read of the body, so it stays out of the hit ratio
+        Entry entry = cache.policy().getIfPresentQuietly(bookId);
+        return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.lastModified());
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        // Waits for a load of the same id that is in flight, so a stale read can't land after this
+        cache.invalidate(event.getBookId());
+    }
+}
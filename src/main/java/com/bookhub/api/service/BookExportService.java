@@ -0,0 +1,94 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.BookExportDTO;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog as NDJSON, one book per line, straight from a Mongo cursor.
+ * Only the cursor's current batch and Jackson's write buffer are in memory at any time,
+ * so heap use doesn't grow with the catalog.
+ */
+@Service
+@Slf4j
+public class BookExportService {
+
+    private final BookRepository bookRepo;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public BookExportService(BookRepository bookRepo, ObjectMapper objectMapper) {
+        this.bookRepo = bookRepo;
+        this.objectMapper = objectMapper;
+        // Flushing after every book would send (and gzip) tiny chunks; the generator flushes when its buffer fills
+        this.writer = objectMapper.writerFor(BookExportDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * @param since only books changed at or after this time; null for the whole catalog
+     * @return how many books were written
+     */
+    public long export(LocalDateTime since, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long count;
+        try (Stream<Book> books = bookRepo.streamForExport(since)) {
+            count = writeNdjson(books, out);
+        }
+        log.info("Exported {} books (since {}) in {} ms", count, since, System.currentTimeMillis() - startedAt);
+        return count;
+    }
+
+    /**
+     * Writes each book as one JSON line. Leaves out open; it is flushed at the end.
+     */
+    public long writeNdjson(Stream<Book> books, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // lines are split by our '\n', not Jackson's default space
+
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, toBookExportDTO(iterator.next()));
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    //helper methods
+    private BookExportDTO toBookExportDTO(Book book) {
+        return BookExportDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .description(book.getDescription())
+                .isbn(book.getIsbn())
+                .publishedDate(book.getPublishedDate())
+                .categoryIds(book.getCategoryIds())
+                .coverImage(book.getCoverImageUrl())
+                .bookFiles(book.getBookFileUrl())
+                .relatedBooks(book.getRelatedBooks())
+                .saveCount(book.getSaveCount())
+                .addedOn(book.getAddedOn())
+                .addedBy(book.getAddedBy())
+                .updatedOn(book.getUpdatedOn())
+                .updatedBy(book.getUpdatedBy())
+                .build();
+    }
+}
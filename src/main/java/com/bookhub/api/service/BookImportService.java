@@ -0,0 +1,574 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.BookImportRowDTO;
+import com.bookhub.api.dto.ImportJobDTO;
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.exception.BusinessException;
+import com.bookhub.api.exception.FileUploadException;
+import com.bookhub.api.exception.ResourceNotFoundException;
+import com.bookhub.api.exception.ValidationException;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.ImportJob;
+import com.bookhub.api.model.ImportJobStatus;
+import com.bookhub.api.model.Resource;
+import com.bookhub.api.model.ResourceType;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.ImportJobRepository;
+import com.bookhub.api.utils.ImportRowReader;
+import com.bookhub.api.utils.StoreResources;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Admin bulk import of books from an NDJSON or CSV file plus an optional zip of covers and book files.
+ * The uploads are staged on local disk and processed in the background, one job at a time, in batches.
+ * Each batch:
+ * - checks its categories against the category snapshot once;
+ * - uploads its files on a small bounded pool;
+ * - inserts its books with one insertMany;
+ * - applies one aggregated category count update.
+ * The job document is checkpointed after every batch. Book ids and Cloudinary names come from the
+ * job id and line number, so a job resumed after a crash skips books that are already in and
+ * overwrites half-done uploads instead of duplicating them.
+ * <p>
+ * A transient database failure doesn't fail the job: it is retried from its last checkpoint with a
+ * growing delay. The staged files are kept until the job completes, fails for good or is cancelled.
+ */
+@Service
+@Slf4j
+public class BookImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String METADATA_FILE = "metadata";
+    private static final String ARCHIVE_FILE = "archive.zip";
+    private static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ImportJobRepository importJobRepo;
+    private final BookRepository bookRepo;
+    private final CategoryService categoryService;
+    private final CurrentUserService currentUserService;
+    private final StoreResources storeResources;
+    private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader rowReader;
+    private final Path workDir;
+    private final int batchSize;
+    private final long maxUploadSize;
+    private final Duration retryDelay;
+
+    // Consecutive transient failures per job, for the retry backoff
+    private final Map<String, Integer> retryAttempts = new ConcurrentHashMap<>();
+
+    private final ExecutorService jobRunner;
+    private final ExecutorService uploadPool;
+
+    public BookImportService(ImportJobRepository importJobRepo,
+                             BookRepository bookRepo,
+                             CategoryService categoryService,
+                             CurrentUserService currentUserService,
+                             StoreResources storeResources,
+                             CloudinaryService cloudinaryService,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             @Value("${catalog.import.work-dir:${java.io.tmpdir}/bookhub-imports}") Path workDir,
+                             @Value("${catalog.import.batch-size:500}") int batchSize,
+                             @Value("${catalog.import.upload-concurrency:4}") int uploadConcurrency,
+                             @Value("${catalog.import.max-upload-size:2GB}") DataSize maxUploadSize,
+                             @Value("${catalog.import.retry-delay:5s}") Duration retryDelay) {
+        this.importJobRepo = importJobRepo;
+        this.bookRepo = bookRepo;
+        this.categoryService = categoryService;
+        this.currentUserService = currentUserService;
+        this.storeResources = storeResources;
+        this.cloudinaryService = cloudinaryService;
+        this.eventPublisher = eventPublisher;
+        this.rowReader = objectMapper.readerFor(BookImportRowDTO.class);
+        this.workDir = workDir;
+        this.batchSize = batchSize;
+        this.maxUploadSize = maxUploadSize.toBytes();
+        this.retryDelay = retryDelay;
+
+        this.jobRunner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.uploadPool = Executors.newFixedThreadPool(uploadConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "book-import-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Streams the request body to the work dir, counts the rows and queues the job; the books are
+     * imported in the background. The body is either the metadata itself (text/csv or
+     * application/x-ndjson) or a zip (application/zip) holding metadata.csv or metadata.ndjson
+     * next to the covers and book files it names. It never goes through multipart parsing, so the
+     * import has its own size cap (max-upload-size) instead of raising the global multipart limit.
+     */
+    public ImportJobDTO startImport(InputStream body, MediaType contentType) {
+        boolean hasArchive = ZIP.isCompatibleWith(contentType);
+        ImportJob.Format format = hasArchive ? null : formatOf(contentType);
+
+        Instant now = Instant.now();
+        ImportJob job = importJobRepo.save(ImportJob.builder()
+                .status(ImportJobStatus.QUEUED)
+                .format(format)
+                .hasArchive(hasArchive)
+                .createdBy(currentUserService.getCurrentUser().getId())
+                .createdOn(now)
+                .updatedOn(now)
+                .build());
+
+        Path jobDir = workDir.resolve(job.getId());
+        try {
+            Files.createDirectories(jobDir);
+            Path upload = jobDir.resolve(hasArchive ? ARCHIVE_FILE : METADATA_FILE);
+            copyCapped(body, upload);
+            if (hasArchive) {
+                // Also rejects a broken zip now, not mid-job
+                try (ZipFile archive = new ZipFile(upload.toFile())) {
+                    job.setFormat(extractMetadata(archive, jobDir.resolve(METADATA_FILE)));
+                }
+            }
+            try (ImportRowReader rows = openRows(job)) {
+                job.setTotalRows(rows.skip(Long.MAX_VALUE));
+            }
+        } catch (IOException | RuntimeException e) {
+            importJobRepo.delete(job);
+            deleteStagedFiles(job.getId());
+            if (e instanceof ValidationException validationException) {
+                throw validationException;
+            }
+            throw new FileUploadException("Failed to stage import files: " + e.getMessage());
+        }
+
+        job = importJobRepo.save(job);
+        submit(job.getId());
+        return toImportJobDTO(job);
+    }
+
+    public ImportJobDTO getJob(String jobId) {
+        return importJobRepo.findById(jobId)
+                .map(this::toImportJobDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found with id: " + jobId));
+    }
+
+    /**
+     * Stops a queued or running job and deletes its staged files. Books already imported stay;
+     * a batch in flight finishes, but its checkpoint is not written.
+     */
+    public ImportJobDTO cancelJob(String jobId) {
+        if (importJobRepo.findById(jobId).isEmpty()) {
+            throw new ResourceNotFoundException("Import job not found with id: " + jobId);
+        }
+        if (!importJobRepo.cancel(jobId, Instant.now())) {
+            throw new BusinessException("Import job " + jobId + " has already finished");
+        }
+        retryAttempts.remove(jobId);
+        deleteStagedFiles(jobId);
+        return getJob(jobId);
+    }
+
+    /**
+     * Picks up jobs a crash or restart interrupted, from their last checkpoint.
+     * Jobs staged on another node's disk are left for that node.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        for (ImportJob job : importJobRepo.findByStatusInOrderByCreatedOnAsc(
+                List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING))) {
+            if (Files.exists(workDir.resolve(job.getId()).resolve(METADATA_FILE))) {
+                log.info("Resuming import job {} at row {} of {}", job.getId(), job.getProcessedRows(), job.getTotalRows());
+                submit(job.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // A job cut off here stays RUNNING with its last checkpoint and is resumed on the next start
+        jobRunner.shutdownNow();
+        uploadPool.shutdownNow();
+    }
+
+    //helper methods
+    private void submit(String jobId) {
+        jobRunner.execute(() -> run(jobId));
+    }
+
+    // Package-private so tests can run a job on the calling thread
+    void run(String jobId) {
+        ImportJob job;
+        try {
+            job = importJobRepo.findById(jobId).orElse(null);
+            if (job == null || job.getStatus() == ImportJobStatus.COMPLETED || job.getStatus() == ImportJobStatus.FAILED
+                    || job.getStatus() == ImportJobStatus.CANCELLED) {
+                return;
+            }
+            job.setStatus(ImportJobStatus.RUNNING);
+            job = checkpoint(job);
+            if (job == null) {
+                return; // cancelled while queued
+            }
+        } catch (RuntimeException e) {
+            if (!isTransient(e) || jobRunner.isShutdown()) {
+                throw e;
+            }
+            scheduleRetry(jobId, e);
+            return;
+        }
+
+        try (ImportRowReader rows = openRows(job);
+             ZipFile archive = job.isHasArchive() ? new ZipFile(workDir.resolve(jobId).resolve(ARCHIVE_FILE).toFile()) : null) {
+            rows.skip(job.getProcessedRows());
+
+            List<ImportRowReader.Row> batch;
+            while (!(batch = rows.next(batchSize)).isEmpty()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return; // shutting down; resumed from the checkpoint
+                }
+                importBatch(job, batch, archive);
+                job.setProcessedRows(job.getProcessedRows() + batch.size());
+                job = checkpoint(job);
+                if (job == null) {
+                    log.info("Import job {} was cancelled", jobId);
+                    deleteStagedFiles(jobId);
+                    return;
+                }
+                retryAttempts.remove(jobId);
+            }
+
+            job.setStatus(ImportJobStatus.COMPLETED);
+            job.setFinishedOn(Instant.now());
+            checkpoint(job);
+            log.info("Import job {} finished: {} books imported, {} rows rejected",
+                    jobId, job.getImportedBooks(), job.getFailedRows());
+        } catch (Exception e) {
+            if (jobRunner.isShutdown()) {
+                return; // the app is stopping; the job is resumed from its checkpoint
+            }
+            if (isTransient(e)) {
+                // The stored checkpoint is still right: the batch it stopped in is redone, skipping what got in
+                scheduleRetry(jobId, e);
+                return;
+            }
+            log.error("Import job {} failed at row {}", jobId, job.getProcessedRows(), e);
+            job.setStatus(ImportJobStatus.FAILED);
+            job.setFailureReason(e.getMessage());
+            job.setFinishedOn(Instant.now());
+            checkpoint(job);
+        }
+        retryAttempts.remove(jobId);
+        deleteStagedFiles(jobId);
+    }
+
+    private void scheduleRetry(String jobId, Exception e) {
+        int attempt = retryAttempts.merge(jobId, 1, Integer::sum);
+        // 1x, 2x, 4x ... the configured delay, at most 64x
+        long delayMillis = retryDelay.toMillis() << Math.min(attempt - 1, 6);
+        log.warn("Import job {} hit a transient failure, retrying in {} ms (attempt {}): {}",
+                jobId, delayMillis, attempt, e.getMessage());
+        CompletableFuture.runAsync(() -> run(jobId),
+                CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, jobRunner));
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof DataAccessResourceFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void importBatch(ImportJob job, List<ImportRowReader.Row> batch, ZipFile archive) {
+        List<ImportRowReader.Row> valid = new ArrayList<>();
+        for (ImportRowReader.Row row : batch) {
+            String error = row.error() != null ? row.error() : validateRow(row.book(), archive);
+            if (error != null) {
+                reject(job, row.line(), error);
+            } else {
+                valid.add(row);
+            }
+        }
+
+        // One snapshot lookup for every category the batch mentions
+        Set<String> categoryIds = new LinkedHashSet<>();
+        valid.forEach(row -> categoryIds.addAll(row.book().getCategoryIds()));
+        Set<String> missing = Set.copyOf(categoryService.findMissingCategoryIds(categoryIds));
+        if (!missing.isEmpty()) {
+            valid.removeIf(row -> {
+                List<String> unknown = row.book().getCategoryIds().stream().filter(missing::contains).toList();
+                if (!unknown.isEmpty()) {
+                    reject(job, row.line(), "Categories not found: " + unknown);
+                }
+                return !unknown.isEmpty();
+            });
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Rows inserted before a crash are already in; don't upload or insert them again
+        Map<String, ImportRowReader.Row> rowsById = new LinkedHashMap<>();
+        valid.forEach(row -> rowsById.put(bookIdFor(job.getId(), row.line()), row));
+        Set<String> existing = bookRepo.findExistingIds(rowsById.keySet());
+        job.setImportedBooks(job.getImportedBooks() + existing.size());
+
+        Map<String, CompletableFuture<Book>> pending = new LinkedHashMap<>();
+        rowsById.forEach((bookId, row) -> {
+            if (!existing.contains(bookId)) {
+                pending.put(bookId, toBook(job, bookId, row.book(), archive));
+            }
+        });
+
+        List<Book> books = new ArrayList<>();
+        pending.forEach((bookId, future) -> {
+            try {
+                books.add(future.join());
+            } catch (CompletionException e) {
+                // Only this row is rejected; files it did upload are overwritten if it's imported again
+                reject(job, rowsById.get(bookId).line(), e.getCause().getMessage());
+            }
+        });
+        if (books.isEmpty()) {
+            return;
+        }
+
+        List<Book> inserted = bookRepo.insert(books); // one insertMany
+        List<String> addedTo = new ArrayList<>();
+        inserted.forEach(book -> addedTo.addAll(book.getCategoryIds()));
+        categoryService.adjustBookCounts(null, addedTo);
+        inserted.forEach(book -> eventPublisher.publishEvent(BookChangedEvent.created(book)));
+        job.setImportedBooks(job.getImportedBooks() + inserted.size());
+    }
+
+    private String validateRow(BookImportRowDTO row, ZipFile archive) {
+        if (row.getTitle() == null || row.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (row.getAuthor() == null || row.getAuthor().isBlank()) {
+            return "Author is required";
+        }
+        if (row.getDescription() != null && row.getDescription().length() > 1000) {
+            return "Description cannot exceed 1000 characters";
+        }
+        row.setCategoryIds(row.getCategoryIds() == null ? List.of() : row.getCategoryIds().stream().distinct().toList());
+
+        List<String> fileNames = new ArrayList<>();
+        if (row.getCoverImage() != null) {
+            fileNames.add(row.getCoverImage());
+        }
+        if (row.getBookFiles() != null) {
+            fileNames.addAll(row.getBookFiles());
+        }
+        for (String name : fileNames) {
+            ZipEntry entry = archive == null ? null : archive.getEntry(name);
+            if (entry == null || entry.isDirectory()) {
+                return "File not found in archive: " + name;
+            }
+            try {
+                storeResources.checkFile(name, entry.getSize());
+            } catch (ValidationException e) {
+                return name + ": " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    // Uploads run on the upload pool; the book is built once all of its files are up
+    private CompletableFuture<Book> toBook(ImportJob job, String bookId, BookImportRowDTO row, ZipFile archive) {
+        CompletableFuture<String> cover = row.getCoverImage() == null
+                ? CompletableFuture.completedFuture(null)
+                : upload(archive, row.getCoverImage(), bookId + "_cover").thenApply(Resource::getContentUrl);
+
+        List<CompletableFuture<Resource>> files = new ArrayList<>();
+        if (row.getBookFiles() != null) {
+            for (int i = 0; i < row.getBookFiles().size(); i++) {
+                files.add(upload(archive, row.getBookFiles().get(i), bookId + "_" + i));
+            }
+        }
+
+        return CompletableFuture.allOf(files.toArray(CompletableFuture[]::new))
+                .thenCombine(cover, (ignored, coverUrl) -> Book.builder()
+                        .id(bookId)
+                        .title(row.getTitle().trim())
+                        .author(row.getAuthor().trim())
+                        .description(row.getDescription())
+                        .bookFileUrl(files.stream().map(CompletableFuture::join).toList())
+                        .coverImageUrl(coverUrl)
+                        .categoryIds(row.getCategoryIds())
+                        .isbn(row.getIsbn())
+                        .publishedDate(row.getPublishedDate())
+                        .addedBy(job.getCreatedBy())
+                        .addedOn(LocalDateTime.now())
+                        .build());
+    }
+
+    private CompletableFuture<Resource> upload(ZipFile archive, String name, String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                ZipEntry entry = archive.getEntry(name);
+                ResourceType type = storeResources.determineResourceType(name);
+                // The size checked in validateRow is what the zip claims; read no more than the cap regardless
+                long maxSize = storeResources.maxFileSize(type);
+                byte[] content;
+                try (var in = archive.getInputStream(entry)) {
+                    content = in.readNBytes((int) maxSize + 1);
+                }
+                if (content.length > maxSize) {
+                    throw new ValidationException("larger than " + maxSize / (1024 * 1024) + "MB");
+                }
+                return Resource.builder()
+                        .type(type)
+                        .contentUrl(cloudinaryService.uploadFile(content, key, type))
+                        .sizeBytes(content.length)
+                        .originalName(Path.of(name).getFileName().toString())
+                        .contentType(MediaTypeFactory.getMediaType(name).map(MediaType::toString).orElse(null))
+                        .drmProtected(false)
+                        .build();
+            } catch (IOException | RuntimeException e) {
+                throw new FileUploadException("Upload of " + name + " failed: " + e.getMessage());
+            }
+        }, uploadPool);
+    }
+
+    private void reject(ImportJob job, long line, String message) {
+        job.setFailedRows(job.getFailedRows() + 1);
+        if (job.getErrors().size() < MAX_REPORTED_ERRORS) {
+            job.getErrors().add(new ImportJob.RowError(line, message));
+        }
+    }
+
+    // Null once the job has been cancelled; the caller stops there
+    private ImportJob checkpoint(ImportJob job) {
+        job.setUpdatedOn(Instant.now());
+        return importJobRepo.saveUnlessCancelled(job);
+    }
+
+    private ImportRowReader openRows(ImportJob job) throws IOException {
+        Path metadata = workDir.resolve(job.getId()).resolve(METADATA_FILE);
+        return new ImportRowReader(Files.newBufferedReader(metadata, StandardCharsets.UTF_8), job.getFormat(), rowReader);
+    }
+
+    private void deleteStagedFiles(String jobId) {
+        try {
+            FileSystemUtils.deleteRecursively(workDir.resolve(jobId));
+        } catch (IOException e) {
+            log.warn("Failed to delete staged files of import job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private static ImportJob.Format formatOf(MediaType contentType) {
+        if (CSV.isCompatibleWith(contentType)) {
+            return ImportJob.Format.CSV;
+        }
+        if (NDJSON.isCompatibleWith(contentType)) {
+            return ImportJob.Format.NDJSON;
+        }
+        throw new ValidationException("Import body must be text/csv, application/x-ndjson or application/zip");
+    }
+
+    // Copies the body, failing as soon as it passes maxUploadSize rather than after it's all on disk
+    private void copyCapped(InputStream body, Path target) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxUploadSize) {
+                    throw new ValidationException("Import upload exceeds " + maxUploadSize / (1024 * 1024) + "MB");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static ImportJob.Format extractMetadata(ZipFile archive, Path target) throws IOException {
+        for (String name : List.of("metadata.csv", "metadata.ndjson", "metadata.jsonl")) {
+            ZipEntry entry = archive.getEntry(name);
+            if (entry != null) {
+                try (InputStream in = archive.getInputStream(entry)) {
+                    Files.copy(in, target);
+                }
+                return name.endsWith(".csv") ? ImportJob.Format.CSV : ImportJob.Format.NDJSON;
+            }
+        }
+        throw new ValidationException("Archive must contain metadata.csv or metadata.ndjson at its root");
+    }
+
+    // Same job and line always give the same id, which is what makes a resumed batch idempotent.
+    // 24 hex chars, so it is stored as an ObjectId like every other book id.
+    static String bookIdFor(String jobId, long line) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((jobId + ":" + line).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ImportJobDTO toImportJobDTO(ImportJob job) {
+        return ImportJobDTO.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .totalRows(job.getTotalRows())
+                .processedRows(job.getProcessedRows())
+                .importedBooks(job.getImportedBooks())
+                .failedRows(job.getFailedRows())
+                .errors(job.getErrors())
+                .failureReason(job.getFailureReason())
+                .createdOn(job.getCreatedOn())
+                .updatedOn(job.getUpdatedOn())
+                .finishedOn(job.getFinishedOn())
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookSaveCountChangedEvent;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.SavedBookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repairs Book.saveCount from saved_books, the same way CategoryCountReconciler repairs category counts:
+ * the toggle's $inc lands after its saved_books write, and the migration's recount can miss or double one.
+ * A difference is only corrected when the previous run saw the same one, so a toggle in flight is left alone.
+ * <p>
+ * Does nothing until the savedBy migration is through: until then saveCount also counts legacy saves.
+ */
+@Service
+@Slf4j
+public class BookSaveCountReconciler {
+
+    private final BookRepository bookRepo;
+    private final SavedBookRepository savedBookRepo;
+    private final SavedBooksMigration savedBooksMigration;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Sum of |stored - actual| fixed over all runs
+    private final Counter driftCorrected;
+
+    // stored - actual per book as the last run found it, only touched by the scheduler thread
+    private Map<String, Long> previousDifferences = Map.of();
+
+    public BookSaveCountReconciler(BookRepository bookRepo, SavedBookRepository savedBookRepo,
+                                   SavedBooksMigration savedBooksMigration, ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry) {
+        this.bookRepo = bookRepo;
+        this.savedBookRepo = savedBookRepo;
+        this.savedBooksMigration = savedBooksMigration;
+        this.eventPublisher = eventPublisher;
+        this.driftCorrected = Counter.builder("bookhub.books.savecount.drift.corrected")
+                .description("Save count drift corrected by the save count reconciliation job")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${catalog.save-count-reconcile-delay:5m}",
+            fixedDelayString = "${catalog.save-count-reconcile-interval:1h}")
+    public void reconcile() {
+        if (!savedBooksMigration.isComplete()) {
+            return;
+        }
+
+        // Stored counts first, so a concurrent $inc makes the replace below miss instead of being lost
+        Map<String, Long> storedCounts = bookRepo.findNonZeroSaveCounts();
+        Map<String, Long> actualCounts = savedBookRepo.countSavesPerBook();
+        Set<String> bookIds = new HashSet<>(storedCounts.keySet());
+        bookIds.addAll(actualCounts.keySet());
+
+        long drift = 0;
+        Map<String, Long> differences = new HashMap<>();
+        for (String bookId : bookIds) {
+            long stored = storedCounts.getOrDefault(bookId, 0L);
+            long actual = actualCounts.getOrDefault(bookId, 0L);
+            if (stored == actual) {
+                continue;
+            }
+            long difference = stored - actual;
+            differences.put(bookId, difference);
+            Long seenLastRun = previousDifferences.get(bookId);
+            if (seenLastRun == null || seenLastRun != difference) {
+                continue; // first sighting, possibly a toggle in flight; checked again next run
+            }
+            if (bookRepo.replaceSaveCount(bookId, stored, actual)) {
+                differences.remove(bookId);
+                drift += Math.abs(difference);
+                log.info("Book {} saveCount corrected from {} to {}", bookId, stored, actual);
+                eventPublisher.publishEvent(new BookSaveCountChangedEvent(bookId, actual));
+            }
+            // Otherwise it changed while we were counting (or the book is gone); the next run looks again
+        }
+
+        previousDifferences = differences;
+        driftCorrected.increment(drift);
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.utils.InvertedIndex;
+import com.bookhub.api.utils.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over title, author and description kept in memory.
+ * Built from a cursor over the books collection once the app is up, then kept
+ * current from BookChangedEvents. Until the build finishes, callers fall back to Mongo.
+ * Events only cover this node's writes, so the index is rebuilt every rebuild-interval to pick up
+ * other nodes' and swapped in whole; events that arrive during a rebuild are replayed onto it first.
+ */
+@Service
+@Slf4j
+public class BookSearchIndex {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready;
+    // Events seen while a rebuild streams the collection, replayed onto the new index. Guarded by this.
+    private List<BookChangedEvent> duringRebuild;
+
+    public BookSearchIndex(MongoTemplate mongoTemplate,
+                           @Value("${search.index.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+
+        InvertedIndex fresh = new InvertedIndex();
+        try {
+            Query query = new Query();
+            query.fields().include("title", "author", "description", "categoryIds");
+            query.cursorBatchSize(1000);
+
+            try (Stream<Book> books = mongoTemplate.stream(query, Book.class)) {
+                books.forEach(book -> index(fresh, book));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+            throw e; // the current index stays in place
+        }
+
+        synchronized (this) {
+            duringRebuild.forEach(event -> apply(fresh, event));
+            duringRebuild = null;
+            index = fresh;
+        }
+        ready = true;
+        log.info("Book search index built with {} books in {} ms",
+                fresh.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval:30m}",
+            fixedDelayString = "${search.index.rebuild-interval:30m}")
+    public void rebuild() {
+        build();
+    }
+
+    @EventListener
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        apply(index, event);
+        if (duringRebuild != null) {
+            duringRebuild.add(event);
+        }
+    }
+
+    /**
+     * @return ranked book ids and the total number of matches, or empty when the index can't answer yet
+     */
+    public Optional<InvertedIndex.Hits> search(String text, List<String> categoryIds, int offset, int limit) {
+        if (!enabled || !ready) {
+            return Optional.empty();
+        }
+        return Optional.of(index.search(TextNormalizer.tokenize(text), categoryIds, offset, limit));
+    }
+
+    //helper methods
+    private void apply(InvertedIndex target, BookChangedEvent event) {
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            target.remove(event.getBookId());
+        } else {
+            index(target, event.getBook());
+        }
+    }
+
+    private static void index(InvertedIndex target, Book book) {
+        List<String> titleTokens = TextNormalizer.tokenize(book.getTitle());
+
+        List<String> tokens = new ArrayList<>();
+        // Title words count twice so a title hit outranks the same word in a long description
+        tokens.addAll(titleTokens);
+        tokens.addAll(titleTokens);
+        tokens.addAll(TextNormalizer.tokenize(book.getAuthor()));
+        tokens.addAll(TextNormalizer.tokenize(book.getDescription()));
+
+        target.put(book.getId(), tokens, book.getCategoryIds());
+    }
+}
@@ -2,30 +2,44 @@ package com.bookhub.api.service;
 
 import com.bookhub.api.dto.BookDTO;
 import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.dto.BookSuggestionDTO;
+import com.bookhub.api.dto.BookSummaryDTO;
+import com.bookhub.api.dto.CursorPage;
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.event.BookSaveCountChangedEvent;
 import com.bookhub.api.exception.FileUploadException;
 import com.bookhub.api.exception.ResourceNotFoundException;
 import com.bookhub.api.model.*;
 import com.bookhub.api.repository.BookRepository;
-import com.bookhub.api.repository.CategoryRepository;
-import com.bookhub.api.repository.UserRepository;
+import com.bookhub.api.repository.SavedBookRepository;
+import com.bookhub.api.utils.InvertedIndex;
+import com.bookhub.api.utils.KeysetCursor;
 import com.bookhub.api.utils.StoreResources;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.ZoneId;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
 
@@ -34,15 +48,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BookService {
     private final BookRepository bookRepo;
-    private final UserRepository userRepo;
-    private final CategoryRepository categoryRepo;
+    private final CategoryService categoryService;
+    private final CurrentUserService currentUserService;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final BookCountCache bookCountCache;
+    private final BookDetailCache bookDetailCache;
+    private final SavedBookRepository savedBookRepo;
+    private final SavedBooksMigration savedBooksMigration;
+    private final ApplicationEventPublisher eventPublisher;
     private final StoreResources storeResources;
     private final CloudinaryService cloudinaryService;
 
 
     public BookResponseDTO createBook(BookDTO bookDto) {
         User creator = getCurrentUser();
-        validateCategories(bookDto.getCategoryIds());
+        categoryService.validateCategoryIds(bookDto.getCategoryIds());
 
         Book book = Book.builder()
                 .title(bookDto.getTitle())
@@ -59,7 +80,8 @@ public class BookService {
                 .build();
 
         Book savedBook = bookRepo.save(book);
-        updateCategoryCounts(savedBook.getCategoryIds(), 1);
+        categoryService.adjustBookCounts(null, savedBook.getCategoryIds());
+        eventPublisher.publishEvent(BookChangedEvent.created(savedBook));
 
         return toBookResponseDTO(savedBook);
     }
@@ -86,16 +108,22 @@ public class BookService {
             log.warn("Failed to delete Cloudinary files for bookId {}: {}", bookId, e.getMessage());
         }
 
-        updateCategoryCounts(book.getCategoryIds(), -1);
+        categoryService.adjustBookCounts(book.getCategoryIds(), null);
         bookRepo.delete(book);
+        savedBookRepo.deleteByBookId(bookId);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(book));
     }
 
     @Transactional
     public BookResponseDTO updateBook(String bookId, BookDTO updateDto) {
         User updater = getCurrentUser();
-        Book existingBook = bookRepo.findById(bookId)
+        // No savedBy: the edit never writes it, see updateEditableFields
+        Book existingBook = bookRepo.findDetailById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found..."));
 
+        // Snapshot for listeners that need to know what changed
+        Book previous = existingBook.toBuilder().build();
+
         // Track category changes for count updates
         List<String> oldCategoryIds = existingBook.getCategoryIds();
         List<String> newCategoryIds = updateDto.getCategoryIds();
@@ -134,13 +162,15 @@ public class BookService {
         // Update fields
         updateBookFields(existingBook, updateDto, updater.getId());
 
-        Book updatedBook = bookRepo.save(existingBook);
+        // Only the edited fields; a save of the whole book would undo concurrent saveCount $incs
+        Book updatedBook = bookRepo.updateEditableFields(existingBook)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found..."));
 
         // Update category counts if categories changed
         if (newCategoryIds != null && !newCategoryIds.equals(oldCategoryIds)) {
-            updateCategoryCounts(oldCategoryIds, -1); // Decrement old categories
-            updateCategoryCounts(newCategoryIds, 1);  // Increment new categories
+            categoryService.adjustBookCounts(oldCategoryIds, newCategoryIds);
         }
+        eventPublisher.publishEvent(BookChangedEvent.updated(previous, updatedBook));
 
         return toBookResponseDTO(updatedBook);
     }
@@ -170,52 +200,91 @@ public class BookService {
 
 
     public BookResponseDTO getBookById(String id) {
-        Book book= bookRepo.findById(id)
+        BookDetailCache.Entry entry = bookDetailCache.get(id, bookId -> bookRepo.findDetailById(bookId)
+                .map(book -> new BookDetailCache.Entry(toBookResponseDTO(book), lastModifiedOf(book)))
+                .orElse(null));
+        if (entry == null) {
+            throw new ResourceNotFoundException("Book not found with id: " + id);
+        }
+        return entry.book();
+    }
+
+    /**
+     * When the book last changed, in epoch millis (-1 for old books that never recorded it).
+     * Comes from the detail cache when the book is in it, otherwise from a two-field projection.
+     */
+    public long getBookLastModified(String id) {
+        OptionalLong cached = bookDetailCache.lastModified(id);
+        if (cached.isPresent()) {
+            return cached.getAsLong();
+        }
+        return bookRepo.findTimestampsById(id)
+                .map(BookService::lastModifiedOf)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
-        return toBookResponseDTO(book);
     }
 
-    public Page<BookResponseDTO> getAllBooks(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> bookPage = bookRepo.findAll(pageable);
-        // Call your reusable helper method
-        return toBookResponseDTOPage(bookPage);
+    public Page<BookSummaryDTO> getAllBooks(int page, int size) {
+        return getBooksByCategory(null, PageRequest.of(page, size));
     }
 
-    // Better: Paginated search
-    public Page<BookResponseDTO> searchBooksByTitle(String title, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> bookPage;
-        if (title == null || title.trim().isEmpty()) {
-            //return all books if no title entered
-            bookPage = bookRepo.findAll(pageable);
-        } else {
-            // Find books by the given title
-            bookPage = bookRepo.findByTitleContainingIgnoreCase(title.trim(), pageable);
-        }
-        return toBookResponseDTOPage(bookPage);
+    /**
+     * @param catId null for the whole catalog. The total comes from BookCountCache, not a countDocuments.
+     */
+    public Page<BookSummaryDTO> getBooksByCategory(String catId, Pageable pageable) {
+        List<Book> books = bookRepo.findCatalog(catId, pageable.getOffset(), pageable.getPageSize());
+        Page<Book> bookPage = PageableExecutionUtils.getPage(books, pageable, () -> bookCountCache.count(catId));
+        return toBookSummaryDTOPage(bookPage);
+    }
+
+    /**
+     * Same listing without any total: one extra row tells whether there is a next page.
+     */
+    public Slice<BookSummaryDTO> getBookSlice(String catId, Pageable pageable) {
+        List<Book> books = bookRepo.findCatalog(catId, pageable.getOffset(), pageable.getPageSize() + 1);
+        return toSlice(books, pageable).map(this::toBookSummaryDTO);
     }
 
-    public Page<BookResponseDTO> getBooksByCategory(String catId, Pageable pageable) {
-        Page<Book> bookPage = bookRepo.findByCategoryIdsContaining(catId, pageable);
-        return toBookResponseDTOPage(bookPage);
+    /**
+     * Newest books first, optionally in one category, paged by cursor instead of page number.
+     */
+    public CursorPage<BookSummaryDTO> getBooksAfter(String categoryId, String cursor, int size) {
+        int limit = CursorPage.clampSize(size);
+        List<Book> books = bookRepo.findRecentAfter(categoryId, KeysetCursor.decode(cursor), limit + 1);
+        return CursorPage.of(books, limit, book -> KeysetCursor.of(book.getAddedOn(), book.getId()), this::toBookSummaryDTO);
     }
 
-/*    public Page<BookResponseDTO> searchBooks(String query, String categoryId, String sort, Pageable pageable) {
-        // This is a complex query. You would typically use the
-        // MongoRepository's query capabilities, or the Criteria API
-        // to build the query dynamically based on which parameters are present.
+    /**
+     * Catalog search combining optional free text (title, author, description), a title substring,
+     * any number of categories and a sort. Replaces picking between the list endpoints above.
+     */
+    public Page<BookSummaryDTO> searchBooks(String query, String title, List<String> categoryIds, BookSort sort, Pageable pageable) {
+        String text = (query == null || query.isBlank()) ? null : query.trim();
+        String titleContains = (title == null || title.isBlank()) ? null : title.trim();
+
+        // Relevance-ranked text search is answered from memory when the index is ready
+        if (text != null && titleContains == null && (sort == null || sort == BookSort.RELEVANCE)) {
+            Optional<InvertedIndex.Hits> hits = bookSearchIndex.search(
+                    text, categoryIds, (int) pageable.getOffset(), pageable.getPageSize());
+            if (hits.isPresent()) {
+                return new PageImpl<>(loadInOrder(hits.get().keys()), pageable, hits.get().total());
+            }
+        }
 
-        // Example logic:
-        // 1. If categoryId is present, filter by it.
-        // 2. If query (q) is present, search in title, author, description.
-        // 3. Apply sorting based on the 'sort' parameter ("recent" or "popularity").
-        // 4. Return the paginated result.
+        return toBookSummaryDTOPage(bookRepo.search(text, titleContains, categoryIds, sort, pageable));
+    }
 
-        // This would replace getAllBooks, searchBooksByTitle, and getBooksForCategory
-        // for the main book list view.
-        return toBookResponseDTOPage(bookRepo.findComplex(query, categoryId, sort, pageable)); // (You'd need a custom repository method for this)
-    }*/
+    /**
+     * Typeahead for titles and authors, most saved first.
+     */
+    public List<BookSuggestionDTO> suggest(String prefix, int limit) {
+        return bookSuggestionIndex.suggest(prefix, limit).stream()
+                .map(s -> BookSuggestionDTO.builder()
+                        .text(s.text())
+                        .type(s.bookId() != null ? BookSuggestionDTO.Type.TITLE : BookSuggestionDTO.Type.AUTHOR)
+                        .bookId(s.bookId())
+                        .build())
+                .toList();
+    }
 
     /**
      * Toggles the "saved" status for a book for the current user.
@@ -224,51 +293,57 @@ public class BookService {
      */
     public boolean toggleSaveForBook(String bookId) {
         User currentUser = getCurrentUser();
-        Book book = bookRepo.findById(bookId)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with ID: " + bookId));
-
-        // Initialize the list if it's null
-        if (book.getSavedBy() == null) {
-            book.setSavedBy(new ArrayList<>());
+        String userId = currentUser.getId();
+        if (!bookRepo.existsById(bookId)) {
+            throw new ResourceNotFoundException("Book not found with ID: " + bookId);
         }
 
-        List<String> savedByList = book.getSavedBy();
-        boolean isCurrentlySaved = savedByList.contains(currentUser.getId());
+        // Save not migrated yet: move it over first so the toggle below sees it
+        if (!savedBooksMigration.isComplete() && bookRepo.pullLegacySave(bookId, userId)) {
+            savedBookRepo.insertIfAbsent(userId, bookId, Instant.now());
+        }
 
-        if (isCurrentlySaved) {
-            // If already saved, unsave it
-            savedByList.remove(currentUser.getId());
+        // Each branch is one atomic write on user_book_idx, no read-modify-write of the book
+        long delta;
+        if (savedBookRepo.deleteByUserIdAndBookId(userId, bookId) > 0) {
+            delta = -1;
+        } else if (savedBookRepo.insertIfAbsent(userId, bookId, Instant.now())) {
+            delta = 1;
         } else {
-            // If not saved, save it
-            savedByList.add(currentUser.getId());
+            return true; // a concurrent request from the same user saved it first
         }
 
-        bookRepo.save(book);
-        return !isCurrentlySaved; // Return the new state
+        bookRepo.incrementSaveCount(bookId, delta).ifPresent(saveCount ->
+                eventPublisher.publishEvent(new BookSaveCountChangedEvent(bookId, saveCount)));
+        return delta > 0; // Return the new state
     }
 
     /**
-     * Retrieves a paginated list of books saved by the current user.
+     * Retrieves a paginated list of books saved by the current user, most recently saved first.
      */
-    public Page<BookResponseDTO> getSavedBooksForCurrentUser(Pageable pageable) {
+    public Page<BookSummaryDTO> getSavedBooksForCurrentUser(Pageable pageable) {
         User currentUser = getCurrentUser();
-        Page<Book> savedBooksPage = bookRepo.findBySavedByContains(currentUser.getId(), pageable);
+        Page<SavedBook> savedPage = savedBookRepo.findByUserIdOrderBySavedAtDesc(currentUser.getId(), pageable);
+        return new PageImpl<>(loadInOrder(bookIdsOf(savedPage.getContent())), pageable, savedPage.getTotalElements());
+    }
 
-        // We can reuse your existing mapper for a Page<Book>
-        return toBookResponseDTOPage(savedBooksPage);
+    public Slice<BookSummaryDTO> getSavedBookSliceForCurrentUser(Pageable pageable) {
+        User currentUser = getCurrentUser();
+        Slice<SavedBook> saved = savedBookRepo.findSliceByUserIdOrderBySavedAtDesc(currentUser.getId(), pageable);
+        return new SliceImpl<>(loadInOrder(bookIdsOf(saved.getContent())), pageable, saved.hasNext());
     }
 
+    public CursorPage<BookSummaryDTO> getSavedBooksForCurrentUser(String cursor, int size) {
+        User currentUser = getCurrentUser();
+        int limit = CursorPage.clampSize(size);
+        List<SavedBook> saved = savedBookRepo.findSavedAfter(currentUser.getId(), KeysetCursor.decode(cursor), limit + 1);
+        CursorPage<SavedBook> page = CursorPage.of(saved, limit, s -> KeysetCursor.of(s.getSavedAt(), s.getId()), s -> s);
+        return new CursorPage<>(loadInOrder(bookIdsOf(page.getContent())), page.getSize(), page.getNextCursor(), page.isHasNext());
+    }
 
 //helper methods
     private User getCurrentUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getPrincipal();
-
-        String userEmail = userDetails.getUsername(); // assuming email is username
-        return userRepo.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserService.getCurrentUser();
     }
 
     private BookResponseDTO toBookResponseDTO(Book book) {
@@ -286,23 +361,46 @@ public class BookService {
                 .build();
     }
 
-    public Page<BookResponseDTO> toBookResponseDTOPage(Page<Book> booksPage) {
-        // The .map() function handles the conversion of the content
-        // and preserves the page metadata (total elements, pageable, etc.)
-        return booksPage.map(this::toBookResponseDTO);
+    private static long lastModifiedOf(Book book) {
+        LocalDateTime changedOn = book.getUpdatedOn() != null ? book.getUpdatedOn() : book.getAddedOn();
+        return changedOn == null ? -1 : changedOn.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static List<String> bookIdsOf(List<SavedBook> saved) {
+        return saved.stream().map(SavedBook::getBookId).toList();
     }
 
-    private void validateCategories(List<String> categoryIds) {
-        List<String> existingCategories = categoryRepo.findAllById(categoryIds)
-                .stream()
-                .map(Categories::getId)
+    // List views only get what a card needs; the repository loads just these fields too
+    private BookSummaryDTO toBookSummaryDTO(Book book) {
+        return BookSummaryDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .coverImage(book.getCoverImageUrl())
+                .categoryIds(book.getCategoryIds())
+                .build();
+    }
+
+    // The id lookup doesn't keep the order of the ids it was given
+    private List<BookSummaryDTO> loadInOrder(List<String> bookIds) {
+        Map<String, Book> byId = new HashMap<>();
+        bookRepo.findSummariesByIds(bookIds).forEach(book -> byId.put(book.getId(), book));
+        return bookIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::toBookSummaryDTO)
                 .toList();
+    }
 
-        if (existingCategories.size() != categoryIds.size()) {
-            List<String> missing = new ArrayList<>(categoryIds);
-            missing.removeAll(existingCategories);
-            throw new RuntimeException("Categories not found: " + missing);
-        }
+    public Page<BookSummaryDTO> toBookSummaryDTOPage(Page<Book> booksPage) {
+        // The .map() function handles the conversion of the content
+        // and preserves the page metadata (total elements, pageable, etc.)
+        return booksPage.map(this::toBookSummaryDTO);
+    }
+
+    private static <T> Slice<T> toSlice(List<T> fetched, Pageable pageable) {
+        boolean hasNext = fetched.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? fetched.subList(0, pageable.getPageSize()) : fetched, pageable, hasNext);
     }
 
     private String saveCoverImage(MultipartFile coverImage) {
@@ -336,16 +434,5 @@ public class BookService {
                 .collect(Collectors.toList());
     }
 
-    private void updateCategoryCounts(List<String> categoryIds, int delta) {
-        if (categoryIds == null || categoryIds.isEmpty()) return;
-
-        categoryIds.forEach(categoryId -> {
-            categoryRepo.findById(categoryId).ifPresent(category -> {
-                int newCount = Math.max(0, category.getBookCount() + delta);
-                category.setBookCount(newCount);
-                categoryRepo.save(category);
-            });
-        });
-    }
 
 }
@@ -0,0 +1,244 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.event.BookSaveCountChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.utils.SuggestionTrie;
+import com.bookhub.api.utils.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead over book titles and author names, ranked by how often the books are saved.
+ * Every word start is a key, so "herb" finds "Frank Herbert" as well as "Herbal Remedies".
+ * Built once the app is up and kept current from BookChangedEvents and save toggles. Those only
+ * cover this node, so the whole index is rebuilt every rebuild-interval like BookSearchIndex.
+ */
+@Service
+@Slf4j
+public class BookSuggestionIndex {
+
+    public static final String TITLE_PREFIX = "title:";
+    public static final String AUTHOR_PREFIX = "author:";
+
+    // Words past this don't get their own key; nobody types the 7th word of a title first
+    private static final int MAX_WORD_STARTS = 6;
+
+    private final MongoTemplate mongoTemplate;
+    private final int topK;
+
+    // Swapped whole by a rebuild; changed in place under this
+    private volatile Contents contents;
+    private volatile boolean ready;
+    // Changes seen while a rebuild streams the collection, replayed onto the new contents. Guarded by this.
+    private List<Consumer<Contents>> duringRebuild;
+
+    private record IndexedBook(String title, String titleKey, String authorKey, long saveCount) {
+    }
+
+    private static final class Author {
+        String name;
+        final Map<String, Long> saveCounts = new HashMap<>();
+
+        long popularity() {
+            return saveCounts.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    public BookSuggestionIndex(MongoTemplate mongoTemplate,
+                               @Value("${search.suggest.top-k:10}") int topK) {
+        this.mongoTemplate = mongoTemplate;
+        this.topK = topK;
+        this.contents = new Contents(topK);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long startedAt = System.currentTimeMillis();
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+
+        Contents fresh = new Contents(topK);
+        try {
+            Query query = new Query();
+            query.fields().include("title", "author", "saveCount");
+            query.cursorBatchSize(1000);
+
+            try (Stream<Book> stream = mongoTemplate.stream(query, Book.class)) {
+                stream.forEach(fresh::put);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+            throw e; // the current contents stay in place
+        }
+
+        synchronized (this) {
+            duringRebuild.forEach(change -> change.accept(fresh));
+            duringRebuild = null;
+            contents = fresh;
+        }
+        ready = true;
+        log.info("Book suggestion index built with {} books and {} authors in {} ms",
+                fresh.books.size(), fresh.authors.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @Scheduled(initialDelayString = "${search.suggest.rebuild-interval:30m}",
+            fixedDelayString = "${search.suggest.rebuild-interval:30m}")
+    public void rebuild() {
+        build();
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            apply(c -> c.remove(event.getBookId()));
+        } else {
+            apply(c -> c.put(event.getBook()));
+        }
+    }
+
+    @EventListener
+    public void onSaveCountChanged(BookSaveCountChangedEvent event) {
+        apply(c -> c.setSaveCount(event.getBookId(), event.getSaveCount()));
+    }
+
+    /**
+     * @return up to limit suggestions for the prefix, most saved first; empty until the index is built
+     */
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        String key = key(prefix);
+        if (!ready || key.isEmpty()) {
+            return List.of();
+        }
+        return contents.trie.suggest(key, Math.min(limit, topK));
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    //helper methods
+    private synchronized void apply(Consumer<Contents> change) {
+        change.accept(contents);
+        if (duringRebuild != null) {
+            duringRebuild.add(change);
+        }
+    }
+
+    // The trie plus what each book put in it, so an update can take the old keys out. Only touched under the outer lock.
+    private static final class Contents {
+        final SuggestionTrie trie;
+        final Map<String, IndexedBook> books = new HashMap<>();
+        final Map<String, Author> authors = new HashMap<>();
+
+        Contents(int topK) {
+            this.trie = new SuggestionTrie(topK);
+        }
+
+        void put(Book book) {
+            remove(book.getId());
+
+            IndexedBook indexed = new IndexedBook(book.getTitle(), key(book.getTitle()), key(book.getAuthor()), book.getSaveCount());
+            books.put(book.getId(), indexed);
+            putTitle(book.getId(), indexed);
+
+            if (!indexed.authorKey().isEmpty()) {
+                Author author = authors.computeIfAbsent(indexed.authorKey(), k -> new Author());
+                author.name = book.getAuthor().strip();
+                author.saveCounts.put(book.getId(), indexed.saveCount());
+                putAuthor(indexed.authorKey(), author);
+            }
+        }
+
+        void setSaveCount(String bookId, long saveCount) {
+            IndexedBook book = books.get(bookId);
+            if (book == null || book.saveCount() == saveCount) {
+                return;
+            }
+            IndexedBook updated = new IndexedBook(book.title(), book.titleKey(), book.authorKey(), saveCount);
+            books.put(bookId, updated);
+            putTitle(bookId, updated);
+
+            Author author = authors.get(book.authorKey());
+            if (author != null) {
+                author.saveCounts.put(bookId, saveCount);
+                putAuthor(book.authorKey(), author);
+            }
+        }
+
+        void remove(String bookId) {
+            IndexedBook old = books.remove(bookId);
+            if (old == null) {
+                return;
+            }
+            for (String key : wordStarts(old.titleKey())) {
+                trie.remove(key, TITLE_PREFIX + bookId);
+            }
+
+            Author author = authors.get(old.authorKey());
+            if (author == null) {
+                return;
+            }
+            author.saveCounts.remove(bookId);
+            if (author.saveCounts.isEmpty()) {
+                authors.remove(old.authorKey());
+                for (String key : wordStarts(old.authorKey())) {
+                    trie.remove(key, AUTHOR_PREFIX + old.authorKey());
+                }
+            } else {
+                putAuthor(old.authorKey(), author);
+            }
+        }
+
+        private void putTitle(String bookId, IndexedBook book) {
+            SuggestionTrie.Suggestion suggestion =
+                    new SuggestionTrie.Suggestion(TITLE_PREFIX + bookId, book.title(), bookId, book.saveCount());
+            for (String key : wordStarts(book.titleKey())) {
+                trie.put(key, suggestion);
+            }
+        }
+
+        private void putAuthor(String authorKey, Author author) {
+            SuggestionTrie.Suggestion suggestion =
+                    new SuggestionTrie.Suggestion(AUTHOR_PREFIX + authorKey, author.name, null, author.popularity());
+            for (String key : wordStarts(authorKey)) {
+                trie.put(key, suggestion);
+            }
+        }
+    }
+
+    private static String key(String text) {
+        return String.join(" ", TextNormalizer.tokenize(text));
+    }
+
+    // "frank herbert" -> ["frank herbert", "herbert"]
+    private static List<String> wordStarts(String key) {
+        List<String> starts = new ArrayList<>();
+        if (key.isEmpty()) {
+            return starts;
+        }
+        starts.add(key);
+        int space = key.indexOf(' ');
+        while (space >= 0 && starts.size() < MAX_WORD_STARTS) {
+            starts.add(key.substring(space + 1));
+            space = key.indexOf(' ', space + 1);
+        }
+        return starts;
+    }
+}
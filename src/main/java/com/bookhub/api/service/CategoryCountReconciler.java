@@ -0,0 +1,89 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Categories;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.CategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repairs Categories.bookCount from the books themselves. The $inc maintenance in CategoryService
+ * can drift (a crash between the book write and the counter write, manual edits in Mongo),
+ * so this periodically recounts with one aggregation and fixes whatever differs.
+ * <p>
+ * A book that is written but whose $inc hasn't landed yet is counted by the aggregation while the
+ * stored count doesn't have it, which looks exactly like drift; correcting it would count the book
+ * twice once the $inc arrives. So a difference is only corrected when the previous run saw the same
+ * one: a write in flight settles within moments, real drift is still there a whole interval later.
+ */
+@Service
+@Slf4j
+public class CategoryCountReconciler {
+
+    private final BookRepository bookRepo;
+    private final CategoryRepository categoryRepo;
+    private final CategorySnapshotHolder snapshotHolder;
+
+    // Sum of |stored - actual| fixed, over all runs and for the last run
+    private final Counter driftCorrected;
+    private final AtomicLong lastRunDrift = new AtomicLong();
+
+    // stored - actual per category as the last run found it, only touched by the scheduler thread
+    private Map<String, Integer> previousDifferences = Map.of();
+
+    public CategoryCountReconciler(BookRepository bookRepo, CategoryRepository categoryRepo,
+                                   CategorySnapshotHolder snapshotHolder, MeterRegistry meterRegistry) {
+        this.bookRepo = bookRepo;
+        this.categoryRepo = categoryRepo;
+        this.snapshotHolder = snapshotHolder;
+        this.driftCorrected = Counter.builder("bookhub.categories.count.drift.corrected")
+                .description("Book count drift corrected by the category reconciliation job")
+                .register(meterRegistry);
+        meterRegistry.gauge("bookhub.categories.count.drift.last", lastRunDrift);
+    }
+
+    @Scheduled(initialDelayString = "${catalog.category-reconcile-delay:1m}",
+            fixedDelayString = "${catalog.category-reconcile-interval:1h}")
+    public void reconcile() {
+        // Read the stored counts before counting, so a concurrent $inc makes the replace below miss instead of being lost
+        List<Categories> categories = categoryRepo.findAll();
+        Map<String, Integer> actualCounts = bookRepo.countBooksPerCategory();
+
+        long drift = 0;
+        Map<String, Integer> differences = new HashMap<>();
+        for (Categories category : categories) {
+            int actual = actualCounts.getOrDefault(category.getId(), 0);
+            int stored = category.getBookCount();
+            if (stored == actual) {
+                continue;
+            }
+            int difference = stored - actual;
+            differences.put(category.getId(), difference);
+            Integer seenLastRun = previousDifferences.get(category.getId());
+            if (seenLastRun == null || seenLastRun != difference) {
+                continue; // first sighting, possibly a write in flight; checked again next run
+            }
+            if (categoryRepo.replaceBookCount(category.getId(), stored, actual)) {
+                differences.remove(category.getId());
+                drift += Math.abs(stored - actual);
+                log.info("Category {} bookCount corrected from {} to {}", category.getName(), stored, actual);
+            }
+            // Otherwise it changed while we were counting; the next run looks again
+        }
+
+        previousDifferences = differences;
+        driftCorrected.increment(drift);
+        lastRunDrift.set(drift);
+        if (drift > 0) {
+            snapshotHolder.reload();
+        }
+    }
+}
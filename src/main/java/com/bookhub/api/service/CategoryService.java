@@ -6,13 +6,19 @@ import com.bookhub.api.exception.DuplicateResourceException;
 import com.bookhub.api.exception.ResourceNotFoundException;
 import com.bookhub.api.exception.ValidationException;
 import com.bookhub.api.model.Categories;
+import com.bookhub.api.model.CategorySnapshot;
 import com.bookhub.api.repository.BookRepository;
 import com.bookhub.api.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -21,6 +27,7 @@ public class CategoryService{
     private final BookRepository bookRepo;
 //    private final UserRepository userRepo;
     private final CategoryRepository categoryRepo;
+    private final CategorySnapshotHolder snapshotHolder;
 
     // CRUD // Create // Read // Update // Delete
 
@@ -35,27 +42,58 @@ public class CategoryService{
                 .build();
 
         Categories savedCategory = categoryRepo.save(category);
+        snapshotHolder.reload();
         return toCategoryDTO(savedCategory);
     }
 
+    // Reads below are served from the in-memory snapshot, no Mongo round trip
     public Page<CategoryDTO> getAllCategories(int page, int size) {
-        Page<Categories> categoriesPage = categoryRepo.findAll(PageRequest.of(page, size));
-        return categoriesPage.map(this::toCategoryDTO);
+        List<CategorySnapshot.Entry> entries = snapshotHolder.get().getEntries();
+        PageRequest pageRequest = PageRequest.of(page, size);
+        int from = (int) Math.min(pageRequest.getOffset(), entries.size());
+        int to = Math.min(from + size, entries.size());
+        List<CategoryDTO> content = entries.subList(from, to).stream().map(this::toCategoryDTO).toList();
+        return new PageImpl<>(content, pageRequest, entries.size());
     }
 
     public CategoryDTO getCategoryByName(String name) {
-        Categories category = categoryRepo.findByName(name.trim())
+        CategorySnapshot.Entry category = snapshotHolder.get().findByName(name.trim())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + name));
         return toCategoryDTO(category);
     }
 
     //used for internal operations
     public CategoryDTO getCategoryById(String id) {
-        Categories category = categoryRepo.findById(id)
+        CategorySnapshot.Entry category = snapshotHolder.get().findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with ID: " + id));
         return toCategoryDTO(category);
     }
 
+    /**
+     * Checks every id is a category, from the snapshot. Misses are re-checked against a fresh read
+     * once, in case the category was just created on another node.
+     */
+    public void validateCategoryIds(List<String> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return;
+        }
+        List<String> missing = findMissingCategoryIds(categoryIds);
+        if (!missing.isEmpty()) {
+            throw new ValidationException("Categories not found: " + missing);
+        }
+    }
+
+    /**
+     * Same check as validateCategoryIds, for callers that report bad ids per item instead of failing.
+     */
+    public List<String> findMissingCategoryIds(Collection<String> categoryIds) {
+        List<String> missing = snapshotHolder.get().missing(categoryIds);
+        if (!missing.isEmpty()) {
+            missing = snapshotHolder.reload().missing(categoryIds);
+        }
+        return missing;
+    }
+
     public CategoryDTO updateCategory(String categoryId, CategoryDTO updateDTO) {
         Categories existingCategory = getCategoryEntityById(categoryId);
 
@@ -66,6 +104,7 @@ public class CategoryService{
         }
 
         Categories updatedCategory = categoryRepo.save(existingCategory);
+        snapshotHolder.reload();
         return toCategoryDTO(updatedCategory);
     }
 
@@ -81,6 +120,24 @@ public class CategoryService{
         }
 
         categoryRepo.delete(category);
+        snapshotHolder.reload();
+    }
+
+    /**
+     * Moves a book's contribution to category counts: -1 for each id it left, +1 for each it joined.
+     * Ids in both cancel out; everything else goes to Mongo as one bulk $inc.
+     */
+    public void adjustBookCounts(List<String> removedFrom, List<String> addedTo) {
+        Map<String, Integer> deltas = new HashMap<>();
+        if (removedFrom != null) {
+            removedFrom.forEach(id -> deltas.merge(id, -1, Integer::sum));
+        }
+        if (addedTo != null) {
+            addedTo.forEach(id -> deltas.merge(id, 1, Integer::sum));
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        categoryRepo.incrementBookCounts(deltas);
+        snapshotHolder.applyCountDeltas(deltas);
     }
 
     //helper methods
@@ -116,6 +173,14 @@ public class CategoryService{
         }
     }
 
+    private CategoryDTO toCategoryDTO(CategorySnapshot.Entry category) {
+        return CategoryDTO.builder()
+                .id(category.id())
+                .name(category.name())
+                .bookCount(category.bookCount())
+                .build();
+    }
+
     private CategoryDTO toCategoryDTO(Categories category) {
         return CategoryDTO.builder()
                 .id(category.getId())
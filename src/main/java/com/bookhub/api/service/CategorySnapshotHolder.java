@@ -0,0 +1,67 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Categories;
+import com.bookhub.api.model.CategorySnapshot;
+import com.bookhub.api.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current CategorySnapshot. CategoryService swaps it after each write on this node,
+ * and the scheduled refresh picks up writes made on other nodes.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CategorySnapshotHolder {
+
+    private final CategoryRepository categoryRepo;
+
+    private final AtomicReference<CategorySnapshot> current = new AtomicReference<>(CategorySnapshot.EMPTY);
+    private volatile boolean loaded;
+
+    public CategorySnapshot get() {
+        if (!loaded) {
+            reload(); // first use; afterwards reads never touch Mongo
+        }
+        return current.get();
+    }
+
+    @Scheduled(initialDelayString = "${catalog.category-refresh-interval:30s}",
+            fixedDelayString = "${catalog.category-refresh-interval:30s}")
+    public void refresh() {
+        reload();
+    }
+
+    /**
+     * Replaces the snapshot with a fresh read of the categories collection. The read is installed only if
+     * no other reload or count delta landed while it ran (it may predate that change); otherwise it's redone.
+     */
+    public CategorySnapshot reload() {
+        while (true) {
+            CategorySnapshot before = current.get();
+            List<Categories> categories = categoryRepo.findAll();
+            CategorySnapshot fresh = CategorySnapshot.of(before.getVersion() + 1, categories);
+            if (current.compareAndSet(before, fresh)) {
+                loaded = true;
+                log.debug("Category snapshot v{} loaded with {} categories", fresh.getVersion(), fresh.getEntries().size());
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * Applies count changes already written to Mongo, without reading the collection back.
+     */
+    public void applyCountDeltas(Map<String, Integer> deltas) {
+        if (!deltas.isEmpty()) {
+            current.updateAndGet(snapshot -> snapshot.withCountDeltas(deltas));
+        }
+    }
+}
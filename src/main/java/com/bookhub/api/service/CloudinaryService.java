@@ -25,7 +25,19 @@ public class CloudinaryService {
     public String uploadFile(MultipartFile file, ResourceType resourceType) throws IOException {
         // Generate a better public ID with folder structure
         String publicId = generatePublicId(file.getOriginalFilename(), resourceType);
+        return upload(file.getBytes(), publicId, resourceType, file.getOriginalFilename());
+    }
+
+    /**
+     * Uploads under a fixed name (no timestamp), so uploading the same key again replaces the
+     * earlier asset instead of adding a copy. Used by the bulk import, which may redo a batch after a crash.
+     */
+    public String uploadFile(byte[] content, String key, ResourceType resourceType) throws IOException {
+        String publicId = folderFor(resourceType) + "/" + key.replaceAll("[^a-zA-Z0-9-_]", "_").toLowerCase();
+        return upload(content, publicId, resourceType, key);
+    }
 
+    private String upload(byte[] content, String publicId, ResourceType resourceType, String name) throws IOException {
         Map<String, Object> uploadOptions = new HashMap<>();
         uploadOptions.put("public_id", publicId);
         uploadOptions.put("overwrite", true);
@@ -45,13 +57,13 @@ public class CloudinaryService {
         }
 
         try {
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(content, uploadOptions);
             String secureUrl = uploadResult.get("secure_url").toString();
-            log.info("File uploaded successfully: {} -> {}", file.getOriginalFilename(), secureUrl);
+            log.info("File uploaded successfully: {} -> {}", name, secureUrl);
             return secureUrl;
 
         } catch (Exception e) {
-            log.error("Cloudinary upload failed for file: {}", file.getOriginalFilename(), e);
+            log.error("Cloudinary upload failed for file: {}", name, e);
             throw new IOException("Cloudinary upload failed: " + e.getMessage(), e);
         }
     }
@@ -88,15 +100,19 @@ public class CloudinaryService {
                 .toLowerCase();
 
         // Organized folder structure
+        return String.format("%s/%s_%s", folderFor(type), baseName, timestamp);
+    }
+
+    private String folderFor(ResourceType type) {
         switch (type) {
             case IMAGE:
-                return String.format("book-covers/%s_%s", baseName, timestamp);
+                return "book-covers";
             case EBOOK:
-                return String.format("ebooks/%s_%s", baseName, timestamp);
+                return "ebooks";
             case DOCUMENT:
-                return String.format("documents/%s_%s", baseName, timestamp);
+                return "documents";
             default:
-                return String.format("uploads/%s_%s", baseName, timestamp);
+                return "uploads";
         }
     }
 
@@ -0,0 +1,38 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.exception.UnauthorizedActionException;
+import com.bookhub.api.model.User;
+import com.bookhub.api.model.UserPrincipal;
+import com.bookhub.api.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single place services get the authenticated user from.
+ * JwtAuthenticationFilter already put the User in the principal, so this normally costs no query.
+ */
+@Service
+@RequiredArgsConstructor
+public class CurrentUserService {
+
+    private final UserRepository userRepo;
+
+    public User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails userDetails)) {
+            throw new UnauthorizedActionException("No authenticated user");
+        }
+
+        if (userDetails instanceof UserPrincipal principal && principal.getUser() != null) {
+            return principal.getUser();
+        }
+
+        // Some other authentication mechanism put a plain UserDetails in the context
+        String userEmail = userDetails.getUsername(); // assuming email is username
+        return userRepo.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found: " + userEmail));
+    }
+}
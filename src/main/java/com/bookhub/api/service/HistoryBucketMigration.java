@@ -0,0 +1,107 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.BucketedHistoryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves reading_history into history_buckets after history.store is switched to bucketed, one user
+ * at a time while the app keeps serving. Each run takes a batch of users in userId order. Each user's
+ * documents are copied into buckets, with titles and covers refreshed from the catalog, and then deleted.
+ * A crash between the copy and the delete just redoes that user; importHistory skips books already in buckets.
+ * Users that fail are retried by BackgroundMigration before the migration counts as complete.
+ * Until a user is moved, their older history is missing from the list; new opens show up right away.
+ * Every node has to be on the bucketed store first, since nothing else may write reading_history.
+ */
+@Service
+@ConditionalOnProperty(name = "history.store", havingValue = "bucketed")
+@Slf4j
+public class HistoryBucketMigration extends BackgroundMigration<String> {
+
+    private final MongoTemplate mongoTemplate;
+    private final BucketedHistoryStore bucketStore;
+    private final BookRepository bookRepo;
+    private final int batchSize;
+
+    private long migratedEntries; // only touched by the scheduler thread
+
+    public HistoryBucketMigration(MongoTemplate mongoTemplate,
+                                  BucketedHistoryStore bucketStore,
+                                  BookRepository bookRepo,
+                                  @Value("${history.bucket.migration.batch-size:20}") int batchSize) {
+        super("Reading history bucket migration");
+        this.mongoTemplate = mongoTemplate;
+        this.bucketStore = bucketStore;
+        this.bookRepo = bookRepo;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${history.bucket.migration.interval:5s}",
+            fixedDelayString = "${history.bucket.migration.interval:5s}")
+    public void migrateBatch() {
+        runBatch();
+    }
+
+    @Override
+    protected List<String> nextBatch(String lastUserId) {
+        List<String> userIds = new ArrayList<>(batchSize);
+        String after = lastUserId;
+        while (userIds.size() < batchSize) {
+            // Served by user_book_idx; one seek per user, skipping over the rest of their entries
+            Query next = new Query();
+            if (after != null) {
+                next.addCriteria(Criteria.where("userId").gt(after));
+            }
+            next.with(Sort.by("userId"));
+            next.fields().include("userId");
+            ReadingHistory first = mongoTemplate.findOne(next, ReadingHistory.class);
+            if (first == null) {
+                break;
+            }
+            userIds.add(first.getUserId());
+            after = first.getUserId();
+        }
+        return userIds;
+    }
+
+    @Override
+    protected void onComplete() {
+        log.info("Reading history bucket migration finished, {} entries moved", migratedEntries);
+    }
+
+    @Override
+    protected void migrate(String userId) {
+        List<ReadingHistory> history = mongoTemplate.find(
+                Query.query(Criteria.where("userId").is(userId)), ReadingHistory.class);
+
+        // Titles and covers as they are now; a book deleted since keeps its title and loses its cover
+        List<String> bookIds = history.stream().map(ReadingHistory::getBookId).distinct().toList();
+        Map<String, Book> books = bookRepo.findSummariesByIds(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        for (ReadingHistory entry : history) {
+            Book book = books.get(entry.getBookId());
+            entry.setBookTitle(book != null ? book.getTitle() : entry.getBookTitle());
+            entry.setBookCoverImage(book != null ? book.getCoverImageUrl() : null);
+        }
+
+        migratedEntries += bucketStore.importHistory(userId, history);
+        List<String> ids = history.stream().map(ReadingHistory::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("id").in(ids)), ReadingHistory.class);
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.HistoryFanoutTask;
+import com.bookhub.api.repository.HistoryFanoutTaskRepository;
+import com.bookhub.api.repository.ReadingHistoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps the title and cover copied into reading history in step with the catalog. An edit or delete
+ * only records a task per book (history_fanout_tasks); a scheduled run then rewrites that book's
+ * entries with batched updateMany calls, at most max-batches-per-run per interval, so a popular
+ * book doesn't flood Mongo. History reads stay a plain scan of the history store and catch up within
+ * a few intervals.
+ * <p>
+ * Tasks checkpoint after every batch and are leased, so a restart or another node resumes where the
+ * last one stopped. Redoing a batch writes the same values again, and a newer edit restarts the task.
+ * A deleted book keeps its title in history, but its cover is gone from Cloudinary, so it's cleared.
+ * Metrics: bookhub.history.fanout.* (enqueued, batches, completed, failures).
+ */
+@Service
+@Slf4j
+public class HistoryFanoutService {
+
+    private final HistoryFanoutTaskRepository taskRepo;
+    private final ReadingHistoryStore historyStore;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration lease;
+
+    private final Counter enqueued;
+    private final Counter batches;
+    private final Counter completed;
+    private final Counter failures;
+
+    public HistoryFanoutService(HistoryFanoutTaskRepository taskRepo,
+                                ReadingHistoryStore historyStore,
+                                @Value("${history.fanout.batch-size:500}") int batchSize,
+                                @Value("${history.fanout.max-batches-per-run:20}") int maxBatchesPerRun,
+                                @Value("${history.fanout.lease:30s}") Duration lease,
+                                MeterRegistry meterRegistry) {
+        this.taskRepo = taskRepo;
+        this.historyStore = historyStore;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.lease = lease;
+
+        this.enqueued = meterRegistry.counter("bookhub.history.fanout.enqueued");
+        this.batches = meterRegistry.counter("bookhub.history.fanout.batches");
+        this.completed = meterRegistry.counter("bookhub.history.fanout.completed");
+        this.failures = meterRegistry.counter("bookhub.history.fanout.failures");
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.getType()) {
+            case UPDATED -> {
+                Book previous = event.getPrevious();
+                Book book = event.getBook();
+                if (!Objects.equals(previous.getTitle(), book.getTitle())
+                        || !Objects.equals(previous.getCoverImageUrl(), book.getCoverImageUrl())) {
+                    enqueue(book.getId(), book.getTitle(), book.getCoverImageUrl());
+                }
+            }
+            case DELETED -> enqueue(event.getBookId(), event.getPrevious().getTitle(), null);
+            case CREATED -> {
+                // nobody has opened it yet
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${history.fanout.interval:1s}", fixedDelayString = "${history.fanout.interval:1s}")
+    public void runBatches() {
+        int budget = maxBatchesPerRun;
+        while (budget > 0) {
+            Optional<HistoryFanoutTask> claimed = taskRepo.claim(Instant.now(), Instant.now().plus(lease));
+            if (claimed.isEmpty()) {
+                return;
+            }
+            budget = run(claimed.get(), budget);
+        }
+    }
+
+    //helper methods
+    private void enqueue(String bookId, String title, String coverImage) {
+        taskRepo.enqueue(bookId, title, coverImage);
+        enqueued.increment();
+    }
+
+    // Works on the task until it's done, superseded or out of budget; returns the budget left
+    private int run(HistoryFanoutTask task, int budget) {
+        String cursor = task.getCursor();
+        try {
+            while (budget > 0) {
+                String last = historyStore.updateBookFields(task.getId(), cursor, batchSize,
+                        task.getBookTitle(), task.getBookCoverImage());
+                if (last == null) {
+                    taskRepo.complete(task);
+                    completed.increment();
+                    return budget;
+                }
+                batches.increment();
+                budget--;
+                cursor = last;
+                if (!taskRepo.checkpoint(task, cursor, Instant.now().plus(lease))) {
+                    return budget; // edited again meanwhile; the new generation starts over
+                }
+            }
+            taskRepo.release(task); // out of budget, the next run carries on from the cursor
+        } catch (RuntimeException e) {
+            // Stays leased until it expires, so a failing Mongo isn't retried in a tight loop
+            failures.increment();
+            log.warn("History fan-out for book {} failed at {}, will retry: {}", task.getId(), cursor, e.getMessage());
+            return 0;
+        }
+        return budget;
+    }
+}
@@ -0,0 +1,184 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.config.SchedulingConfig;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.Open;
+import com.bookhub.api.repository.ReadingHistoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for "user opened a book". Opens are coalesced per (user, book) in memory,
+ * keeping the latest time, and written every flush-interval as one unordered bulk upsert.
+ * Titles and covers for new entries come from one summaries query per flush, not one per open.
+ * <p>
+ * The buffer is per node and bounded by max-pending. When it's full, the request that would grow it
+ * runs a flush itself, so a slow Mongo slows the writers down instead of growing the heap. If Mongo is
+ * down and the buffer is still full after that, opens are shed instead: a failed batch goes back newest
+ * first only while there is room, and a new key that finds no room is not added.
+ * Opens still buffered when a node dies are lost; a clean shutdown flushes them.
+ * Metrics: bookhub.history.buffer.* (pending, accepted, coalesced, overflow, shed, dropped, flush, flush.failures).
+ */
+@Service
+@Slf4j
+public class HistoryWriteBuffer {
+
+    private record Key(String userId, String bookId) {
+    }
+
+    private final ReadingHistoryStore historyStore;
+    private final BookRepository bookRepo;
+    private final int maxPending;
+
+    private final ConcurrentMap<Key, Instant> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter accepted;
+    private final Counter coalesced;
+    private final Counter overflow;
+    private final Counter shed;
+    private final Counter dropped;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    public HistoryWriteBuffer(ReadingHistoryStore historyStore,
+                              BookRepository bookRepo,
+                              @Value("${history.buffer.max-pending:100000}") int maxPending,
+                              MeterRegistry meterRegistry) {
+        this.historyStore = historyStore;
+        this.bookRepo = bookRepo;
+        this.maxPending = maxPending;
+
+        Gauge.builder("bookhub.history.buffer.pending", pending, Map::size)
+                .description("History opens waiting for the next flush")
+                .register(meterRegistry);
+        this.accepted = meterRegistry.counter("bookhub.history.buffer.accepted");
+        this.coalesced = meterRegistry.counter("bookhub.history.buffer.coalesced");
+        this.overflow = meterRegistry.counter("bookhub.history.buffer.overflow");
+        this.shed = meterRegistry.counter("bookhub.history.buffer.shed");
+        this.dropped = meterRegistry.counter("bookhub.history.buffer.dropped");
+        this.flushFailures = meterRegistry.counter("bookhub.history.buffer.flush.failures");
+        this.flushTimer = meterRegistry.timer("bookhub.history.buffer.flush");
+    }
+
+    public void record(String userId, String bookId, Instant openedAt) {
+        Key key = new Key(userId, bookId);
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            overflow.increment();
+            flush();
+            if (pending.size() >= maxPending) {
+                shed.increment(); // the flush failed and its batch filled the buffer back up
+                return;
+            }
+        }
+        accepted.increment();
+        pending.merge(key, openedAt, (current, next) -> {
+            coalesced.increment();
+            return latest(current, next);
+        });
+    }
+
+    /**
+     * The user's opens still waiting for a flush, by book. Scans the whole buffer, which outside of
+     * a Mongo outage holds about one flush interval of opens.
+     */
+    public Map<String, Instant> pendingOpens(String userId) {
+        Map<String, Instant> opens = new HashMap<>();
+        pending.forEach((key, openedAt) -> {
+            if (key.userId().equals(userId)) {
+                opens.put(key.bookId(), openedAt);
+            }
+        });
+        return opens;
+    }
+
+    @Scheduled(fixedDelayString = "${history.buffer.flush-interval:500ms}", scheduler = SchedulingConfig.BUFFER_FLUSH_SCHEDULER)
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            // remove() per key, so an open recorded meanwhile either makes this batch or stays for the next
+            Map<Key, Instant> batch = new HashMap<>();
+            for (Key key : pending.keySet()) {
+                Instant openedAt = pending.remove(key);
+                if (openedAt != null) {
+                    batch.put(key, openedAt);
+                }
+            }
+            flushTimer.record(() -> write(batch));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} history opens could not be written before shutdown", pending.size());
+        }
+    }
+
+    //helper methods
+    private void write(Map<Key, Instant> batch) {
+        try {
+            List<String> bookIds = batch.keySet().stream().map(Key::bookId).distinct().toList();
+            Map<String, Book> books = bookRepo.findSummariesByIds(bookIds).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+            List<Open> opens = new ArrayList<>(batch.size());
+            batch.forEach((key, openedAt) -> {
+                Book book = books.get(key.bookId());
+                if (book == null) {
+                    dropped.increment(); // unknown or since-deleted book
+                    return;
+                }
+                opens.add(new Open(key.userId(), key.bookId(), book.getTitle(), book.getCoverImageUrl(), openedAt));
+            });
+            historyStore.recordOpens(opens);
+        } catch (RuntimeException e) {
+            // The upserts are idempotent, so putting the batch back and redoing it next time is safe
+            flushFailures.increment();
+            log.warn("Failed to flush {} history opens, will retry: {}", batch.size(), e.getMessage());
+            requeue(batch);
+        }
+    }
+
+    // Newest first, and only while there is room (or the key is already buffered): the oldest opens are shed
+    private void requeue(Map<Key, Instant> batch) {
+        batch.entrySet().stream()
+                .sorted(Map.Entry.<Key, Instant>comparingByValue().reversed())
+                .forEach(entry -> {
+                    if (pending.size() < maxPending || pending.containsKey(entry.getKey())) {
+                        pending.merge(entry.getKey(), entry.getValue(), HistoryWriteBuffer::latest);
+                    } else {
+                        shed.increment();
+                    }
+                });
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,6 +1,12 @@
 package com.bookhub.api.service;
 
+import com.bookhub.api.model.User;
+import com.bookhub.api.model.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -9,36 +15,75 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    private final String SECRET_KEY;
     private final Duration accessTokenExpiration;
     private final Duration refreshTokenExpiration;
 
+    // Built once: decoding the secret and building a parser on every call showed up on every request
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    // token digest -> verified claims, each entry lives until the token's own exp
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
     public JwtService(
             @Value("${jwt.secret}") String secretKey,
             @Value("${jwt.access-token-expiration}") Duration accessTokenExpiration,
-            @Value("${jwt.refresh-token-expiration}") Duration refreshTokenExpiration) {
-        this.SECRET_KEY = secretKey;
+            @Value("${jwt.refresh-token-expiration}") Duration refreshTokenExpiration,
+            @Value("${jwt.verified-cache-size:10000}") long verifiedCacheSize) {
         this.accessTokenExpiration = accessTokenExpiration;
         this.refreshTokenExpiration = refreshTokenExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     // Generate short-lived ACCESS token (1 hour)
     public String generateAccessToken(String username) {
-        return buildToken(username, accessTokenExpiration);
+        return buildToken(username, new HashMap<>(), accessTokenExpiration);
+    }
+
+    // Access token that also carries the user id and role, so the filter can skip the user lookup
+    public String generateAccessToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(VerifiedToken.USER_ID_CLAIM, user.getId());
+        claims.put(VerifiedToken.ROLE_CLAIM, user.getRole().name());
+        return buildToken(user.getEmail(), claims, accessTokenExpiration);
     }
 
     // Generate long-lived REFRESH token (30 days)
     public String generateRefreshToken(String username) {
-        return buildToken(username, refreshTokenExpiration);
+        return buildToken(username, new HashMap<>(), refreshTokenExpiration);
+    }
+
+    // Refresh token that belongs to a rotation family, see RefreshTokenService
+    public String generateRefreshToken(String username, String familyId, String tokenId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(Claims.ID, tokenId);
+        claims.put(VerifiedToken.FAMILY_ID_CLAIM, familyId);
+        return buildToken(username, claims, refreshTokenExpiration);
+    }
+
+    public Duration getRefreshTokenExpiration() {
+        return refreshTokenExpiration;
     }
 
     // Your existing method - keep for backward compatibility or update calls to use generateAccessToken
@@ -46,60 +91,100 @@ public class JwtService {
         return generateAccessToken(username); // Default to access token
     }
 
-    private String buildToken(String username, Duration expiration) {
+    private String buildToken(String username, Map<String, Object> claims, Duration expiration) {
         Instant now = Instant.now();
 
         return Jwts.builder()
-                .claims(new HashMap<>())
+                .claims(claims)
                 .subject(username)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plus(expiration)))
-                .signWith(getKey(), Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
-    // ✅ Your existing methods stay exactly the same - they work for both token types!
-    private SecretKey getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Parses and verifies the token once and returns its claims.
+     * Repeat calls with the same token are answered from the cache until the token expires.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                claims
+        );
+
+        verifiedTokens.put(digest, verified);
+        return verified;
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        VerifiedToken verified = verify(token);
+        return verified.getSubject().equals(userDetails.getUsername()) && !verified.isExpired();
     }
 
     // ✅ This method works for both access and refresh tokens!
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
+            return !verify(token).isExpired();
         } catch (Exception e) {
             return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(verify(token).getClaims());
+    }
+
+    //helper methods
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parser()
-                .verifyWith(getKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claimsResolver.apply(claims);
-    }
-}
\ No newline at end of file
+    private static class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.getExpiresAt() == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
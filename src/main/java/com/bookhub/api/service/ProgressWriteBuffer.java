@@ -0,0 +1,189 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.config.SchedulingConfig;
+import com.bookhub.api.model.ReadingProgress;
+import com.bookhub.api.repository.ReadingProgressRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces reading progress per (user, book). E-readers report every few seconds, so only the
+ * newest position (by the device's clientUpdatedAt) is kept and written each flush-interval,
+ * all keys in one bulk of conditional upserts. Reads check here first, so a user always sees
+ * their latest position even before it's written.
+ * <p>
+ * Bounded like HistoryWriteBuffer: past max-pending keys the writer flushes first, and a failed
+ * batch goes back newest first only while there is room. A new key that still finds the buffer full
+ * is written straight to Mongo by its request, so while Mongo is down that request fails instead of
+ * the position being silently lost. A clean shutdown flushes; a crash loses at most one interval of positions.
+ * Metrics: bookhub.progress.buffer.* (pending, accepted, coalesced, stale, overflow, direct, shed, flush, flush.failures).
+ */
+@Service
+@Slf4j
+public class ProgressWriteBuffer {
+
+    private record Key(String userId, String bookId) {
+    }
+
+    private final ReadingProgressRepository progressRepo;
+    private final int maxPending;
+
+    private final ConcurrentMap<Key, ReadingProgress> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter accepted;
+    private final Counter coalesced;
+    private final Counter stale;
+    private final Counter overflow;
+    private final Counter direct;
+    private final Counter shed;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    public ProgressWriteBuffer(ReadingProgressRepository progressRepo,
+                               @Value("${progress.buffer.max-pending:100000}") int maxPending,
+                               MeterRegistry meterRegistry) {
+        this.progressRepo = progressRepo;
+        this.maxPending = maxPending;
+
+        Gauge.builder("bookhub.progress.buffer.pending", pending, Map::size)
+                .description("Reading positions waiting for the next flush")
+                .register(meterRegistry);
+        this.accepted = meterRegistry.counter("bookhub.progress.buffer.accepted");
+        this.coalesced = meterRegistry.counter("bookhub.progress.buffer.coalesced");
+        this.stale = meterRegistry.counter("bookhub.progress.buffer.stale");
+        this.overflow = meterRegistry.counter("bookhub.progress.buffer.overflow");
+        this.direct = meterRegistry.counter("bookhub.progress.buffer.direct");
+        this.shed = meterRegistry.counter("bookhub.progress.buffer.shed");
+        this.flushFailures = meterRegistry.counter("bookhub.progress.buffer.flush.failures");
+        this.flushTimer = meterRegistry.timer("bookhub.progress.buffer.flush");
+    }
+
+    /**
+     * @return the position this node now holds for the user and book: the offered one,
+     * or one already buffered with a newer clientUpdatedAt
+     */
+    public ReadingProgress offer(ReadingProgress progress) {
+        Key key = new Key(progress.getUserId(), progress.getBookId());
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            overflow.increment();
+            flush();
+            if (pending.size() >= maxPending) {
+                return writeThrough(progress); // the flush failed and its batch filled the buffer back up
+            }
+        }
+        accepted.increment();
+        return pending.merge(key, progress, (current, next) -> {
+            coalesced.increment();
+            return newer(current, next);
+        });
+    }
+
+    public Optional<ReadingProgress> peek(String userId, String bookId) {
+        return Optional.ofNullable(pending.get(new Key(userId, bookId)));
+    }
+
+    /**
+     * The buffered position for the user and book if it's the same age as the given time or newer,
+     * which a direct write of a position from that time would lose to.
+     */
+    public Optional<ReadingProgress> peekNotOlderThan(String userId, String bookId, Instant clientUpdatedAt) {
+        return peek(userId, bookId).filter(buffered -> !buffered.getClientUpdatedAt().isBefore(clientUpdatedAt));
+    }
+
+    /**
+     * Drops the buffered position for the user and book if it's older than the given time. Only for
+     * callers that have already written a newer one to Mongo: until then the buffered one may be all there is.
+     */
+    public void discardOlderThan(String userId, String bookId, Instant clientUpdatedAt) {
+        pending.computeIfPresent(new Key(userId, bookId),
+                (key, buffered) -> buffered.getClientUpdatedAt().isBefore(clientUpdatedAt) ? null : buffered);
+    }
+
+    @Scheduled(fixedDelayString = "${progress.buffer.flush-interval:1s}", scheduler = SchedulingConfig.BUFFER_FLUSH_SCHEDULER)
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<ReadingProgress> batch = new ArrayList<>(pending.size());
+            for (Key key : pending.keySet()) {
+                ReadingProgress progress = pending.remove(key);
+                if (progress != null) {
+                    batch.add(progress);
+                }
+            }
+            flushTimer.record(() -> write(batch));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} reading positions could not be written before shutdown", pending.size());
+        }
+    }
+
+    //helper methods
+    private void write(List<ReadingProgress> batch) {
+        try {
+            Set<Integer> rejected = progressRepo.upsertAllIfNewer(batch);
+            // Another node or device already stored something newer; nothing to do
+            stale.increment(rejected.size());
+        } catch (RuntimeException e) {
+            // The upserts are conditional on clientUpdatedAt, so redoing them next time is safe
+            flushFailures.increment();
+            log.warn("Failed to flush {} reading positions, will retry: {}", batch.size(), e.getMessage());
+            requeue(batch);
+        }
+    }
+
+    // Newest first, and only while there is room (or the key is already buffered): the oldest positions are shed
+    private void requeue(List<ReadingProgress> batch) {
+        batch.stream()
+                .sorted(Comparator.comparing(ReadingProgress::getClientUpdatedAt).reversed())
+                .forEach(progress -> {
+                    Key key = new Key(progress.getUserId(), progress.getBookId());
+                    if (pending.size() < maxPending || pending.containsKey(key)) {
+                        pending.merge(key, progress, ProgressWriteBuffer::newer);
+                    } else {
+                        shed.increment();
+                    }
+                });
+    }
+
+    private ReadingProgress writeThrough(ReadingProgress progress) {
+        direct.increment();
+        if (progressRepo.upsertAllIfNewer(List.of(progress)).isEmpty()) {
+            return progress;
+        }
+        stale.increment();
+        return progressRepo.findByUserIdAndBookId(progress.getUserId(), progress.getBookId()).orElse(progress);
+    }
+
+    private static ReadingProgress newer(ReadingProgress a, ReadingProgress b) {
+        return b.getClientUpdatedAt().isAfter(a.getClientUpdatedAt()) ? b : a;
+    }
+}
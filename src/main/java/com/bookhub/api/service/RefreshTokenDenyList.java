@@ -0,0 +1,97 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.RevokedRefreshToken;
+import com.bookhub.api.repository.RevokedRefreshTokenRepository;
+import com.bookhub.api.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this refresh token revoked?" without a database read in the common case.
+ * A Bloom filter of revoked token ids is kept per node; only ids the filter might
+ * contain are confirmed against the revoked_refresh_tokens collection.
+ */
+@Service
+@Slf4j
+public class RefreshTokenDenyList {
+
+    // Revocations written by other nodes right around the last poll may carry a slightly older timestamp
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final RevokedRefreshTokenRepository revokedRepo;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+
+    private final AtomicReference<BloomFilter> filter;
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public RefreshTokenDenyList(
+            RevokedRefreshTokenRepository revokedRepo,
+            @Value("${refresh-token.deny-list.expected-entries:1000000}") long expectedEntries,
+            @Value("${refresh-token.deny-list.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedRepo = revokedRepo;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new AtomicReference<>(new BloomFilter(expectedEntries, falsePositiveRate));
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (!filter.get().mightContain(tokenId)) {
+            return false;
+        }
+        // Bloom positive: could be a false positive, ask the exact set
+        return revokedRepo.existsById(tokenId);
+    }
+
+    public void revoke(String tokenId, String familyId, Instant expiresAt) {
+        revokedRepo.save(RevokedRefreshToken.builder()
+                .id(tokenId)
+                .familyId(familyId)
+                .revokedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build());
+        filter.get().add(tokenId);
+    }
+
+    /**
+     * Full rebuild at startup and periodically afterwards, which also drops ids of tokens that have expired.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${refresh-token.deny-list.rebuild-interval:6h}",
+            initialDelayString = "${refresh-token.deny-list.rebuild-interval:6h}")
+    public void rebuild() {
+        Instant startedAt = Instant.now();
+        BloomFilter rebuilt = new BloomFilter(expectedEntries, falsePositiveRate);
+        long count;
+        try (Stream<RevokedRefreshToken> revoked = revokedRepo.streamActive(startedAt)) {
+            count = revoked.peek(token -> rebuilt.add(token.getId())).count();
+        }
+        filter.set(rebuilt);
+        lastSync = startedAt;
+        // Anything revoked while we were streaming is picked up by the next incremental sync
+        log.info("Refresh token deny list rebuilt with {} entries", count);
+    }
+
+    /**
+     * Picks up revocations made by other nodes since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${refresh-token.deny-list.sync-interval:10s}",
+            initialDelayString = "${refresh-token.deny-list.sync-interval:10s}")
+    public void syncIncrementally() {
+        Instant startedAt = Instant.now();
+        BloomFilter current = filter.get();
+        try (Stream<RevokedRefreshToken> revoked = revokedRepo.streamRevokedSince(lastSync.minus(SYNC_OVERLAP))) {
+            revoked.forEach(token -> current.add(token.getId()));
+        }
+        lastSync = startedAt;
+    }
+}
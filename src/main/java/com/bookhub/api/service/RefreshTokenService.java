@@ -0,0 +1,127 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.exception.InvalidTokenException;
+import com.bookhub.api.model.RefreshTokenFamily;
+import com.bookhub.api.model.User;
+import com.bookhub.api.model.VerifiedToken;
+import com.bookhub.api.repository.RefreshTokenFamilyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Issues, rotates and revokes refresh tokens.
+ * Each login starts a token family; each refresh swaps the family's current token
+ * for a new one. Replaying an already-rotated token revokes the whole family.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private final JwtService jwtService;
+    private final RefreshTokenFamilyRepository familyRepo;
+    private final RefreshTokenDenyList denyList;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * The result of a successful rotation: who the token belonged to and the token replacing it.
+     */
+    public record Rotation(String userEmail, String refreshToken) {
+    }
+
+    public String issue(User user) {
+        Instant now = Instant.now();
+        String tokenId = UUID.randomUUID().toString();
+
+        RefreshTokenFamily family = familyRepo.save(RefreshTokenFamily.builder()
+                .userId(user.getId())
+                .currentTokenId(tokenId)
+                .createdAt(now)
+                .rotatedAt(now)
+                .expiresAt(now.plus(jwtService.getRefreshTokenExpiration()))
+                .build());
+
+        return jwtService.generateRefreshToken(user.getEmail(), family.getId(), tokenId);
+    }
+
+    public Rotation rotate(String refreshToken) {
+        VerifiedToken token = verify(refreshToken);
+        String tokenId = token.getTokenId();
+        String familyId = token.getFamilyId();
+
+        // Common case is a filter miss, so no read happens here
+        if (denyList.isRevoked(tokenId)) {
+            log.warn("Revoked refresh token replayed for family {}, revoking the family", familyId);
+            revokeFamily(familyId);
+            throw new InvalidTokenException("Refresh token has been revoked");
+        }
+
+        Instant now = Instant.now();
+        String newTokenId = UUID.randomUUID().toString();
+
+        // Atomic compare-and-swap: only the current token of a live family may rotate
+        Query current = new Query(Criteria.where("_id").is(familyId)
+                .and("currentTokenId").is(tokenId)
+                .and("revoked").is(false));
+        Update rotate = new Update()
+                .set("currentTokenId", newTokenId)
+                .set("rotatedAt", now)
+                .set("expiresAt", now.plus(jwtService.getRefreshTokenExpiration()));
+        RefreshTokenFamily family = mongoTemplate.findAndModify(
+                current, rotate, FindAndModifyOptions.options().returnNew(true), RefreshTokenFamily.class);
+
+        if (family == null) {
+            // Either the family was revoked or this token was already rotated away, i.e. reused
+            log.warn("Stale refresh token presented for family {}, revoking the family", familyId);
+            revokeFamily(familyId);
+            throw new InvalidTokenException("Refresh token has been revoked");
+        }
+
+        denyList.revoke(tokenId, familyId, token.getExpiresAt());
+        return new Rotation(token.getSubject(),
+                jwtService.generateRefreshToken(token.getSubject(), familyId, newTokenId));
+    }
+
+    /**
+     * Ends the session the given refresh token belongs to (logout).
+     */
+    public void revoke(String refreshToken) {
+        revokeFamily(verify(refreshToken).getFamilyId());
+    }
+
+    //helper methods
+    private VerifiedToken verify(String refreshToken) {
+        VerifiedToken token;
+        try {
+            token = jwtService.verify(refreshToken);
+        } catch (Exception e) {
+            throw new InvalidTokenException("Invalid or expired refresh token");
+        }
+
+        if (token.getTokenId() == null || token.getFamilyId() == null) {
+            // Issued before rotation existed; these can't be tracked, so ask the user to sign in again
+            throw new InvalidTokenException("Refresh token is no longer supported, please log in again");
+        }
+        return token;
+    }
+
+    private void revokeFamily(String familyId) {
+        RefreshTokenFamily family = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(familyId).and("revoked").is(false)),
+                new Update().set("revoked", true),
+                RefreshTokenFamily.class);
+
+        if (family != null && family.getCurrentTokenId() != null) {
+            denyList.revoke(family.getCurrentTokenId(), familyId, family.getExpiresAt());
+        }
+    }
+}
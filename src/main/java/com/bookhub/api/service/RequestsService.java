@@ -3,26 +3,23 @@ package com.bookhub.api.service;
 import com.bookhub.api.dto.BookContributionRequestDTO;
 import com.bookhub.api.dto.BookLookupRequestDTO;
 import com.bookhub.api.dto.BookRequestResponseDTO;
+import com.bookhub.api.event.BookChangedEvent;
 import com.bookhub.api.exception.ResourceNotFoundException;
 import com.bookhub.api.model.*;
 import com.bookhub.api.repository.BookRepository;
-import com.bookhub.api.repository.CategoryRepository;
 import com.bookhub.api.repository.RequestRepository;
-import com.bookhub.api.repository.UserRepository;
 import com.bookhub.api.utils.StoreResources;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,12 +30,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RequestsService {
 
-    private final UserRepository userRepo;
+    private final CurrentUserService currentUserService;
     private final RequestRepository requestRepository;
     private final StoreResources storeResources;
     private final CloudinaryService cloudinaryService;
     private final BookRepository bookRepository;
-    private final CategoryRepository categoryRepo;
+    private final CategoryService categoryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Creates a new book contribution request from a user, including file uploads.
@@ -131,7 +129,8 @@ public class RequestsService {
                 // For CONTRIBUTION, we automatically create the book.
                 Book newBook = createBookFromContribution(request);
                 Book savedBook = bookRepository.save(newBook);
-                updateCategoryCounts(savedBook.getCategoryIds(), 1); // Reusing your BookService logic
+                categoryService.adjustBookCounts(null, savedBook.getCategoryIds());
+                eventPublisher.publishEvent(BookChangedEvent.created(savedBook));
                 request.setCreatedBookId(savedBook.getId());
                 break;
         }
@@ -142,7 +141,7 @@ public class RequestsService {
     }
 
     private Book createBookFromContribution(Request request) {
-        validateCategories(request.getCategoryIds()); // A helper method to ensure categories exist
+        categoryService.validateCategoryIds(request.getCategoryIds()); // Ensures the categories exist
 
         // Convert the List<String> of URLs into the List<Resource> your Book model expects
         List<Resource> bookResources = request.getBookFileUrls().stream()
@@ -162,6 +161,7 @@ public class RequestsService {
                 .coverImageUrl(request.getCoverImageUrl())
                 .bookFileUrl(bookResources)
                 .addedBy(request.getUserId()) // The user who submitted it
+                .addedOn(LocalDateTime.now())
                 .build();
     }
 
@@ -203,14 +203,7 @@ public class RequestsService {
      *helper methods
      */
     private User getCurrentUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getPrincipal();
-
-        String userEmail = userDetails.getUsername(); // assuming email is username
-        return userRepo.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserService.getCurrentUser();
     }
 
     private BookRequestResponseDTO toResponseDTO(Request request) {
@@ -247,31 +240,6 @@ public class RequestsService {
                 .collect(Collectors.toList());
     }
 
-    private void validateCategories(List<String> categoryIds) {
-        List<String> existingCategories = categoryRepo.findAllById(categoryIds)
-                .stream()
-                .map(Categories::getId)
-                .toList();
-
-        if (existingCategories.size() != categoryIds.size()) {
-            List<String> missing = new ArrayList<>(categoryIds);
-            missing.removeAll(existingCategories);
-            throw new RuntimeException("Categories not found: " + missing);
-        }
-    }
-
-    private void updateCategoryCounts(List<String> categoryIds, int delta) {
-        if (categoryIds == null || categoryIds.isEmpty()) return;
-
-        categoryIds.forEach(categoryId -> {
-            categoryRepo.findById(categoryId).ifPresent(category -> {
-                int newCount = Math.max(0, category.getBookCount() + delta);
-                category.setBookCount(newCount);
-                categoryRepo.save(category);
-            });
-        });
-    }
-
     private String extractFileNameFromUrl(String url) {
         if (url == null || url.isEmpty()) {
             return "unknown_file";
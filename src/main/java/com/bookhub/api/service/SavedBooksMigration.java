@@ -0,0 +1,119 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.SavedBookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves the legacy books.savedBy arrays into saved_books while the app keeps serving.
+ * Each run handles a batch of books in _id order and reads every array in bounded slices,
+ * so no single step loads a huge array. Copies are upserts, so a crash just redoes the last slice.
+ * Books that fail are retried by BackgroundMigration before the migration counts as complete.
+ * Until it's done, toggles move the one save they touch themselves (see BookService.toggleSaveForBook).
+ * <p>
+ * Legacy saves carry no time. They get the book's creation time (from its ObjectId), the earliest
+ * they could have happened, so they sort below every save made since and keep a stable order.
+ */
+@Service
+@Slf4j
+public class SavedBooksMigration extends BackgroundMigration<Object> {
+
+    private static final String BOOKS = "books";
+    private static final int SLICE_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final BookRepository bookRepo;
+    private final SavedBookRepository savedBookRepo;
+    private final int batchSize;
+
+    private long migratedSaves; // only touched by the scheduler thread
+
+    public SavedBooksMigration(MongoTemplate mongoTemplate,
+                               BookRepository bookRepo,
+                               SavedBookRepository savedBookRepo,
+                               @Value("${saved-books.migration.batch-size:100}") int batchSize) {
+        super("savedBy migration");
+        this.mongoTemplate = mongoTemplate;
+        this.bookRepo = bookRepo;
+        this.savedBookRepo = savedBookRepo;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${saved-books.migration.interval:5s}",
+            fixedDelayString = "${saved-books.migration.interval:5s}")
+    public void drainBatch() {
+        runBatch();
+    }
+
+    @Override
+    protected List<Object> nextBatch(Object lastBookId) {
+        Query query = Query.query(Criteria.where("savedBy.0").exists(true));
+        if (lastBookId != null) {
+            query.addCriteria(Criteria.where("_id").gt(lastBookId));
+        }
+        query.with(Sort.by("_id")).limit(batchSize);
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Document.class, BOOKS).stream().map(book -> book.get("_id")).toList();
+    }
+
+    @Override
+    protected void onComplete() {
+        log.info("savedBy migration finished, {} saves moved to saved_books", migratedSaves);
+    }
+
+    @Override
+    protected void migrate(Object bookId) {
+        Query byId = Query.query(Criteria.where("_id").is(bookId));
+        Query firstSlice = Query.of(byId);
+        firstSlice.fields().slice("savedBy", SLICE_SIZE);
+        Instant savedAt = bookId instanceof ObjectId objectId ? objectId.getDate().toInstant() : Instant.EPOCH;
+
+        while (true) {
+            Document book = mongoTemplate.findOne(firstSlice, Document.class, BOOKS);
+            List<String> userIds = book == null ? null : book.getList("savedBy", String.class);
+            if (userIds == null || userIds.isEmpty()) {
+                break;
+            }
+            // Copy first, then pull. A user missing from the pull's pre-image had a toggle take the save over
+            // since the slice was read; if that toggle unsaved before our copy landed, the copy recreated it.
+            Map<String, String> created = savedBookRepo.insertAllIfAbsent(bookId.toString(), userIds, savedAt);
+            Set<String> pulled = bookRepo.pullLegacySaves(bookId.toString(), userIds);
+            List<String> recreated = created.entrySet().stream()
+                    .filter(entry -> !pulled.contains(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toList();
+            if (!recreated.isEmpty()) {
+                savedBookRepo.deleteAllById(recreated);
+            }
+            migratedSaves += pulled.size();
+        }
+
+        // Recount from saved_books (legacy books may never have had saveCount); toggles $inc from here on.
+        // The stored count is read before counting and the $set only lands if it still holds it, so a toggle's
+        // $inc in between makes it miss instead of being overwritten. BookSaveCountReconciler fixes the miss,
+        // and a toggle whose saved_books write is counted here but whose $inc lands after the $set.
+        Query countOnly = Query.of(byId);
+        countOnly.fields().include("saveCount");
+        Document stored = mongoTemplate.findOne(countOnly, Document.class, BOOKS);
+        Object storedCount = stored == null ? null : stored.get("saveCount");
+        long saveCount = savedBookRepo.countByBookId(bookId.toString());
+        mongoTemplate.updateFirst(Query.of(byId).addCriteria(Criteria.where("saveCount").is(storedCount)),
+                new Update().set("saveCount", saveCount), BOOKS);
+        mongoTemplate.updateFirst(byId, new Update().unset("savedBy"), BOOKS);
+    }
+}
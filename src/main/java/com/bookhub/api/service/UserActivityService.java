@@ -1,111 +1,220 @@
 package com.bookhub.api.service;
 
+import com.bookhub.api.dto.BookSummaryDTO;
+import com.bookhub.api.dto.ContinueReadingDTO;
+import com.bookhub.api.dto.CursorPage;
 import com.bookhub.api.dto.ReadingHistoryResponseDTO;
+import com.bookhub.api.dto.ProgressSyncEntryDTO;
+import com.bookhub.api.dto.ProgressSyncResultDTO;
 import com.bookhub.api.dto.ReadingProgressDTO;
+import com.bookhub.api.model.Book;
 import com.bookhub.api.model.ReadingProgress;
 import com.bookhub.api.repository.BookRepository;
-import com.bookhub.api.repository.ReadingHistoryRepository;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.ContinueReading;
+import com.bookhub.api.repository.ReadingHistoryStore;
 import com.bookhub.api.repository.ReadingProgressRepository;
-import com.bookhub.api.repository.UserRepository;
+import com.bookhub.api.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import com.bookhub.api.exception.ResourceNotFoundException;
-import com.bookhub.api.model.Book;
 import com.bookhub.api.model.ReadingHistory;
 import com.bookhub.api.model.User;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class UserActivityService {
 
-    private final ReadingHistoryRepository readingHistoryRepository;
-    private final BookRepository bookRepository;
-    private final UserRepository userRepo;
+    private static final int MAX_SHELF_SIZE = 50;
+
+    private final ReadingHistoryStore readingHistoryStore;
+    private final HistoryWriteBuffer historyWriteBuffer;
+    private final CurrentUserService currentUserService;
     private final ReadingProgressRepository readingProgressRepository;
+    private final ProgressWriteBuffer progressWriteBuffer;
+    private final BookRepository bookRepository;
 
     /**
-     * Logs that a user has opened a book.
-     * Updates the lastOpenedAt timestamp if a record exists, otherwise creates a new one.
+     * Logs that a user has opened a book. Only goes into the HistoryWriteBuffer; the history entry
+     * is created or its lastOpenedAt moved forward on the buffer's next flush.
      */
     public void logHistory(String bookId) {
         User currentUser = getCurrentUser();
-
-        // Find the book to get its details for denormalization
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with ID: " + bookId));
-
-        // Use the repository method to find the specific history record
-        Optional<ReadingHistory> existingHistoryOpt =
-                readingHistoryRepository.findByUserIdAndBookId(currentUser.getId(), bookId);
-
-        ReadingHistory historyRecord;
-        if (existingHistoryOpt.isPresent()) {
-            // --- UPDATE ---
-            // If the record exists, just update the timestamp
-            historyRecord = existingHistoryOpt.get();
-            historyRecord.setLastOpenedAt(Instant.now());
-        } else {
-            // --- INSERT ---
-            // If it's the first time, create a new record with all the details
-            historyRecord = ReadingHistory.builder()
-                    .userId(currentUser.getId())
-                    .bookId(book.getId())
-                    .bookTitle(book.getTitle()) // Denormalizing title
-                    .bookCoverImage(book.getCoverImageUrl()) // Denormalizing cover image
-                    .lastOpenedAt(Instant.now())
-                    .build();
-        }
-
-        readingHistoryRepository.save(historyRecord);
+        historyWriteBuffer.record(currentUser.getId(), bookId, Instant.now());
     }
+
     public Page<ReadingHistoryResponseDTO> getHistory(Pageable pageable) {
         User currentUser = getCurrentUser();
 
-        Page<ReadingHistory> historyPage = readingHistoryRepository
-                .findByUserIdOrderByLastOpenedAtDesc(currentUser.getId(), pageable);
+        Page<ReadingHistory> historyPage = readingHistoryStore
+                .findHistory(currentUser.getId(), pageable);
 
         // Use the .map() function on the Page object to convert each item
         return historyPage.map(this::toResponseDTO);
     }
 
+    public Slice<ReadingHistoryResponseDTO> getHistorySlice(Pageable pageable) {
+        User currentUser = getCurrentUser();
+        return readingHistoryStore
+                .findHistorySlice(currentUser.getId(), pageable)
+                .map(this::toResponseDTO);
+    }
+
+    /**
+     * Same list as getHistory, paged by cursor: a range scan on user_recent_idx, no skip and no count.
+     */
+    public CursorPage<ReadingHistoryResponseDTO> getHistory(String cursor, int size) {
+        User currentUser = getCurrentUser();
+        int limit = CursorPage.clampSize(size);
+
+        List<ReadingHistory> history = readingHistoryStore
+                .findHistoryAfter(currentUser.getId(), KeysetCursor.decode(cursor), limit + 1);
+        return CursorPage.of(history, limit,
+                entry -> KeysetCursor.of(entry.getLastOpenedAt(), entry.getId()), this::toResponseDTO);
+    }
+
+    /**
+     * The home screen's "continue reading" shelf: recent books with their summary and the user's
+     * position, from one aggregation instead of a history call plus a book and progress call per item.
+     * Opens and positions still in this node's write buffers win over the stored ones if they're newer,
+     * so a book just opened is on the shelf right away.
+     */
+    public List<ContinueReadingDTO> getContinueReading(int size) {
+        User currentUser = getCurrentUser();
+        int limit = Math.max(1, Math.min(size, MAX_SHELF_SIZE));
+
+        List<ContinueReading> shelf = readingHistoryStore.findContinueReading(currentUser.getId(), limit);
+        Map<String, Instant> pendingOpens = historyWriteBuffer.pendingOpens(currentUser.getId());
+        if (!pendingOpens.isEmpty()) {
+            shelf = withPendingOpens(currentUser.getId(), shelf, pendingOpens, limit);
+        }
+
+        return shelf.stream()
+                .map(entry -> {
+                    ReadingProgress progress = progressWriteBuffer.peek(currentUser.getId(), entry.bookId())
+                            .filter(buffered -> entry.progress() == null || isNewer(buffered, entry.progress()))
+                            .orElse(entry.progress());
+                    Book book = entry.book();
+                    return ContinueReadingDTO.builder()
+                            .book(BookSummaryDTO.builder()
+                                    .id(book.getId())
+                                    .title(book.getTitle())
+                                    .author(book.getAuthor())
+                                    .coverImage(book.getCoverImageUrl())
+                                    .categoryIds(book.getCategoryIds())
+                                    .build())
+                            .progress(progress != null ? toResponseDTO(progress) : null)
+                            .lastOpenedAt(entry.lastOpenedAt())
+                            .build();
+                })
+                .toList();
+    }
+
     /// progress methods
     /**
-     * Saves or updates the reading progress for a user and a specific book.
+     * Saves the reading progress for a user and a specific book. The position goes into the
+     * ProgressWriteBuffer and is written on its next flush, only if no newer one (by device time) is stored.
+     *
+     * @return the position now current: this one, or a newer one this node already had
      */
     public ReadingProgressDTO saveOrUpdateProgress(String bookId, ReadingProgressDTO progressDTO) {
         User currentUser = getCurrentUser();
+        Instant now = Instant.now();
+
+        ReadingProgress progress = ReadingProgress.builder()
+                .userId(currentUser.getId())
+                .bookId(bookId)
+                .percent(progressDTO.getPercent())
+                .format(progressDTO.getFormat())
+                .locator(progressDTO.getLocator())
+                .clientUpdatedAt(clientTime(progressDTO.getUpdatedAt(), now))
+                .updatedAt(now)
+                .build();
+
+        return toResponseDTO(progressWriteBuffer.offer(progress));
+    }
+
+    /**
+     * Applies positions an offline client replays for many books, in one unordered bulk of the
+     * same conditional upserts the buffer uses. Results are in request order; entries that lost to
+     * a newer position (stored, buffered on this node, or later in the same batch) come back STALE
+     * with that position.
+     */
+    public List<ProgressSyncResultDTO> batchSyncProgress(List<ProgressSyncEntryDTO> entries) {
+        User currentUser = getCurrentUser();
+        Instant now = Instant.now();
+
+        List<ReadingProgress> offered = new ArrayList<>(entries.size());
+        Map<String, ReadingProgress> newestByBook = new LinkedHashMap<>();
+        for (ProgressSyncEntryDTO entry : entries) {
+            ReadingProgress progress = ReadingProgress.builder()
+                    .userId(currentUser.getId())
+                    .bookId(entry.getBookId())
+                    .percent(entry.getPercent())
+                    .format(entry.getFormat())
+                    .locator(entry.getLocator())
+                    .clientUpdatedAt(clientTime(entry.getUpdatedAt(), now))
+                    .updatedAt(now)
+                    .build();
+            offered.add(progress);
+            // Same book twice in one batch: only the newest is written, the rest lose to it
+            newestByBook.merge(entry.getBookId(), progress,
+                    (a, b) -> b.getClientUpdatedAt().isAfter(a.getClientUpdatedAt()) ? b : a);
+        }
 
-        // Find existing progress record or create a new one.
-        ReadingProgress progress = readingProgressRepository
-                .findByUserIdAndBookId(currentUser.getId(), bookId)
-                .orElse(ReadingProgress.builder() // If not found, create a new instance
-                        .userId(currentUser.getId())
-                        .bookId(bookId)
-                        .build());
-
-        // Update the record with the new data from the DTO
-        progress.setPercent(progressDTO.getPercent());
-        progress.setFormat(progressDTO.getFormat());
-        progress.setLocator(progressDTO.getLocator());
-
-        ReadingProgress savedProgress = readingProgressRepository.save(progress);
-        return toResponseDTO(savedProgress);
+        // Positions that beat the batch's, by book; a null value means stale but nothing to show
+        Map<String, ReadingProgress> newerOnServer = new HashMap<>();
+        List<ReadingProgress> toWrite = new ArrayList<>(newestByBook.size());
+        newestByBook.forEach((bookId, progress) -> progressWriteBuffer
+                .peekNotOlderThan(currentUser.getId(), bookId, progress.getClientUpdatedAt())
+                .ifPresentOrElse(buffered -> newerOnServer.put(bookId, buffered), () -> toWrite.add(progress)));
+
+        Set<Integer> rejected = toWrite.isEmpty() ? Set.of() : readingProgressRepository.upsertAllIfNewer(toWrite);
+        // Only now that Mongo holds something newer are the older buffered positions redundant; if the
+        // write threw, they are still buffered and get flushed
+        toWrite.forEach(progress -> progressWriteBuffer
+                .discardOlderThan(currentUser.getId(), progress.getBookId(), progress.getClientUpdatedAt()));
+        if (!rejected.isEmpty()) {
+            List<String> staleBookIds = rejected.stream().map(i -> toWrite.get(i).getBookId()).toList();
+            staleBookIds.forEach(bookId -> newerOnServer.put(bookId, null));
+            readingProgressRepository.findByUserIdAndBookIdIn(currentUser.getId(), staleBookIds)
+                    .forEach(stored -> newerOnServer.put(stored.getBookId(), stored));
+        }
+
+        List<ProgressSyncResultDTO> results = new ArrayList<>(entries.size());
+        for (ReadingProgress progress : offered) {
+            String bookId = progress.getBookId();
+            if (!newerOnServer.containsKey(bookId) && newestByBook.get(bookId) == progress) {
+                results.add(new ProgressSyncResultDTO(bookId, ProgressSyncResultDTO.Status.APPLIED, null));
+            } else {
+                ReadingProgress current = newerOnServer.containsKey(bookId)
+                        ? newerOnServer.get(bookId)
+                        : newestByBook.get(bookId);
+                results.add(new ProgressSyncResultDTO(bookId, ProgressSyncResultDTO.Status.STALE,
+                        current != null ? toResponseDTO(current) : null));
+            }
+        }
+        return results;
     }
 
     /**
-     * Retrieves the reading progress for a user and a specific book.
+     * Retrieves the reading progress for a user and a specific book, including a position not flushed yet.
      */
     public ReadingProgressDTO getProgress(String bookId) {
         User currentUser = getCurrentUser();
 
-        return readingProgressRepository
-                .findByUserIdAndBookId(currentUser.getId(), bookId)
+        return progressWriteBuffer.peek(currentUser.getId(), bookId)
+                .or(() -> readingProgressRepository.findByUserIdAndBookId(currentUser.getId(), bookId))
                 .map(this::toResponseDTO) // If found, map it to a DTO
                 .orElseThrow(() -> new ResourceNotFoundException( // If not, throw an exception
                         "No progress found for user on book " + bookId));
@@ -114,13 +223,46 @@ public class UserActivityService {
     // --- Helper Methods ---
 
     private User getCurrentUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getPrincipal();
-        String userEmail = userDetails.getUsername();
-        return userRepo.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userEmail));
+        return currentUserService.getCurrentUser();
+    }
+
+    // Moves books opened since the last flush up the shelf; ones not on it yet need their summary and position
+    private List<ContinueReading> withPendingOpens(String userId, List<ContinueReading> stored,
+                                                   Map<String, Instant> pendingOpens, int limit) {
+        Map<String, ContinueReading> byBook = new LinkedHashMap<>();
+        stored.forEach(entry -> byBook.put(entry.bookId(), entry));
+
+        List<String> missing = pendingOpens.keySet().stream().filter(bookId -> !byBook.containsKey(bookId)).toList();
+        if (!missing.isEmpty()) {
+            Map<String, ReadingProgress> progress = new HashMap<>();
+            readingProgressRepository.findByUserIdAndBookIdIn(userId, missing)
+                    .forEach(position -> progress.put(position.getBookId(), position));
+            // A book deleted since it was opened has no summary and stays off the shelf
+            bookRepository.findSummariesByIds(missing).forEach(book -> byBook.put(book.getId(),
+                    new ContinueReading(null, book.getId(), pendingOpens.get(book.getId()), book, progress.get(book.getId()))));
+        }
+
+        return byBook.values().stream()
+                .map(entry -> {
+                    Instant openedAt = pendingOpens.get(entry.bookId());
+                    return openedAt != null && openedAt.isAfter(entry.lastOpenedAt())
+                            ? new ContinueReading(entry.id(), entry.bookId(), openedAt, entry.book(), entry.progress())
+                            : entry;
+                })
+                .sorted(Comparator.comparing(ContinueReading::lastOpenedAt).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    // Stored documents from before clientUpdatedAt existed only have the server time
+    private static boolean isNewer(ReadingProgress a, ReadingProgress b) {
+        Instant bTime = b.getClientUpdatedAt() != null ? b.getClientUpdatedAt() : b.getUpdatedAt();
+        return bTime == null || a.getClientUpdatedAt().isAfter(bTime);
+    }
+
+    // Older clients don't send a time; a device clock ahead of ours is clamped so it can't pin progress
+    private static Instant clientTime(Instant sent, Instant now) {
+        return sent == null || sent.isAfter(now) ? now : sent;
     }
 
     // --- Helper Method for Mapping ---
@@ -138,7 +280,7 @@ public class UserActivityService {
         dto.setFormat(progress.getFormat());
         dto.setLocator(progress.getLocator());
         dto.setPercent(progress.getPercent());
-        dto.setUpdatedAt(progress.getUpdatedAt());
+        dto.setUpdatedAt(progress.getClientUpdatedAt() != null ? progress.getClientUpdatedAt() : progress.getUpdatedAt());
         return dto;
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package com.bookhub.api.service;
 
 import com.bookhub.api.dto.*;
-import com.bookhub.api.exception.InvalidTokenException;
 import com.bookhub.api.exception.ResourceNotFoundException;
 import com.bookhub.api.exception.UserAlreadyExistsException;
 import com.bookhub.api.model.Role;
@@ -9,12 +8,7 @@ import com.bookhub.api.model.User;
 import com.bookhub.api.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -24,38 +18,37 @@ public class UserService {
     @Autowired
     private JwtService jwtService;
 
-    @Autowired
-    AuthenticationManager authManager;
-
     @Autowired
     private UserRepository userRepo;
 
-    private final PasswordEncoder encoder;
+    // BCrypt runs on a bounded pool, see PasswordHashingService
+    private final PasswordHashingService passwordHasher;
 
-//    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+    private final RefreshTokenService refreshTokenService;
 
     public LoginResponseDTO register(RegisterRequestDTO registerRequest) {
 
+        // Check before hashing so a duplicate email doesn't cost a BCrypt round
+        if (userRepo.findByEmail(registerRequest.getEmail()).isPresent()) {
+            throw new UserAlreadyExistsException("User with this email already exists");
+        }
+
         User user = User.builder()
                 .firstName(registerRequest.getFirstName())
                 .lastName(registerRequest.getLastName())
                 .email(registerRequest.getEmail())
-                .password(encoder.encode(registerRequest.getPassword())) // Hash the password
+                .password(passwordHasher.encode(registerRequest.getPassword())) // Hash the password
                 .role(Role.USER) //
                 .build();
 
-        if (userRepo.findByEmail(user.getEmail()).isPresent()) {
-            throw new UserAlreadyExistsException("User with this email already exists");
-        }
-
         try {
             userRepo.save(user);
         } catch (Exception e) {
             throw new RuntimeException("Internal server error: "+ e.getMessage());
         }
 //        return jwtService.generateToken(user.getEmail());
-        String accessToken = jwtService.generateAccessToken(user.getEmail());
-        String refreshToken = jwtService.generateRefreshToken(user.getEmail());
+        String accessToken = jwtService.generateAccessToken(user);
+        String refreshToken = refreshTokenService.issue(user);
 
         UserAccountDTO userAccountDTO = convertToUserAccountDTO(user);
 
@@ -68,57 +61,59 @@ public class UserService {
     }
 
     // This method returns the token or throws an exception if authentication fails
+    // One user lookup and one BCrypt check per login
     public LoginResponseDTO login(LoginRequestDTO loginRequest) {
-        // The authenticate method will throw an exception if credentials are bad
-        Authentication authentication = authManager
-                .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
-
-        if (authentication.isAuthenticated()) {
-            // Get user from database
-            User user = userRepo.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new BadCredentialsException("User not found"));
-
-            if (!encoder.matches(loginRequest.getPassword(), user.getPassword())) {
-                throw new BadCredentialsException("Invalid credentials");
-            }
-
-            // Generate token and convert user to DTO
-            String accessToken = jwtService.generateAccessToken(user.getEmail());
-            String refreshToken = jwtService.generateRefreshToken(user.getEmail());
-
-            UserAccountDTO userAccountDTO = convertToUserAccountDTO(user);
-
-            return LoginResponseDTO.builder()
-                    .accessToken(accessToken)
-                    .refreshToken(refreshToken)
-                    .user(userAccountDTO)
-                    .build();
+        User user = userRepo.findByEmail(loginRequest.getEmail()).orElse(null);
+
+        // Unknown emails are still checked against a dummy hash so both failures take the same time
+        String storedHash = user != null ? user.getPassword() : null;
+        if (!passwordHasher.matches(loginRequest.getPassword(), storedHash)) {
+            throw new BadCredentialsException("Invalid username or password");
         }
-        // This part is technically unreachable if auth fails, as it throws an exception first
-        throw new BadCredentialsException("Invalid username or password");
+
+        // The cost factor was changed since this hash was made, upgrade it while we have the raw password
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            // Only the hash is written, and only if it is still the one we checked: the user object is
+            // stale by the time this runs and a password or role change in between must survive
+            String oldHash = user.getPassword();
+            passwordHasher.rehashAsync(loginRequest.getPassword(),
+                    newHash -> userRepo.replacePassword(user.getId(), oldHash, newHash));
+        }
+
+        // Generate token and convert user to DTO
+        String accessToken = jwtService.generateAccessToken(user);
+        String refreshToken = refreshTokenService.issue(user);
+
+        UserAccountDTO userAccountDTO = convertToUserAccountDTO(user);
+
+        return LoginResponseDTO.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .user(userAccountDTO)
+                .build();
     }
 
     public RefreshTokenResponseDTO refreshToken(String refreshToken) {
-        // Validate the refresh token
-        if (!jwtService.validateToken(refreshToken)) {
-            throw new InvalidTokenException("Invalid or expired refresh token");
-        }
+        // Validates, checks revocation and rotates; a replayed token revokes its whole family
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
 
-        // Extract username and generate new access token
-        String userEmail = jwtService.extractUsername(refreshToken);
-        User user = userRepo.findByEmail(userEmail)
+        User user = userRepo.findByEmail(rotation.userEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        String newAccessToken = jwtService.generateAccessToken(userEmail);
+        String newAccessToken = jwtService.generateAccessToken(user);
         UserAccountDTO userDTO = convertToUserAccountDTO(user);
 
         return RefreshTokenResponseDTO.builder()
                 .accessToken(newAccessToken)
-                .refreshToken(refreshToken) // Return same refresh token
+                .refreshToken(rotation.refreshToken()) // The old refresh token is now revoked
                 .user(userDTO)
                 .build();
     }
 
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+
     private UserAccountDTO convertToUserAccountDTO(User user) {
         UserAccountDTO userAccountDTO = new UserAccountDTO();
         userAccountDTO.setId(user.getId());
@@ -0,0 +1,68 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Answers "does this user still exist with this role?" for stateless access tokens.
+ * Each node re-checks a user at most once per TTL, so a deleted or demoted user
+ * loses access within that window instead of when their access token expires.
+ * <p>
+ * Any save or delete of a User through Spring Data (role change, account removal, whatever admin path
+ * does it) evicts that user here right away; only other nodes wait out the TTL.
+ */
+@Service
+public class UserStatusService extends AbstractMongoEventListener<User> {
+
+    private final LoadingCache<String, Optional<Role>> currentRoles;
+
+    public UserStatusService(
+            UserRepository userRepo,
+            @Value("${jwt.user-status-ttl:1m}") Duration userStatusTtl) {
+        this.currentRoles = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(userStatusTtl)
+                .build(userId -> userRepo.findById(userId).map(User::getRole));
+    }
+
+    public boolean hasRole(String userId, Role role) {
+        return currentRoles.get(userId)
+                .map(current -> current == role)
+                .orElse(false);
+    }
+
+    // Call after changing a user's role or deleting them so this node stops trusting old tokens right away
+    public void evict(String userId) {
+        currentRoles.invalidate(userId);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        evict(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        // The event only has the delete's query; anything other than a delete by id drops the whole cache
+        Object id = event.getSource().get("_id");
+        if (id instanceof ObjectId objectId) {
+            evict(objectId.toHexString());
+        } else if (id instanceof String userId) {
+            evict(userId);
+        } else {
+            currentRoles.invalidateAll();
+        }
+    }
+}
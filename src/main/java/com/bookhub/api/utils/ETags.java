@@ -0,0 +1,93 @@
+package com.bookhub.api.utils;
+
+import com.bookhub.api.dto.CursorPage;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Strong ETags for conditional GETs. Single documents are tagged by id and modification time,
+ * so a 304 can be decided before the document is loaded. Lists are tagged by a digest of the
+ * DTOs' toString (Lombok lists every field), which skips Jackson and the response body on a match.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Marks the response "no-cache, private" (clients store it and revalidate every time), then checks the
+     * request's If-None-Match / If-Modified-Since. Setting it first keeps Spring Security's no-store
+     * default off both the 200 and the 304; without a stored body clients never send the condition.
+     *
+     * @return true if a 304 has been set up and the handler should return null
+     */
+    public static boolean checkNotModified(WebRequest request, String etag) {
+        revalidate(request);
+        return request.checkNotModified(etag);
+    }
+
+    public static boolean checkNotModified(WebRequest request, String etag, long lastModifiedMillis) {
+        revalidate(request);
+        return request.checkNotModified(etag, lastModifiedMillis);
+    }
+
+    /**
+     * Whether the request carries If-None-Match or If-Modified-Since, i.e. a 304 is possible at all.
+     */
+    public static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    public static String forVersion(String id, long lastModifiedMillis) {
+        return "\"" + id + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+    }
+
+    public static String forSlice(Slice<?> slice) {
+        long total = slice instanceof Page<?> page ? page.getTotalElements() : -1;
+        return digest(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), total);
+    }
+
+    public static String forCursorPage(CursorPage<?> page) {
+        return digest(page.getContent(), page.getNextCursor());
+    }
+
+    public static String forList(List<?> items) {
+        return digest(items);
+    }
+
+    //helper methods
+    private static void revalidate(WebRequest request) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+            }
+        }
+    }
+
+    private static String digest(Object... parts) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                sha.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                sha.update((byte) 0);
+            }
+            // 128 bits is plenty to tell two versions of one URL apart
+            return "\"" + HexFormat.of().formatHex(sha.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
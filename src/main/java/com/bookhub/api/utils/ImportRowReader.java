@@ -0,0 +1,172 @@
+package com.bookhub.api.utils;
+
+import com.bookhub.api.dto.BookImportRowDTO;
+import com.bookhub.api.exception.ValidationException;
+import com.bookhub.api.model.ImportJob;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads bulk import rows one at a time, so a large file never sits in memory.
+ * NDJSON has one BookImportRowDTO object per line. CSV has a header row naming the columns
+ * (title and author are required). categoryIds and bookFiles hold several values separated by '|'.
+ * Each record must fit on one line. Blank lines are skipped and are not counted as rows.
+ */
+public class ImportRowReader implements Closeable {
+
+    /**
+     * @param line physical line number in the file, for error messages and stable ids
+     * @param error why the row couldn't be parsed; book is null then
+     */
+    public record Row(long line, BookImportRowDTO book, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final ImportJob.Format format;
+    private final ObjectReader jsonReader; // bound to BookImportRowDTO
+    private Map<String, Integer> csvColumns;
+    private long line;
+
+    public ImportRowReader(BufferedReader reader, ImportJob.Format format, ObjectReader jsonReader) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        this.jsonReader = jsonReader;
+        if (format == ImportJob.Format.CSV) {
+            readCsvHeader();
+        }
+    }
+
+    /**
+     * Reads up to max rows; an empty list means the end of the file.
+     */
+    public List<Row> next(int max) throws IOException {
+        List<Row> rows = new ArrayList<>(max);
+        String text;
+        while (rows.size() < max && (text = nextNonBlankLine()) != null) {
+            rows.add(parse(text));
+        }
+        return rows;
+    }
+
+    /**
+     * Skips up to count rows without parsing them.
+     *
+     * @return how many were skipped
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && nextNonBlankLine() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    //helper methods
+    private String nextNonBlankLine() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (!text.isBlank()) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    private Row parse(String text) {
+        if (format == ImportJob.Format.NDJSON) {
+            try {
+                return new Row(line, jsonReader.readValue(text), null);
+            } catch (JsonProcessingException e) {
+                return new Row(line, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        List<String> values = splitCsv(text);
+        return new Row(line, BookImportRowDTO.builder()
+                .title(csvValue(values, "title"))
+                .author(csvValue(values, "author"))
+                .description(csvValue(values, "description"))
+                .isbn(csvValue(values, "isbn"))
+                .publishedDate(csvValue(values, "publisheddate"))
+                .categoryIds(csvList(values, "categoryids"))
+                .coverImage(csvValue(values, "coverimage"))
+                .bookFiles(csvList(values, "bookfiles"))
+                .build(), null);
+    }
+
+    private void readCsvHeader() throws IOException {
+        String header = nextNonBlankLine();
+        if (header == null) {
+            throw new ValidationException("CSV file is empty");
+        }
+        csvColumns = new HashMap<>();
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            csvColumns.put(names.get(i).trim().toLowerCase(), i);
+        }
+        if (!csvColumns.containsKey("title") || !csvColumns.containsKey("author")) {
+            throw new ValidationException("CSV header must have title and author columns");
+        }
+    }
+
+    private String csvValue(List<String> values, String column) {
+        Integer index = csvColumns.get(column);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private List<String> csvList(List<String> values, String column) {
+        String value = csvValue(values, column);
+        if (value == null) {
+            return null;
+        }
+        return Arrays.stream(value.split("\\|")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    // Comma separated, fields may be double-quoted with "" for a literal quote
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,253 @@
+package com.bookhub.api.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ * Documents are identified by a string key and can carry tags (e.g. category ids) to filter on.
+ * Updates replace a key's document; removed documents are tombstoned and dropped from
+ * the posting lists once enough of them pile up, which frees their slots for new documents.
+ */
+public class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Compact once this share of the indexed documents are tombstones
+    private static final double COMPACTION_RATIO = 0.2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docByKey = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<String[]> tags = new ArrayList<>();
+    private int[] lengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    // Slots no posting list refers to any more, reused before the arrays grow
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private int liveDocs;
+    private int tombstones;
+    private long totalLength;
+
+    public record Hits(long total, List<String> keys) {
+    }
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    /**
+     * Indexes (or re-indexes) a document from already normalized tokens.
+     */
+    public void put(String key, List<String> tokens, Collection<String> docTags) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : tokens) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+
+            String[] tagArray = docTags == null ? new String[0] : docTags.toArray(new String[0]);
+            int doc;
+            if (freeSlots.isEmpty()) {
+                doc = keys.size();
+                keys.add(key);
+                tags.add(tagArray);
+                if (doc == lengths.length) {
+                    lengths = Arrays.copyOf(lengths, doc * 2);
+                }
+            } else {
+                doc = freeSlots.pop();
+                keys.set(doc, key);
+                tags.set(doc, tagArray);
+            }
+            lengths[doc] = tokens.size();
+            docByKey.put(key, doc);
+
+            termFreqs.forEach((term, freq) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, freq));
+
+            liveDocs++;
+            totalLength += tokens.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Document slots allocated so far; stays near size() under churn because compaction frees slots for reuse.
+     */
+    int slotCount() {
+        lock.readLock().lock();
+        try {
+            return keys.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks documents matching any query token by BM25.
+     *
+     * @param anyOfTags when not empty, only documents carrying at least one of these tags are returned
+     */
+    public Hits search(List<String> queryTokens, Collection<String> anyOfTags, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(queryTokens);
+        Set<String> tagFilter = anyOfTags == null ? Collections.emptySet() : Set.copyOf(anyOfTags);
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0 || terms.isEmpty()) {
+                return new Hits(0, List.of());
+            }
+            double avgLength = (double) totalLength / liveDocs;
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // Tombstones still in the list make df a slight overestimate until the next compaction
+                int df = Math.min(list.size, liveDocs);
+                double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (deleted.get(doc) || !hasAnyTag(doc, tagFilter)) {
+                        continue;
+                    }
+                    int tf = list.freqs[i];
+                    double norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    scores.merge(doc, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            return new Hits(scores.size(), topKeys(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //helper methods
+    private void removeLocked(String key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        keys.set(doc, null);
+        tags.set(doc, null);
+        liveDocs--;
+        tombstones++;
+        totalLength -= lengths[doc];
+
+        if (tombstones > COMPACTION_RATIO * (liveDocs + tombstones)) {
+            compactLocked();
+        }
+    }
+
+    // Drops tombstoned documents from every posting list so searches stop paying for them, then frees their slots
+    private void compactLocked() {
+        postings.values().removeIf(list -> {
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                if (!deleted.get(list.docs[i])) {
+                    list.docs[kept] = list.docs[i];
+                    list.freqs[kept] = list.freqs[i];
+                    kept++;
+                }
+            }
+            list.size = kept;
+            return kept == 0;
+        });
+        for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+            freeSlots.push(doc);
+        }
+        deleted.clear();
+        tombstones = 0;
+    }
+
+    private boolean hasAnyTag(int doc, Set<String> tagFilter) {
+        if (tagFilter.isEmpty()) {
+            return true;
+        }
+        for (String tag : tags.get(doc)) {
+            if (tagFilter.contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> topKeys(Map<Integer, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        if (wanted <= 0 || offset >= scores.size()) {
+            return List.of();
+        }
+
+        // Min-heap of the best `wanted` documents; ties go to the lower slot
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(wanted,
+                (a, b) -> a.getValue().equals(b.getValue())
+                        ? Integer.compare(b.getKey(), a.getKey())
+                        : Double.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+
+        List<String> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(keys.get(heap.poll().getKey()));
+        }
+        Collections.reverse(ranked);
+        return ranked.subList(Math.min(offset, ranked.size()), ranked.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookhub.api.utils;
+
+import com.bookhub.api.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list sorted by (sortValue, _id): the sort value and id of the last item a client saw.
+ * Clients get it as an opaque url-safe string and hand it back unchanged for the next page.
+ *
+ * @param sortValue ISO form of the sort key, null when the item had none (or the list is sorted by _id only)
+ */
+public record KeysetCursor(String sortValue, String id) {
+
+    private static final String VERSION = "1";
+    private static final char SEPARATOR = '|';
+
+    public static KeysetCursor of(Object sortValue, String id) {
+        return new KeysetCursor(sortValue == null ? null : sortValue.toString(), id);
+    }
+
+    /**
+     * @return null for a missing or blank cursor, i.e. the first page
+     */
+    public static KeysetCursor decode(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[1].isEmpty() ? null : parts[1], parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = VERSION + SEPARATOR + (sortValue == null ? "" : sortValue) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime sortValueAsLocalDateTime() {
+        try {
+            return sortValue == null ? null : LocalDateTime.parse(sortValue);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+
+    public Instant sortValueAsInstant() {
+        try {
+            return sortValue == null ? null : Instant.parse(sortValue);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+}
@@ -33,7 +33,7 @@ public class StoreResources {
         try {
             validateFile(file);
             ResourceType type = determineResourceType(file.getOriginalFilename());
-            checkFileSize(file, type);
+            checkFileSize(file.getSize(), type);
 
             return cloudinaryService.uploadFile(file, type);
         } catch (IOException e) {
@@ -42,6 +42,15 @@ public class StoreResources {
         }
     }
 
+    /**
+     * Type and size checks for a file that doesn't come in as a MultipartFile (e.g. a bulk import archive entry).
+     */
+    public ResourceType checkFile(String filename, long size) {
+        ResourceType type = determineResourceType(filename);
+        checkFileSize(size, type);
+        return type;
+    }
+
     public ResourceType determineResourceType(String filename) {
         if (filename == null) {
             throw new ValidationException("Filename cannot be null");
@@ -60,6 +69,17 @@ public class StoreResources {
         }
     }
 
+    /**
+     * The size cap checkFile applies, for callers that have to enforce it while reading.
+     */
+    public long maxFileSize(ResourceType type) {
+        return switch (type) {
+            case IMAGE -> MAX_IMAGE_SIZE;
+            case EBOOK -> MAX_EBOOK_SIZE;
+            case DOCUMENT -> MAX_DOCUMENT_SIZE;
+        };
+    }
+
     private void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new ValidationException("File cannot be empty");
@@ -70,9 +90,7 @@ public class StoreResources {
         }
     }
 
-    private void checkFileSize(MultipartFile file, ResourceType type) {
-        long size = file.getSize();
-
+    private void checkFileSize(long size, ResourceType type) {
         switch (type) {
             case IMAGE:
                 if (size > MAX_IMAGE_SIZE) {
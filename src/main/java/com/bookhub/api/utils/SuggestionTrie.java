@@ -0,0 +1,250 @@
+package com.bookhub.api.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie for typeahead. Every node caches the k most popular suggestions below it,
+ * so a lookup is a walk down the prefix and a copy of that node's list, whatever the trie size.
+ * Writes re-derive the cached lists along the one path they touch.
+ */
+public class SuggestionTrie {
+
+    public record Suggestion(String id, String text, String bookId, long popularity) {
+    }
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private static final Comparator<Suggestion> BY_POPULARITY = Comparator
+            .comparingLong(Suggestion::popularity).reversed()
+            .thenComparing(Suggestion::text);
+
+    private final int k;
+    private final Node root = new Node("");
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Node {
+        String label;                       // edge label from the parent
+        Node[] children = NO_CHILDREN;      // sorted by first char of label
+        Map<String, Suggestion> terminal;   // suggestions whose key ends exactly here
+        Suggestion[] top = NO_SUGGESTIONS;  // best k in this subtree
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    public SuggestionTrie(int k) {
+        this.k = k;
+    }
+
+    public void put(String key, Suggestion suggestion) {
+        lock.writeLock().lock();
+        try {
+            List<Node> path = pathFor(key, true);
+            Node node = path.get(path.size() - 1);
+            if (node.terminal == null) {
+                node.terminal = new HashMap<>(2);
+            }
+            node.terminal.put(suggestion.id(), suggestion);
+            refreshTop(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key, String id) {
+        lock.writeLock().lock();
+        try {
+            List<Node> path = pathFor(key, false);
+            if (path == null) {
+                return;
+            }
+            Node node = path.get(path.size() - 1);
+            if (node.terminal == null || node.terminal.remove(id) == null) {
+                return;
+            }
+            if (node.terminal.isEmpty()) {
+                node.terminal = null;
+            }
+            prune(path);
+            refreshTop(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < prefix.length()) {
+                Node child = childFor(node, prefix.charAt(i));
+                if (child == null) {
+                    return List.of();
+                }
+                int matched = commonPrefix(child.label, prefix, i);
+                if (matched < child.label.length() && i + matched < prefix.length()) {
+                    return List.of(); // diverges in the middle of the edge
+                }
+                i += matched;
+                node = child;
+            }
+            Suggestion[] top = node.top;
+            return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Nodes below the root, for tests
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            List<Node> stack = new ArrayList<>(List.of(root.children));
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                count++;
+                stack.addAll(List.of(node.children));
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //helper methods
+
+    // Nodes from the root to the node for key; splits edges when creating
+    private List<Node> pathFor(String key, boolean create) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) {
+                if (!create) {
+                    return null;
+                }
+                Node leaf = new Node(key.substring(i));
+                insertChild(node, leaf);
+                path.add(leaf);
+                return path;
+            }
+
+            Node child = node.children[index];
+            int matched = commonPrefix(child.label, key, i);
+            if (matched < child.label.length()) {
+                if (!create) {
+                    return null;
+                }
+                // Split the edge: node -> middle -> child
+                Node middle = new Node(child.label.substring(0, matched));
+                child.label = child.label.substring(matched);
+                middle.children = new Node[]{child};
+                middle.top = child.top;
+                node.children[index] = middle;
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            i += matched;
+        }
+        return path;
+    }
+
+    // Unlinks nodes left with nothing under them, then undoes the split that made the last one a branch
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.terminal != null || node.children.length > 0) {
+                break;
+            }
+            Node parent = path.get(i - 1);
+            parent.children = Arrays.stream(parent.children).filter(c -> c != node).toArray(Node[]::new);
+            path.remove(i);
+        }
+
+        // A node with no suggestions of its own and a single child is just a split edge: merge it with the child
+        Node last = path.get(path.size() - 1);
+        if (last != root && last.terminal == null && last.children.length == 1) {
+            Node child = last.children[0];
+            last.label = last.label + child.label;
+            last.children = child.children;
+            last.terminal = child.terminal;
+            last.top = child.top;
+        }
+    }
+
+    private void refreshTop(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Map<String, Suggestion> candidates = new HashMap<>();
+            if (node.terminal != null) {
+                node.terminal.values().forEach(s -> candidates.merge(s.id(), s, SuggestionTrie::morePopular));
+            }
+            for (Node child : node.children) {
+                for (Suggestion s : child.top) {
+                    candidates.merge(s.id(), s, SuggestionTrie::morePopular);
+                }
+            }
+            node.top = candidates.values().stream()
+                    .sorted(BY_POPULARITY)
+                    .limit(k)
+                    .toArray(Suggestion[]::new);
+        }
+    }
+
+    private static Suggestion morePopular(Suggestion a, Suggestion b) {
+        return a.popularity() >= b.popularity() ? a : b;
+    }
+
+    private static Node childFor(Node node, char c) {
+        int index = childIndex(node, c);
+        return index < 0 ? null : node.children[index];
+    }
+
+    private static int childIndex(Node node, char c) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = node.children[mid].label.charAt(0);
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static void insertChild(Node node, Node child) {
+        int insertAt = -(childIndex(node, child.label.charAt(0)) + 1);
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, insertAt);
+        children[insertAt] = child;
+        System.arraycopy(node.children, insertAt, children, insertAt + 1, node.children.length - insertAt);
+        node.children = children;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
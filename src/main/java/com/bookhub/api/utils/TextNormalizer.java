@@ -0,0 +1,61 @@
+package com.bookhub.api.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text to the form used for search: lowercase, no accents or Arabic diacritics,
+ * and one spelling for the Arabic letters people type interchangeably.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        // NFKD splits é into e + accent, أ into ا + hamza, and expands Arabic presentation forms
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+
+        StringBuilder folded = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            switch (c) {
+                case 'ـ' -> { } // tatweel is only there for stretching words
+                case 'ٱ', 'ٲ', 'ٳ' -> folded.append('ا'); // alef variants -> ا
+                case 'ى' -> folded.append('ي'); // ى -> ي
+                case 'ة' -> folded.append('ه'); // ة -> ه
+                default -> {
+                    if (c >= '٠' && c <= '٩') {
+                        folded.append((char) ('0' + (c - '٠'))); // Arabic-Indic digits
+                    } else if (c >= '۰' && c <= '۹') {
+                        folded.append((char) ('0' + (c - '۰'))); // Extended (Persian) digits
+                    } else {
+                        folded.append(c);
+                    }
+                }
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bookhub.api.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. Tokens refill continuously at refillTokens per refillPeriod
+ * up to capacity; tryConsume never blocks and never hands out more than was refilled.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<State> state;
+
+    private volatile long lastAccessNanos;
+
+    private record State(double tokens, long refilledAtNanos) {
+    }
+
+    public TokenBucket(long capacity, long refillTokens, Duration refillPeriod) {
+        this(capacity, refillTokens, refillPeriod, System::nanoTime);
+    }
+
+    public TokenBucket(long capacity, long refillTokens, Duration refillPeriod, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) refillTokens / refillPeriod.toNanos();
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        this.state = new AtomicReference<>(new State(capacity, now));
+        this.lastAccessNanos = now;
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be available
+     */
+    public long tryConsume() {
+        long now = nanoClock.getAsLong();
+        lastAccessNanos = now;
+
+        while (true) {
+            State current = state.get();
+            double elapsed = Math.max(0, now - current.refilledAtNanos());
+            double available = Math.min(capacity, current.tokens() + elapsed * tokensPerNano);
+
+            if (available < 1) {
+                if (tokensPerNano == 0) {
+                    return Long.MAX_VALUE;
+                }
+                return (long) Math.ceil((1 - available) / tokensPerNano);
+            }
+
+            State next = new State(available - 1, Math.max(now, current.refilledAtNanos()));
+            if (state.compareAndSet(current, next)) {
+                return 0;
+            }
+            // Another thread won the race; re-read and try again
+        }
+    }
+
+    public boolean isIdleSince(long nanos) {
+        return lastAccessNanos < nanos;
+    }
+}
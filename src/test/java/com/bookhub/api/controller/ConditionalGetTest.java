@@ -0,0 +1,102 @@
+package com.bookhub.api.controller;
+
+import com.bookhub.api.config.RateLimitProperties;
+import com.bookhub.api.config.SecurityConfig;
+import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.dto.CategoryDTO;
+import com.bookhub.api.service.BookExportService;
+import com.bookhub.api.service.BookService;
+import com.bookhub.api.service.CategoryService;
+import com.bookhub.api.service.JwtService;
+import com.bookhub.api.service.MyUserDetailsService;
+import com.bookhub.api.service.UserStatusService;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Through the real security filter chain, whose default Cache-Control: no-store would stop clients revalidating
+@WebMvcTest({CategoryController.class, BookController.class})
+@Import({SecurityConfig.class, RateLimitProperties.class})
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CategoryService categoryService;
+    @MockitoBean
+    private BookService bookService;
+    @MockitoBean
+    private BookExportService bookExportService;
+    @MockitoBean
+    private JwtService jwtService;
+    @MockitoBean
+    private MyUserDetailsService userDetailsService;
+    @MockitoBean
+    private UserStatusService userStatusService;
+
+    @Test
+    @WithMockUser
+    void secondRequestWithTheETagGets304AndTheResponseIsRevalidatable() throws Exception {
+        CategoryDTO fiction = new CategoryDTO();
+        fiction.setName("Fiction");
+        when(categoryService.getAllCategories(0, 20))
+                .thenReturn(new PageImpl<>(List.of(fiction), PageRequest.of(0, 20), 1));
+
+        MvcResult first = mockMvc.perform(get("/api/v1/categories"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/categories").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    @WithMockUser
+    void plainBookGetLoadsTheBookBeforeAskingForItsVersion() throws Exception {
+        when(bookService.getBookById("b1")).thenReturn(BookResponseDTO.builder().id("b1").build());
+        when(bookService.getBookLastModified("b1")).thenReturn(1_000L);
+
+        mockMvc.perform(get("/api/v1/books/b1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+
+        InOrder order = inOrder(bookService);
+        order.verify(bookService).getBookById("b1");
+        order.verify(bookService).getBookLastModified("b1");
+    }
+
+    @Test
+    @WithMockUser
+    void revalidatedBookGetAnswers304WithoutLoadingTheBook() throws Exception {
+        when(bookService.getBookLastModified("b1")).thenReturn(1_000L);
+
+        mockMvc.perform(get("/api/v1/books/b1").header(HttpHeaders.IF_NONE_MATCH, "\"b1-3e8\""))
+                .andExpect(status().isNotModified());
+
+        verify(bookService, never()).getBookById("b1");
+    }
+}
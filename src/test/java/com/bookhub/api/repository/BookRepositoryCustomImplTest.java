@@ -0,0 +1,50 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.BookSort;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BookRepositoryCustomImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BookRepositoryCustomImpl repository = new BookRepositoryCustomImpl(mongoTemplate);
+
+    @Test
+    void titleIsACaseInsensitiveLiteralSubstringNotATextSearch() {
+        repository.search(null, " c++ (2nd ed.) ", List.of("c1"), null, PageRequest.of(0, 20));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Book.class));
+        Document filter = query.getValue().getQueryObject();
+
+        Pattern title = (Pattern) filter.get("title");
+        assertEquals(Pattern.quote("c++ (2nd ed.)"), title.pattern());
+        assertEquals(Pattern.CASE_INSENSITIVE, title.flags() & Pattern.CASE_INSENSITIVE);
+        assertFalse(filter.containsKey("$text"));
+        // Without free text the default order is newest first, walked off category_recent_idx
+        assertEquals(new Document("addedOn", -1).append("_id", -1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void relevanceWithoutFreeTextIsServedNewestFirst() {
+        repository.search(null, null, null, BookSort.RELEVANCE, PageRequest.of(0, 20));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Book.class));
+        assertEquals(new Document("addedOn", -1).append("_id", -1), query.getValue().getSortObject());
+    }
+}
@@ -0,0 +1,133 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.HistoryBucket;
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.utils.KeysetCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BucketedHistoryStoreTest {
+
+    private final Instant t0 = Instant.parse("2026-10-01T10:00:00Z");
+
+    @Test
+    void mergesOverlappingBucketsOfAMonthAndStopsAtTheFirstOlderOne() {
+        // Two October buckets overlap in time; once September shows up older, nothing past it is fetched
+        HistoryBucket octoberSpill = bucket(entry("b4", 40), entry("b2", 20));
+        HistoryBucket october = bucket(entry("b3", 30), entry("b1", 10));
+        HistoryBucket september = bucket(entry("b0", -100));
+        HistoryBucket august = bucket(entry("b9", -200));
+        TrackingIterator buckets = new TrackingIterator(List.of(octoberSpill, october, september, august));
+
+        List<ReadingHistory> page = BucketedHistoryStore.newestFirst(buckets, "u1", null, 3);
+
+        assertEquals(List.of("b4", "b3", "b2"), bookIds(page));
+        assertFalse(buckets.readLast);
+    }
+
+    @Test
+    void pagesFromTheCursorWithoutRepeatsAcrossPages() {
+        List<HistoryBucket> buckets = List.of(
+                bucket(entry("b5", 50), entry("b4", 40), entry("b3", 40)),
+                bucket(entry("b2", 20), entry("b1", 10)));
+
+        List<ReadingHistory> first = BucketedHistoryStore.newestFirst(buckets.iterator(), "u1", null, 2);
+        ReadingHistory last = first.get(first.size() - 1);
+        List<ReadingHistory> second = BucketedHistoryStore.newestFirst(buckets.iterator(), "u1",
+                KeysetCursor.of(last.getLastOpenedAt(), last.getId()), 2);
+
+        assertEquals(List.of("b5", "b4"), bookIds(first));
+        assertEquals(List.of("b3", "b2"), bookIds(second));
+    }
+
+    @Test
+    void aBookInTwoBucketsIsListedOnceAtItsLatestOpen() {
+        List<HistoryBucket> buckets = List.of(
+                bucket(entry("b1", 30)),
+                bucket(entry("b2", 20), entry("b1", 10)));
+
+        List<ReadingHistory> page = BucketedHistoryStore.newestFirst(buckets.iterator(), "u1", null, 10);
+
+        assertEquals(List.of("b1", "b2"), bookIds(page));
+        assertEquals(t0.plusSeconds(30), page.get(0).getLastOpenedAt());
+    }
+
+    @Test
+    void delayedOpenOlderThanTheStoredOneIsNotWritten() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, HistoryBucket.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(HistoryBucket.class))).thenReturn(List.of(bucket(entry("b1", 30))));
+        BucketedHistoryStore store = new BucketedHistoryStore(mongoTemplate, 200);
+
+        store.recordOpens(List.of(new ReadingHistoryRepositoryCustom.Open("u1", "b1", "Title b1", null, t0.plusSeconds(10))));
+        verify(bulk, never()).execute();
+
+        store.recordOpens(List.of(
+                new ReadingHistoryRepositoryCustom.Open("u1", "b1", "Title b1", null, t0.plusSeconds(10)),
+                new ReadingHistoryRepositoryCustom.Open("u1", "b2", "Title b2", null, t0.plusSeconds(10))));
+        verify(bulk, times(1)).upsert(any(Query.class), any(Update.class));
+        verify(bulk).execute();
+    }
+
+    private HistoryBucket.Entry entry(String bookId, int seconds) {
+        return new HistoryBucket.Entry(bookId, "Title " + bookId, null, t0.plusSeconds(seconds));
+    }
+
+    private static HistoryBucket bucket(HistoryBucket.Entry... entries) {
+        List<HistoryBucket.Entry> opens = new ArrayList<>(List.of(entries));
+        return HistoryBucket.builder()
+                .userId("u1")
+                .opens(opens)
+                .count(opens.size())
+                .firstOpenedAt(opens.stream().map(HistoryBucket.Entry::getOpenedAt).min(Instant::compareTo).orElseThrow())
+                .lastOpenedAt(opens.stream().map(HistoryBucket.Entry::getOpenedAt).max(Instant::compareTo).orElseThrow())
+                .build();
+    }
+
+    private static List<String> bookIds(List<ReadingHistory> history) {
+        return history.stream().map(ReadingHistory::getBookId).toList();
+    }
+
+    // Records whether the merge pulled the last bucket, i.e. whether it would have been fetched
+    private static class TrackingIterator implements Iterator<HistoryBucket> {
+        private final Iterator<HistoryBucket> delegate;
+        private final HistoryBucket lastBucket;
+        boolean readLast;
+
+        TrackingIterator(List<HistoryBucket> buckets) {
+            this.delegate = buckets.iterator();
+            this.lastBucket = buckets.get(buckets.size() - 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public HistoryBucket next() {
+            HistoryBucket next = delegate.next();
+            readLast |= next == lastBucket;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bookhub.api.repository;
+
+import com.bookhub.api.model.HistoryFanoutTask;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class HistoryFanoutTaskRepositoryCustomImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    @Test
+    void releasingATaskSendsItToTheBackOfTheClaimOrder() {
+        Instant updatedOn = Instant.parse("2026-10-01T10:00:00Z");
+        HistoryFanoutTask task = HistoryFanoutTask.builder().id("b1").generation(3).updatedOn(updatedOn).build();
+
+        Instant before = Instant.now();
+        new HistoryFanoutTaskRepositoryCustomImpl(mongoTemplate).release(task);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(HistoryFanoutTask.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertFalse(((Instant) set.get("updatedOn")).isBefore(before));
+        assertTrue(update.getValue().getUpdateObject().get("$unset", Document.class).containsKey("leaseUntil"));
+    }
+}
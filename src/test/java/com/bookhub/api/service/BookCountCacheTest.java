@@ -0,0 +1,62 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.Categories;
+import com.bookhub.api.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookCountCacheTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CategoryRepository categoryRepo = mock(CategoryRepository.class);
+    private final CategorySnapshotHolder snapshotHolder = new CategorySnapshotHolder(categoryRepo);
+    private final BookCountCache cache = new BookCountCache(mongoTemplate, snapshotHolder, Duration.ofMinutes(5));
+
+    @Test
+    void repeatedCatalogCountsHitMongoOnceUntilABookIsAddedOrRemoved() {
+        when(mongoTemplate.estimatedCount(Book.class)).thenReturn(40L, 41L);
+
+        assertEquals(40, cache.count(null));
+        assertEquals(40, cache.count(null));
+
+        Book book = Book.builder().id("b1").categoryIds(List.of("fiction")).build();
+        cache.onBookChanged(BookChangedEvent.updated(book, book.toBuilder().title("renamed").build()));
+        assertEquals(40, cache.count(null));
+
+        cache.onBookChanged(BookChangedEvent.created(book));
+        assertEquals(41, cache.count(null));
+        verify(mongoTemplate, times(2)).estimatedCount(Book.class);
+    }
+
+    @Test
+    void categoryCountsComeFromTheSnapshotWithoutAReadPerCategory() {
+        when(categoryRepo.findAll()).thenReturn(List.of(
+                Categories.builder().id("fiction").name("Fiction").bookCount(7).build(),
+                Categories.builder().id("poetry").name("Poetry").bookCount(5).build()));
+
+        assertEquals(7, cache.count("fiction"));
+        assertEquals(5, cache.count("poetry"));
+        assertEquals(0, cache.count("unknown"));
+
+        // A book added to fiction on this node shows up at once, with no cache to drop
+        snapshotHolder.applyCountDeltas(Map.of("fiction", 1));
+        assertEquals(8, cache.count("fiction"));
+
+        verify(categoryRepo, times(1)).findAll();
+        verify(categoryRepo, never()).findById(any());
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookDetailCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BookDetailCache cache = new BookDetailCache(100, Duration.ofMinutes(10), meterRegistry);
+
+    @Test
+    void concurrentMissesForOneIdLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, BookDetailCache.Entry> slowLoader = id -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new BookDetailCache.Entry(BookResponseDTO.builder().id(id).title("Dune").build(), 0L);
+        };
+
+        List<CompletableFuture<BookDetailCache.Entry>> readers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            readers.add(CompletableFuture.supplyAsync(() -> cache.get("b1", slowLoader)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (CompletableFuture<BookDetailCache.Entry> reader : readers) {
+            assertEquals("Dune", reader.get(5, TimeUnit.SECONDS).book().getTitle());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void changeEventDropsTheEntryAndMissingBooksAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, BookDetailCache.Entry> loader = id -> {
+            loads.incrementAndGet();
+            return new BookDetailCache.Entry(BookResponseDTO.builder().id(id).title("v" + loads.get()).build(), loads.get());
+        };
+
+        assertEquals("v1", cache.get("b1", loader).book().getTitle());
+        assertEquals("v1", cache.get("b1", loader).book().getTitle());
+        assertEquals(1L, cache.lastModified("b1").getAsLong());
+
+        Book book = Book.builder().id("b1").build();
+        cache.onBookChanged(BookChangedEvent.updated(book, book));
+        assertTrue(cache.lastModified("b1").isEmpty());
+        assertEquals("v2", cache.get("b1", loader).book().getTitle());
+
+        assertNull(cache.get("missing", id -> null));
+        assertNull(cache.get("missing", id -> null));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "book-details").tag("result", "hit").functionCounter().count());
+    }
+}
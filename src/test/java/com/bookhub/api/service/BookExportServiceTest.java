@@ -0,0 +1,105 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.repository.BookRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookExportServiceTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final BookExportService exportService = new BookExportService(bookRepo, objectMapper);
+
+    @Test
+    void writesOneJsonLinePerBookAndClosesTheCursor() throws IOException {
+        LocalDateTime since = LocalDateTime.of(2026, 1, 1, 0, 0);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(bookRepo.streamForExport(since)).thenReturn(Stream.of(book(1), book(2)).onClose(() -> closed.set(true)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            assertEquals(2, exportService.export(since, gzip));
+        }
+
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        List<String> lines = ndjson.lines().toList();
+        assertTrue(ndjson.endsWith("\n"));
+        assertEquals(2, lines.size());
+
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("book-1", first.get("id").asText());
+        assertEquals("2026-02-01T10:00:00", first.get("addedOn").asText());
+        assertFalse(first.has("savedBy"));
+        assertTrue(closed.get());
+    }
+
+    // The synthetic books are generated lazily, like documents off a cursor; none of them is kept around.
+    // Runs in its own surefire execution with -Xmx64m, where holding a million books would fail with an OOM
+    @Tag("low-heap")
+    @Test
+    void streamsAMillionBooksWithoutHoldingThem() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+
+        long written = exportService.writeNdjson(LongStream.range(0, 1_000_000).mapToObj(BookExportServiceTest::book), out);
+
+        assertEquals(1_000_000, written);
+        assertEquals(1_000_000, out.newlines);
+    }
+
+    private static Book book(long i) {
+        return Book.builder()
+                .id("book-" + i)
+                .title("Title " + i)
+                .author("Author " + (i % 1000))
+                .categoryIds(List.of("c" + (i % 20)))
+                .saveCount(i % 50)
+                .addedOn(LocalDateTime.of(2026, 2, 1, 10, 0))
+                .build();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long newlines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                newlines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.ImportJob;
+import com.bookhub.api.model.ImportJobStatus;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.ImportJobRepository;
+import com.bookhub.api.utils.StoreResources;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookImportServiceTest {
+
+    private static final String JOB_ID = "job-1";
+
+    @TempDir
+    Path workDir;
+
+    private final ImportJobRepository importJobRepo = mock(ImportJobRepository.class);
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final CategoryService categoryService = mock(CategoryService.class);
+
+    // What the job collection holds, and processedRows at every checkpoint
+    private final Map<String, ImportJob> jobs = new HashMap<>();
+    private final List<Long> checkpoints = new ArrayList<>();
+    private final List<List<String>> inserted = new ArrayList<>();
+
+    private BookImportService importService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(importJobRepo.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(jobs.get(inv.<String>getArgument(0))));
+        when(importJobRepo.saveUnlessCancelled(any())).thenAnswer(inv -> {
+            ImportJob job = inv.getArgument(0);
+            if (jobs.get(job.getId()).getStatus() == ImportJobStatus.CANCELLED) {
+                return null;
+            }
+            checkpoints.add(job.getProcessedRows());
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(bookRepo.insert(anyList())).thenAnswer(this::recordInsert);
+
+        jobs.put(JOB_ID, ImportJob.builder()
+                .id(JOB_ID)
+                .status(ImportJobStatus.QUEUED)
+                .format(ImportJob.Format.NDJSON)
+                .createdBy("admin")
+                .totalRows(5)
+                .build());
+        Files.createDirectories(workDir.resolve(JOB_ID));
+        Files.writeString(workDir.resolve(JOB_ID).resolve("metadata"), IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> "{\"title\":\"Book " + i + "\",\"author\":\"Author\",\"categoryIds\":[\"c1\"]}")
+                .collect(Collectors.joining("\n")));
+
+        importService = new BookImportService(importJobRepo, bookRepo, categoryService, mock(CurrentUserService.class),
+                mock(StoreResources.class), mock(CloudinaryService.class), mock(ApplicationEventPublisher.class),
+                new ObjectMapper(), workDir, 2, 1, DataSize.ofMegabytes(10), Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void importsInBatchesAndCheckpointsAfterEach() {
+        importService.run(JOB_ID);
+
+        assertEquals(List.of(List.of(id(1), id(2)), List.of(id(3), id(4)), List.of(id(5))), inserted);
+        // RUNNING, then one per batch, then COMPLETED
+        assertEquals(List.of(0L, 2L, 4L, 5L, 5L), checkpoints);
+        assertEquals(ImportJobStatus.COMPLETED, jobs.get(JOB_ID).getStatus());
+        assertEquals(5, jobs.get(JOB_ID).getImportedBooks());
+        assertFalse(Files.exists(workDir.resolve(JOB_ID)));
+    }
+
+    @Test
+    void resumesRightAfterTheCheckpoint() {
+        jobs.get(JOB_ID).setStatus(ImportJobStatus.RUNNING);
+        jobs.get(JOB_ID).setProcessedRows(3);
+        jobs.get(JOB_ID).setImportedBooks(3);
+
+        importService.run(JOB_ID);
+
+        assertEquals(List.of(List.of(id(4), id(5))), inserted);
+        assertEquals(5, jobs.get(JOB_ID).getImportedBooks());
+    }
+
+    @Test
+    void reRunningABatchSkipsTheBooksItAlreadyInserted() {
+        // A crash after the insertMany of rows 1-2 but before their checkpoint
+        when(bookRepo.findExistingIds(any())).thenReturn(Set.of(id(1), id(2)), Set.of(), Set.of());
+
+        importService.run(JOB_ID);
+
+        assertEquals(List.of(List.of(id(3), id(4)), List.of(id(5))), inserted);
+        assertEquals(5, jobs.get(JOB_ID).getImportedBooks());
+        // Category counts only move for the books inserted now
+        verify(categoryService, times(2)).adjustBookCounts(any(), anyList());
+    }
+
+    @Test
+    void aTransientFailureKeepsTheCheckpointAndStagedFilesForTheRetry() {
+        doAnswer(this::recordInsert)
+                .doThrow(new DataAccessResourceFailureException("connection reset"))
+                .doAnswer(this::recordInsert)
+                .when(bookRepo).insert(anyList());
+
+        importService.run(JOB_ID);
+
+        assertEquals(ImportJobStatus.RUNNING, jobs.get(JOB_ID).getStatus());
+        assertEquals(2, jobs.get(JOB_ID).getProcessedRows());
+        assertTrue(Files.exists(workDir.resolve(JOB_ID).resolve("metadata")));
+
+        importService.run(JOB_ID); // what the scheduled retry does
+
+        assertEquals(List.of(List.of(id(1), id(2)), List.of(id(3), id(4)), List.of(id(5))), inserted);
+        assertEquals(ImportJobStatus.COMPLETED, jobs.get(JOB_ID).getStatus());
+    }
+
+    @Test
+    void aCancelStopsTheJobAtItsNextCheckpoint() {
+        doAnswer(inv -> {
+            jobs.get(JOB_ID).setStatus(ImportJobStatus.CANCELLED); // cancelled from another request mid-batch
+            return inv.getArgument(0);
+        }).when(bookRepo).insert(anyList());
+
+        importService.run(JOB_ID);
+
+        verify(bookRepo, times(1)).insert(anyList());
+        assertEquals(ImportJobStatus.CANCELLED, jobs.get(JOB_ID).getStatus());
+        assertFalse(Files.exists(workDir.resolve(JOB_ID)));
+    }
+
+    private List<Book> recordInsert(InvocationOnMock invocation) {
+        List<Book> books = invocation.getArgument(0);
+        inserted.add(books.stream().map(Book::getId).toList());
+        return books;
+    }
+
+    private static String id(int line) {
+        return BookImportService.bookIdFor(JOB_ID, line);
+    }
+}
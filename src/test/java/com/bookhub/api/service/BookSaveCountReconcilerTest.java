@@ -0,0 +1,63 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookSaveCountChangedEvent;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.SavedBookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BookSaveCountReconcilerTest {
+
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final SavedBookRepository savedBookRepo = mock(SavedBookRepository.class);
+    private final SavedBooksMigration savedBooksMigration = mock(SavedBooksMigration.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BookSaveCountReconciler reconciler =
+            new BookSaveCountReconciler(bookRepo, savedBookRepo, savedBooksMigration, eventPublisher, meterRegistry);
+
+    @Test
+    void correctsADifferenceSeenTwiceIncludingBooksStoredAsZero() {
+        when(savedBooksMigration.isComplete()).thenReturn(true);
+        // "a" was overwritten by the migration's recount, "b" lost its $inc, "c" is right
+        when(bookRepo.findNonZeroSaveCounts()).thenReturn(Map.of("a", 5L, "c", 2L));
+        when(savedBookRepo.countSavesPerBook()).thenReturn(Map.of("a", 6L, "b", 1L, "c", 2L));
+        when(bookRepo.replaceSaveCount(anyString(), anyLong(), anyLong())).thenReturn(true);
+
+        reconciler.reconcile();
+        verify(bookRepo, never()).replaceSaveCount(anyString(), anyLong(), anyLong());
+
+        reconciler.reconcile();
+        verify(bookRepo).replaceSaveCount("a", 5, 6);
+        verify(bookRepo).replaceSaveCount("b", 0, 1);
+        verify(bookRepo, never()).replaceSaveCount(eq("c"), anyLong(), anyLong());
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof BookSaveCountChangedEvent changed && changed.getBookId().equals("a") && changed.getSaveCount() == 6));
+        assertEquals(2.0, meterRegistry.get("bookhub.books.savecount.drift.corrected").counter().count());
+    }
+
+    @Test
+    void waitsForTheSavedByMigration() {
+        when(savedBooksMigration.isComplete()).thenReturn(false);
+
+        reconciler.reconcile();
+
+        verifyNoInteractions(bookRepo, savedBookRepo);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+}
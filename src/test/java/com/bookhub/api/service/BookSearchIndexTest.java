@@ -0,0 +1,44 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BookSearchIndex searchIndex = new BookSearchIndex(mongoTemplate, true);
+
+    private static Book book(String id, String title) {
+        return Book.builder().id(id).title(title).build();
+    }
+
+    @Test
+    void rebuildPicksUpOtherNodesChangesAndKeepsEventsThatArriveWhileItRuns() {
+        when(mongoTemplate.stream(any(Query.class), eq(Book.class)))
+                .thenReturn(Stream.of(book("1", "Dune"), book("2", "Emma")));
+        searchIndex.build();
+
+        Book local = book("3", "Persuasion");
+        // Another node renamed book 1 and deleted book 2; this node creates book 3 mid-stream
+        when(mongoTemplate.stream(any(Query.class), eq(Book.class)))
+                .thenReturn(Stream.of(book("1", "Dune Messiah"))
+                        .peek(b -> searchIndex.onBookChanged(BookChangedEvent.created(local))));
+        searchIndex.rebuild();
+
+        assertEquals(List.of("1"), searchIndex.search("messiah", null, 0, 10).orElseThrow().keys());
+        assertEquals(0, searchIndex.search("emma", null, 0, 10).orElseThrow().total());
+        assertEquals(List.of("3"), searchIndex.search("persuasion", null, 0, 10).orElseThrow().keys());
+    }
+}
@@ -0,0 +1,99 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.BookDTO;
+import com.bookhub.api.dto.BookResponseDTO;
+import com.bookhub.api.event.BookSaveCountChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.SavedBookRepository;
+import com.bookhub.api.utils.StoreResources;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookServiceToggleSaveTest {
+
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final CurrentUserService currentUserService = mock(CurrentUserService.class);
+    private final SavedBookRepository savedBookRepo = mock(SavedBookRepository.class);
+    private final SavedBooksMigration savedBooksMigration = mock(SavedBooksMigration.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final BookService bookService = new BookService(bookRepo, mock(CategoryService.class), currentUserService,
+            mock(BookSearchIndex.class), mock(BookSuggestionIndex.class), mock(BookCountCache.class),
+            mock(BookDetailCache.class), savedBookRepo, savedBooksMigration, eventPublisher,
+            mock(StoreResources.class), mock(CloudinaryService.class));
+
+    @BeforeEach
+    void setUp() {
+        when(currentUserService.getCurrentUser()).thenReturn(User.builder().id("u1").role(Role.USER).build());
+        when(bookRepo.existsById("b1")).thenReturn(true);
+    }
+
+    @Test
+    void toggleOfANotYetMigratedSaveMovesItOverAndUnsavesIt() {
+        when(savedBooksMigration.isComplete()).thenReturn(false);
+        when(bookRepo.pullLegacySave("b1", "u1")).thenReturn(true);
+        when(savedBookRepo.insertIfAbsent(any(), any(), any(Instant.class))).thenReturn(true);
+        when(savedBookRepo.deleteByUserIdAndBookId("u1", "b1")).thenReturn(1L);
+        when(bookRepo.incrementSaveCount("b1", -1)).thenReturn(OptionalLong.of(4));
+
+        assertFalse(bookService.toggleSaveForBook("b1"));
+
+        ArgumentCaptor<BookSaveCountChangedEvent> event = ArgumentCaptor.forClass(BookSaveCountChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(4, event.getValue().getSaveCount());
+    }
+
+    @Test
+    void toggleAfterTheMigrationSavesWithoutTouchingTheLegacyArray() {
+        when(savedBooksMigration.isComplete()).thenReturn(true);
+        when(savedBookRepo.deleteByUserIdAndBookId("u1", "b1")).thenReturn(0L);
+        when(savedBookRepo.insertIfAbsent(any(), any(), any(Instant.class))).thenReturn(true);
+        when(bookRepo.incrementSaveCount("b1", 1)).thenReturn(OptionalLong.of(1));
+
+        assertTrue(bookService.toggleSaveForBook("b1"));
+        verify(bookRepo, never()).pullLegacySave(any(), any());
+    }
+
+    @Test
+    void concurrentSaveFromTheSameUserIsNotCountedTwice() {
+        when(savedBooksMigration.isComplete()).thenReturn(true);
+        when(savedBookRepo.deleteByUserIdAndBookId("u1", "b1")).thenReturn(0L);
+        when(savedBookRepo.insertIfAbsent(any(), any(), any(Instant.class))).thenReturn(false);
+
+        assertTrue(bookService.toggleSaveForBook("b1"));
+        verify(bookRepo, never()).incrementSaveCount(any(), anyLong());
+    }
+
+    @Test
+    void editingABookNeverWritesItsSaveCount() {
+        Book stored = Book.builder().id("b1").title("Old").saveCount(7).build();
+        when(bookRepo.findDetailById("b1")).thenReturn(Optional.of(stored));
+        when(bookRepo.updateEditableFields(any())).thenAnswer(inv -> Optional.of(inv.<Book>getArgument(0).toBuilder().saveCount(9).build()));
+        BookDTO edit = new BookDTO();
+        edit.setTitle("New");
+
+        BookResponseDTO updated = bookService.updateBook("b1", edit);
+
+        assertEquals("New", updated.getTitle());
+        verify(bookRepo, never()).save(any());
+    }
+}
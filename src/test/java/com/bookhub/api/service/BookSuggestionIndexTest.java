@@ -0,0 +1,49 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookSaveCountChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.utils.SuggestionTrie;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSuggestionIndexTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BookSuggestionIndex suggestionIndex = new BookSuggestionIndex(mongoTemplate, 10);
+
+    private static Book book(String id, String title, long saveCount) {
+        return Book.builder().id(id).title(title).saveCount(saveCount).build();
+    }
+
+    private List<String> suggest(String prefix) {
+        return suggestionIndex.suggest(prefix, 10).stream().map(SuggestionTrie.Suggestion::text).toList();
+    }
+
+    @Test
+    void rebuildPicksUpOtherNodesChangesAndKeepsSaveTogglesThatArriveWhileItRuns() {
+        when(mongoTemplate.stream(any(Query.class), eq(Book.class)))
+                .thenReturn(Stream.of(book("1", "Dune", 5), book("2", "Dubliners", 7)));
+        suggestionIndex.build();
+        assertEquals(List.of("Dubliners", "Dune"), suggest("du"));
+
+        // Another node renamed book 2; this node records saves of book 1 mid-stream
+        when(mongoTemplate.stream(any(Query.class), eq(Book.class)))
+                .thenReturn(Stream.of(book("1", "Dune", 5), book("2", "Emma", 7))
+                        .peek(b -> suggestionIndex.onSaveCountChanged(new BookSaveCountChangedEvent("1", 9))));
+        suggestionIndex.rebuild();
+
+        assertEquals(List.of("Dune"), suggest("du"));
+        assertEquals(9, suggestionIndex.suggest("dune", 1).get(0).popularity());
+        assertEquals(List.of("Emma"), suggest("em"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Categories;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.CategoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryCountReconcilerTest {
+
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final CategoryRepository categoryRepo = mock(CategoryRepository.class);
+    private final CategorySnapshotHolder snapshotHolder = mock(CategorySnapshotHolder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void correctsDriftedCountsAndRecordsHowFarOffTheyWere() {
+        when(categoryRepo.findAll()).thenReturn(List.of(
+                Categories.builder().id("fiction").name("Fiction").bookCount(12).build(),
+                Categories.builder().id("poetry").name("Poetry").bookCount(4).build(),
+                Categories.builder().id("empty").name("Empty").bookCount(2).build()));
+        when(bookRepo.countBooksPerCategory()).thenReturn(Map.of("fiction", 10, "poetry", 4));
+        when(categoryRepo.replaceBookCount(anyString(), anyInt(), anyInt())).thenReturn(true);
+
+        CategoryCountReconciler reconciler = new CategoryCountReconciler(bookRepo, categoryRepo, snapshotHolder, meterRegistry);
+        reconciler.reconcile();
+        reconciler.reconcile(); // a difference is only corrected once two runs agree on it
+
+        verify(categoryRepo).replaceBookCount("fiction", 12, 10);
+        verify(categoryRepo).replaceBookCount("empty", 2, 0);
+        verify(categoryRepo, never()).replaceBookCount(eq("poetry"), anyInt(), anyInt());
+        assertEquals(4.0, meterRegistry.get("bookhub.categories.count.drift.corrected").counter().count());
+        assertEquals(4.0, meterRegistry.get("bookhub.categories.count.drift.last").gauge().value());
+    }
+
+    @Test
+    void aDifferenceSeenOnceIsLeftForTheNextRun() {
+        // First run: the book is in, its $inc isn't yet. Second run: the $inc landed, nothing to fix
+        when(categoryRepo.findAll()).thenReturn(
+                List.of(Categories.builder().id("fiction").name("Fiction").bookCount(9).build()),
+                List.of(Categories.builder().id("fiction").name("Fiction").bookCount(10).build()));
+        when(bookRepo.countBooksPerCategory()).thenReturn(Map.of("fiction", 10));
+
+        CategoryCountReconciler reconciler = new CategoryCountReconciler(bookRepo, categoryRepo, snapshotHolder, meterRegistry);
+        reconciler.reconcile();
+        reconciler.reconcile();
+
+        verify(categoryRepo, never()).replaceBookCount(anyString(), anyInt(), anyInt());
+        verify(snapshotHolder, never()).reload();
+        assertEquals(0.0, meterRegistry.get("bookhub.categories.count.drift.corrected").counter().count());
+    }
+
+    @Test
+    void adjustingCountsSendsOnlyNetChangesInOneCall() {
+        CategoryService categoryService = new CategoryService(bookRepo, categoryRepo, snapshotHolder);
+
+        categoryService.adjustBookCounts(List.of("a", "b"), List.of("b", "c"));
+
+        verify(categoryRepo).incrementBookCounts(Map.of("a", -1, "c", 1));
+        verify(snapshotHolder).applyCountDeltas(Map.of("a", -1, "c", 1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.CategoryDTO;
+import com.bookhub.api.exception.ValidationException;
+import com.bookhub.api.model.Categories;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategorySnapshotHolderTest {
+
+    private final CategoryRepository categoryRepo = mock(CategoryRepository.class);
+    private final CategorySnapshotHolder holder = new CategorySnapshotHolder(categoryRepo);
+    private final CategoryService categoryService = new CategoryService(mock(BookRepository.class), categoryRepo, holder);
+
+    private static Categories category(String id, String name, int bookCount) {
+        return Categories.builder().id(id).name(name).bookCount(bookCount).build();
+    }
+
+    @Test
+    void readsComeFromOneLoadAndCountDeltasBumpTheVersion() {
+        when(categoryRepo.findAll()).thenReturn(List.of(category("1", "Fiction", 3), category("2", "Poetry", 1)));
+
+        assertEquals("Poetry", categoryService.getCategoryById("2").getName());
+        assertEquals("1", categoryService.getCategoryByName(" Fiction ").getId());
+        assertEquals(List.of("Poetry"), categoryService.getAllCategories(1, 1).getContent().stream().map(CategoryDTO::getName).toList());
+        categoryService.validateCategoryIds(List.of("1", "2"));
+        verify(categoryRepo, times(1)).findAll();
+
+        long version = holder.get().getVersion();
+        categoryService.adjustBookCounts(List.of("2"), List.of("1"));
+        assertEquals(4, categoryService.getCategoryById("1").getBookCount());
+        assertEquals(0, categoryService.getCategoryById("2").getBookCount());
+        assertEquals(version + 1, holder.get().getVersion());
+    }
+
+    @Test
+    void unknownIdIsRecheckedOnceAgainstMongo() {
+        when(categoryRepo.findAll())
+                .thenReturn(List.of(category("1", "Fiction", 0)))
+                .thenReturn(List.of(category("1", "Fiction", 0), category("3", "History", 0)));
+
+        categoryService.validateCategoryIds(List.of("1", "3")); // created elsewhere after our first load
+        ValidationException error = assertThrows(ValidationException.class,
+                () -> categoryService.validateCategoryIds(List.of("1", "9")));
+        assertEquals("Categories not found: [9]", error.getMessage());
+        verify(categoryRepo, times(3)).findAll();
+    }
+
+    @Test
+    void reloadThatOverlapsACountChangeIsRedoneInsteadOfInstallingItsOlderRead() {
+        when(categoryRepo.findAll()).thenReturn(List.of(category("1", "Fiction", 3)));
+        holder.reload();
+
+        when(categoryRepo.findAll())
+                .thenAnswer(invocation -> {
+                    holder.applyCountDeltas(Map.of("1", 1)); // a book saved on this node mid-read
+                    return List.of(category("1", "Fiction", 3));
+                })
+                .thenReturn(List.of(category("1", "Fiction", 4)));
+
+        holder.reload();
+        assertEquals(4, categoryService.getCategoryById("1").getBookCount());
+        verify(categoryRepo, times(3)).findAll();
+    }
+}
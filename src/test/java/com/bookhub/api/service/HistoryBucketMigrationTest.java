@@ -0,0 +1,67 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.ReadingHistory;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.BucketedHistoryStore;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HistoryBucketMigrationTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BucketedHistoryStore bucketStore = mock(BucketedHistoryStore.class);
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final HistoryBucketMigration migration = new HistoryBucketMigration(mongoTemplate, bucketStore, bookRepo, 2);
+
+    // reading_history by user, as the fake collection holds it
+    private final TreeMap<String, List<ReadingHistory>> history = new TreeMap<>();
+
+    @Test
+    void userThatFailedIsRetriedBeforeThePassCountsAsComplete() {
+        for (String userId : List.of("u1", "u2", "u3")) {
+            history.put(userId, new ArrayList<>(List.of(
+                    ReadingHistory.builder().id(userId + "-h").userId(userId).bookId("b1").build())));
+        }
+        when(mongoTemplate.findOne(any(Query.class), eq(ReadingHistory.class))).thenAnswer(invocation -> {
+            Object after = invocation.<Query>getArgument(0).getQueryObject().get("userId");
+            String key = after == null ? history.ceilingKey("") : history.higherKey(((Document) after).getString("$gt"));
+            return key == null ? null : history.get(key).get(0);
+        });
+        when(mongoTemplate.find(any(Query.class), eq(ReadingHistory.class))).thenAnswer(invocation ->
+                List.copyOf(history.get(invocation.<Query>getArgument(0).getQueryObject().getString("userId"))));
+        when(bookRepo.findSummariesByIds(anyList())).thenReturn(List.of());
+        when(bucketStore.importHistory(anyString(), anyList()))
+                .thenThrow(new IllegalStateException("write conflict")) // u1, first try
+                .thenReturn(1);
+        when(mongoTemplate.remove(any(Query.class), eq(ReadingHistory.class))).thenAnswer(invocation -> {
+            history.values().removeIf(entries -> entries.stream().anyMatch(h ->
+                    invocation.<Query>getArgument(0).getQueryObject().toJson().contains(h.getId())));
+            return null;
+        });
+
+        migration.migrateBatch(); // u1 fails, u2 moves
+        migration.migrateBatch(); // u3 moves
+        assertEquals(List.of("u1"), List.copyOf(history.keySet()));
+        assertFalse(migration.isComplete());
+
+        migration.migrateBatch(); // pass is through: u1 is retried
+        assertTrue(history.isEmpty());
+        assertTrue(migration.isComplete());
+    }
+}
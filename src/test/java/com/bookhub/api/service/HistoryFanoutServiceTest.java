@@ -0,0 +1,60 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.event.BookChangedEvent;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.HistoryFanoutTask;
+import com.bookhub.api.repository.HistoryFanoutTaskRepository;
+import com.bookhub.api.repository.ReadingHistoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class HistoryFanoutServiceTest {
+
+    private final HistoryFanoutTaskRepository taskRepo = mock(HistoryFanoutTaskRepository.class);
+    private final ReadingHistoryStore historyStore = mock(ReadingHistoryStore.class);
+
+    private final HistoryFanoutService fanout = new HistoryFanoutService(taskRepo, historyStore,
+            500, 2, Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+    @Test
+    void onlyTitleOrCoverChangesAndDeletesAreFannedOut() {
+        Book before = Book.builder().id("b1").title("Dune").coverImageUrl("dune.jpg").description("old").build();
+
+        fanout.onBookChanged(BookChangedEvent.updated(before, before.toBuilder().description("new").build()));
+        verifyNoInteractions(taskRepo);
+
+        fanout.onBookChanged(BookChangedEvent.updated(before, before.toBuilder().title("Dune (2nd ed.)").build()));
+        verify(taskRepo).enqueue("b1", "Dune (2nd ed.)", "dune.jpg");
+
+        fanout.onBookChanged(BookChangedEvent.deleted(before));
+        verify(taskRepo).enqueue("b1", "Dune", null);
+    }
+
+    @Test
+    void stopsAtTheBatchBudgetAndKeepsTheCursorForTheNextRun() {
+        HistoryFanoutTask task = HistoryFanoutTask.builder().id("b1").bookTitle("Dune").generation(1).build();
+        when(taskRepo.claim(any(), any())).thenReturn(Optional.of(task));
+        when(historyStore.updateBookFields(eq("b1"), isNull(), anyInt(), eq("Dune"), isNull())).thenReturn("h500");
+        when(historyStore.updateBookFields(eq("b1"), eq("h500"), anyInt(), eq("Dune"), isNull())).thenReturn("h1000");
+        when(taskRepo.checkpoint(eq(task), any(), any())).thenReturn(true);
+
+        fanout.runBatches();
+
+        verify(taskRepo).checkpoint(eq(task), eq("h1000"), any());
+        verify(taskRepo).release(task);
+        verify(taskRepo, never()).complete(any());
+    }
+}
@@ -0,0 +1,114 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Book;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.Open;
+import com.bookhub.api.repository.ReadingHistoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HistoryWriteBufferTest {
+
+    private final ReadingHistoryStore historyStore = mock(ReadingHistoryStore.class);
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Instant t1 = Instant.parse("2026-10-01T10:00:00Z");
+    private final Instant t2 = Instant.parse("2026-10-01T10:05:00Z");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesOpensPerUserAndBookAndWritesThemInOneBulk() {
+        when(bookRepo.findSummariesByIds(any())).thenReturn(List.of(
+                Book.builder().id("b1").title("Dune").coverImageUrl("dune.jpg").build()));
+        HistoryWriteBuffer buffer = new HistoryWriteBuffer(historyStore, bookRepo, 100, meterRegistry);
+
+        buffer.record("u1", "b1", t2);
+        buffer.record("u1", "b1", t1); // arrived late, must not move lastOpenedAt back
+        buffer.record("u2", "b1", t1);
+        buffer.record("u1", "gone", t1);
+        buffer.flush();
+
+        ArgumentCaptor<Collection<Open>> opens = ArgumentCaptor.forClass(Collection.class);
+        verify(historyStore).recordOpens(opens.capture());
+        assertEquals(2, opens.getValue().size());
+        Open u1 = opens.getValue().stream().filter(o -> o.userId().equals("u1")).findFirst().orElseThrow();
+        assertEquals(new Open("u1", "b1", "Dune", "dune.jpg", t2), u1);
+
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.coalesced").counter().count());
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.dropped").counter().count());
+        assertEquals(0.0, meterRegistry.get("bookhub.history.buffer.pending").gauge().value());
+    }
+
+    @Test
+    void failedFlushKeepsTheOpensForTheNextOne() {
+        when(bookRepo.findSummariesByIds(any())).thenReturn(List.of(Book.builder().id("b1").title("Dune").build()));
+        doThrow(new RuntimeException("mongo down")).doNothing().when(historyStore).recordOpens(anyCollection());
+        HistoryWriteBuffer buffer = new HistoryWriteBuffer(historyStore, bookRepo, 100, meterRegistry);
+
+        buffer.record("u1", "b1", t1);
+        buffer.flush();
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.pending").gauge().value());
+
+        buffer.flush();
+        verify(historyStore, times(2)).recordOpens(anyCollection());
+        assertEquals(0.0, meterRegistry.get("bookhub.history.buffer.pending").gauge().value());
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.flush.failures").counter().count());
+    }
+
+    @Test
+    void fullBufferMakesTheWriterFlushFirst() {
+        when(bookRepo.findSummariesByIds(any())).thenReturn(List.of(
+                Book.builder().id("b1").build(), Book.builder().id("b2").build()));
+        HistoryWriteBuffer buffer = new HistoryWriteBuffer(historyStore, bookRepo, 2, meterRegistry);
+
+        buffer.record("u1", "b1", t1);
+        buffer.record("u2", "b1", t1);
+        buffer.record("u2", "b1", t2); // same key, doesn't grow the buffer
+        verify(historyStore, times(0)).recordOpens(anyCollection());
+
+        buffer.record("u3", "b2", t1);
+        verify(historyStore).recordOpens(anyCollection());
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.overflow").counter().count());
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.pending").gauge().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushesNeverGrowTheBufferPastMaxPending() {
+        Instant t3 = Instant.parse("2026-10-01T10:10:00Z");
+        when(bookRepo.findSummariesByIds(any())).thenReturn(List.of(Book.builder().id("b1").build()));
+        doThrow(new RuntimeException("mongo down")).when(historyStore).recordOpens(anyCollection());
+        HistoryWriteBuffer buffer = new HistoryWriteBuffer(historyStore, bookRepo, 2, meterRegistry);
+
+        buffer.record("u1", "b1", t1);
+        buffer.record("u2", "b1", t2);
+        buffer.record("u3", "b1", t3); // flushes, the flush fails and puts both back, so u3 finds no room
+        assertEquals(2.0, meterRegistry.get("bookhub.history.buffer.pending").gauge().value());
+        assertEquals(1.0, meterRegistry.get("bookhub.history.buffer.shed").counter().count());
+
+        buffer.record("u1", "b1", t3); // already buffered, still accepted
+        assertEquals(2.0, meterRegistry.get("bookhub.history.buffer.pending").gauge().value());
+
+        doNothing().when(historyStore).recordOpens(anyCollection());
+        buffer.flush();
+        ArgumentCaptor<Collection<Open>> opens = ArgumentCaptor.forClass(Collection.class);
+        verify(historyStore, times(2)).recordOpens(opens.capture());
+        assertEquals(List.of("u1", "u2"), opens.getValue().stream().map(Open::userId).sorted().toList());
+    }
+}
@@ -0,0 +1,74 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.ReadingProgress;
+import com.bookhub.api.repository.ReadingProgressRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ProgressWriteBufferTest {
+
+    private final ReadingProgressRepository progressRepo = mock(ReadingProgressRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Instant t1 = Instant.parse("2026-10-01T10:00:00Z");
+    private final Instant t2 = Instant.parse("2026-10-01T10:05:00Z");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullBufferAfterAFailedFlushWritesTheNewKeyThroughInsteadOfGrowing() {
+        ReadingProgress third = progress("u3", t2);
+        doThrow(new RuntimeException("mongo down"))
+                .doReturn(Set.of())
+                .when(progressRepo).upsertAllIfNewer(anyList());
+        ProgressWriteBuffer buffer = new ProgressWriteBuffer(progressRepo, 2, meterRegistry);
+
+        buffer.offer(progress("u1", t1));
+        buffer.offer(progress("u2", t2));
+        assertSame(third, buffer.offer(third)); // flush fails, batch goes back, u3 is written directly
+
+        assertEquals(2.0, meterRegistry.get("bookhub.progress.buffer.pending").gauge().value());
+        assertEquals(1.0, meterRegistry.get("bookhub.progress.buffer.direct").counter().count());
+        ArgumentCaptor<List<ReadingProgress>> writes = ArgumentCaptor.forClass(List.class);
+        verify(progressRepo, times(2)).upsertAllIfNewer(writes.capture());
+        assertEquals(List.of(third), writes.getAllValues().get(1));
+    }
+
+    @Test
+    void failedBatchGoesBackNewestFirstOnlyWhileThereIsRoom() {
+        ProgressWriteBuffer buffer = new ProgressWriteBuffer(progressRepo, 2, meterRegistry);
+        // Two other readers get in while the flush is writing, then the write fails
+        doAnswer(invocation -> {
+            buffer.offer(progress("u3", t1));
+            buffer.offer(progress("u4", t1));
+            throw new RuntimeException("mongo down");
+        }).doReturn(Set.of()).when(progressRepo).upsertAllIfNewer(anyList());
+
+        buffer.offer(progress("u1", t1));
+        buffer.offer(progress("u2", t2));
+        buffer.flush();
+
+        assertEquals(2.0, meterRegistry.get("bookhub.progress.buffer.pending").gauge().value());
+        assertEquals(2.0, meterRegistry.get("bookhub.progress.buffer.shed").counter().count());
+        assertEquals(1.0, meterRegistry.get("bookhub.progress.buffer.flush.failures").counter().count());
+    }
+
+    //helper methods
+    private static ReadingProgress progress(String userId, Instant clientUpdatedAt) {
+        return ReadingProgress.builder().userId(userId).bookId("b1").percent(0.5)
+                .clientUpdatedAt(clientUpdatedAt).updatedAt(clientUpdatedAt).build();
+    }
+}
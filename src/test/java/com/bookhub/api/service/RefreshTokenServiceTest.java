@@ -0,0 +1,134 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.exception.InvalidTokenException;
+import com.bookhub.api.model.RefreshTokenFamily;
+import com.bookhub.api.model.RevokedRefreshToken;
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.repository.RefreshTokenFamilyRepository;
+import com.bookhub.api.repository.RevokedRefreshTokenRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("test-secret-of-at-least-32-bytes-long".getBytes());
+
+    private final JwtService jwtService = new JwtService(SECRET, Duration.ofHours(1), Duration.ofDays(30), 100);
+    private final RefreshTokenFamilyRepository familyRepo = mock(RefreshTokenFamilyRepository.class);
+    private final RevokedRefreshTokenRepository revokedRepo = mock(RevokedRefreshTokenRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    // What refresh_token_families and revoked_refresh_tokens hold
+    private final Map<String, RefreshTokenFamily> families = new HashMap<>();
+    private final Set<String> revokedIds = new HashSet<>();
+
+    private final User user = User.builder().id("u1").email("reader@bookhub.test").role(Role.USER).build();
+
+    @BeforeEach
+    void setUp() {
+        when(familyRepo.save(any())).thenAnswer(inv -> {
+            RefreshTokenFamily family = inv.getArgument(0);
+            family.setId("family-" + (families.size() + 1));
+            families.put(family.getId(), family);
+            return family;
+        });
+        when(revokedRepo.save(any())).thenAnswer(inv -> {
+            revokedIds.add(inv.<RevokedRefreshToken>getArgument(0).getId());
+            return inv.getArgument(0);
+        });
+        when(revokedRepo.existsById(anyString())).thenAnswer(inv -> revokedIds.contains(inv.<String>getArgument(0)));
+
+        // rotate's compare-and-swap: only the family's current token of a live family moves it on
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(RefreshTokenFamily.class)))
+                .thenAnswer(inv -> {
+                    Document filter = inv.<Query>getArgument(0).getQueryObject();
+                    RefreshTokenFamily family = families.get(filter.getString("_id"));
+                    if (family == null || family.isRevoked() || !family.getCurrentTokenId().equals(filter.get("currentTokenId"))) {
+                        return null;
+                    }
+                    Document set = inv.<Update>getArgument(1).getUpdateObject().get("$set", Document.class);
+                    family.setCurrentTokenId(set.getString("currentTokenId"));
+                    return family;
+                });
+        // revokeFamily: flips revoked on a live family and returns it as it was
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(RefreshTokenFamily.class)))
+                .thenAnswer(inv -> {
+                    RefreshTokenFamily family = families.get(inv.<Query>getArgument(0).getQueryObject().getString("_id"));
+                    if (family == null || family.isRevoked()) {
+                        return null;
+                    }
+                    RefreshTokenFamily before = RefreshTokenFamily.builder()
+                            .id(family.getId())
+                            .currentTokenId(family.getCurrentTokenId())
+                            .expiresAt(family.getExpiresAt())
+                            .build();
+                    family.setRevoked(true);
+                    return before;
+                });
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        RefreshTokenService tokens = newNode();
+        String first = tokens.issue(user);
+        String second = tokens.rotate(first).refreshToken();
+
+        // The stolen first token comes back: the deny list has it
+        assertThrows(InvalidTokenException.class, () -> tokens.rotate(first));
+        assertTrue(families.get("family-1").isRevoked());
+
+        // ...and the legitimate holder's newer token dies with the family
+        assertThrows(InvalidTokenException.class, () -> tokens.rotate(second));
+    }
+
+    @Test
+    void reuseIsCaughtByTheSwapWhenThisNodeHasNotSeenTheRevocationYet() {
+        String first = newNode().issue(user);
+        newNode().rotate(first);
+
+        // A node whose deny list hasn't synced lets the token past the filter; the swap misses and revokes
+        RefreshTokenService otherNode = newNode();
+        assertThrows(InvalidTokenException.class, () -> otherNode.rotate(first));
+        assertTrue(families.get("family-1").isRevoked());
+    }
+
+    @Test
+    void aTokenTheFilterHasNeverSeenCostsNoRevocationRead() {
+        RefreshTokenService tokens = newNode();
+        String issued = tokens.issue(user);
+
+        RefreshTokenService.Rotation rotation = tokens.rotate(issued);
+
+        assertEquals(user.getEmail(), rotation.userEmail());
+        verify(revokedRepo, never()).existsById(anyString());
+    }
+
+    //helper methods
+    private RefreshTokenService newNode() {
+        return new RefreshTokenService(jwtService, familyRepo, new RefreshTokenDenyList(revokedRepo, 1_000, 0.01), mongoTemplate);
+    }
+}
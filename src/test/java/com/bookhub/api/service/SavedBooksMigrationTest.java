@@ -0,0 +1,118 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.SavedBookRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SavedBooksMigrationTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final SavedBookRepository savedBookRepo = mock(SavedBookRepository.class);
+    private final SavedBooksMigration migration = new SavedBooksMigration(mongoTemplate, bookRepo, savedBookRepo, 10);
+
+    // savedBy arrays by book _id, as the fake books collection holds them
+    private final Map<Object, List<String>> legacy = new HashMap<>();
+    private final Set<Object> failOnce = new LinkedHashSet<>();
+
+    private final ObjectId b1 = new ObjectId("650000000000000000000001");
+    private final ObjectId b2 = new ObjectId("650000000000000000000002");
+
+    @Test
+    void failedBookIsRetriedBeforeTheMigrationCountsAsComplete() {
+        legacy.put(b1, new ArrayList<>(List.of("u1")));
+        legacy.put(b2, new ArrayList<>(List.of("u2", "u3")));
+        failOnce.add(b1);
+        fakeBooksCollection();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("books")))
+                .thenReturn(List.of(new Document("_id", b1), new Document("_id", b2)))
+                .thenReturn(List.of());
+
+        migration.drainBatch();
+        assertFalse(migration.isComplete());
+        assertTrue(legacy.get(b2).isEmpty());
+        assertFalse(legacy.get(b1).isEmpty());
+
+        migration.drainBatch(); // pass is through: b1 is retried first
+        assertTrue(migration.isComplete());
+        assertTrue(legacy.get(b1).isEmpty());
+        // Legacy saves are stamped with the book's creation time, not the migration's
+        verify(savedBookRepo).insertAllIfAbsent(b1.toHexString(), List.of("u1"), b1.getDate().toInstant());
+    }
+
+    @Test
+    void copyRecreatedAfterAToggleTookTheSaveOverIsDeleted() {
+        legacy.put(b1, new ArrayList<>(List.of("u1", "u2")));
+        fakeBooksCollection();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("books")))
+                .thenReturn(List.of(new Document("_id", b1)))
+                .thenReturn(List.of());
+        // u1 unsaved between our read of the slice and our copy: the toggle pulled u1 and deleted its save
+        when(savedBookRepo.insertAllIfAbsent(anyString(), anyList(), any(Instant.class))).thenAnswer(invocation -> {
+            legacy.get(b1).remove("u1");
+            return Map.of("u1", "s1", "u2", "s2");
+        });
+
+        migration.drainBatch();
+
+        verify(savedBookRepo).deleteAllById(List.of("s1"));
+    }
+
+    @Test
+    void nothingIsDeletedWhenEverySaveWasStillLegacy() {
+        legacy.put(b1, new ArrayList<>(List.of("u1")));
+        fakeBooksCollection();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("books")))
+                .thenReturn(List.of(new Document("_id", b1)));
+
+        migration.drainBatch();
+
+        verify(savedBookRepo, never()).deleteAllById(any());
+    }
+
+    //helper methods
+    @SuppressWarnings("unchecked")
+    private void fakeBooksCollection() {
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("books"))).thenAnswer(invocation -> {
+            Object id = invocation.<Query>getArgument(0).getQueryObject().get("_id");
+            if (failOnce.remove(id)) {
+                throw new IllegalStateException("socket timeout");
+            }
+            return new Document("_id", id).append("savedBy", List.copyOf(legacy.get(id)));
+        });
+        when(bookRepo.pullLegacySaves(anyString(), any())).thenAnswer(invocation -> {
+            List<String> users = legacy.get(new ObjectId(invocation.<String>getArgument(0)));
+            Set<String> pulled = new LinkedHashSet<>(invocation.<Collection<String>>getArgument(1));
+            pulled.retainAll(users);
+            users.removeAll(pulled);
+            return pulled;
+        });
+        when(savedBookRepo.insertAllIfAbsent(anyString(), anyList(), any(Instant.class))).thenReturn(Map.of());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("books"))).thenReturn(null);
+    }
+}
@@ -0,0 +1,207 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.ContinueReadingDTO;
+import com.bookhub.api.dto.ProgressSyncEntryDTO;
+import com.bookhub.api.dto.ProgressSyncResultDTO;
+import com.bookhub.api.dto.ReadingProgressDTO;
+import com.bookhub.api.model.Book;
+import com.bookhub.api.model.ReadingProgress;
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.model.UserPrincipal;
+import com.bookhub.api.repository.BookRepository;
+import com.bookhub.api.repository.ReadingHistoryRepositoryCustom.ContinueReading;
+import com.bookhub.api.repository.ReadingHistoryStore;
+import com.bookhub.api.repository.ReadingProgressRepository;
+import com.bookhub.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserActivityServiceTest {
+
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final HistoryWriteBuffer historyWriteBuffer = mock(HistoryWriteBuffer.class);
+    private final ReadingHistoryStore historyStore = mock(ReadingHistoryStore.class);
+    private final ReadingProgressRepository progressRepo = mock(ReadingProgressRepository.class);
+    private final ProgressWriteBuffer progressWriteBuffer = new ProgressWriteBuffer(progressRepo, 100, new SimpleMeterRegistry());
+    private final BookRepository bookRepo = mock(BookRepository.class);
+
+    private UserActivityService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserActivityService(historyStore, historyWriteBuffer, new CurrentUserService(userRepo),
+                progressRepo, progressWriteBuffer, bookRepo);
+
+        User user = User.builder().id("u1").email("reader@bookhub.com").role(Role.USER).build();
+        UserPrincipal principal = new UserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void saveProgressDoesNotQueryUsers() {
+        service.saveOrUpdateProgress("b1", progress(0.42, null));
+
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void delayedProgressFromAnotherDeviceDoesNotRollBackAndReadsSeeTheBuffer() {
+        Instant phoneTime = Instant.now().minusSeconds(60);
+        Instant tabletTime = phoneTime.plusSeconds(30);
+
+        service.saveOrUpdateProgress("b1", progress(0.50, tabletTime));
+        ReadingProgressDTO current = service.saveOrUpdateProgress("b1", progress(0.20, phoneTime));
+
+        assertEquals(0.50, current.getPercent());
+        assertEquals(tabletTime, current.getUpdatedAt());
+        assertEquals(0.50, service.getProgress("b1").getPercent());
+        verifyNoInteractions(progressRepo); // nothing written or read until the flush
+
+        progressWriteBuffer.flush();
+        ArgumentCaptor<List<ReadingProgress>> written = ArgumentCaptor.forClass(List.class);
+        verify(progressRepo).upsertAllIfNewer(written.capture());
+        assertEquals(1, written.getValue().size());
+        assertEquals(tabletTime, written.getValue().get(0).getClientUpdatedAt());
+    }
+
+    @Test
+    void deviceClockAheadOfTheServerIsClamped() {
+        ReadingProgressDTO saved = service.saveOrUpdateProgress("b1", progress(0.3, Instant.now().plusSeconds(3600)));
+
+        assertFalse(saved.getUpdatedAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchSyncWritesOnceAndReturnsServerStateForStaleEntries() {
+        Instant base = Instant.now().minusSeconds(600);
+        ReadingProgress stored = ReadingProgress.builder()
+                .userId("u1").bookId("b2").percent(0.9).format("EPUB")
+                .clientUpdatedAt(base.plusSeconds(300)).updatedAt(base.plusSeconds(300)).build();
+        when(progressRepo.upsertAllIfNewer(any())).thenReturn(Set.of(1));
+        when(progressRepo.findByUserIdAndBookIdIn(eq("u1"), eq(List.of("b2")))).thenReturn(List.of(stored));
+
+        List<ProgressSyncResultDTO> results = service.batchSyncProgress(List.of(
+                entry("b1", 0.1, base),
+                entry("b2", 0.4, base),
+                entry("b1", 0.2, base.plusSeconds(10))));
+
+        ArgumentCaptor<List<ReadingProgress>> written = ArgumentCaptor.forClass(List.class);
+        verify(progressRepo).upsertAllIfNewer(written.capture());
+        assertEquals(List.of("b1", "b2"), written.getValue().stream().map(ReadingProgress::getBookId).toList());
+
+        assertEquals(ProgressSyncResultDTO.Status.STALE, results.get(0).getStatus()); // lost to the later b1 entry
+        assertEquals(0.2, results.get(0).getCurrent().getPercent());
+        assertEquals(ProgressSyncResultDTO.Status.STALE, results.get(1).getStatus());
+        assertEquals(0.9, results.get(1).getCurrent().getPercent());
+        assertEquals(ProgressSyncResultDTO.Status.APPLIED, results.get(2).getStatus());
+        assertNull(results.get(2).getCurrent());
+    }
+
+    @Test
+    void aFailedBatchSyncKeepsTheOlderBufferedPosition() {
+        Instant base = Instant.now().minusSeconds(600);
+        service.saveOrUpdateProgress("b1", progress(0.3, base));
+        when(progressRepo.upsertAllIfNewer(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> service.batchSyncProgress(List.of(entry("b1", 0.5, base.plusSeconds(60)))));
+
+        assertEquals(0.3, service.getProgress("b1").getPercent());
+    }
+
+    @Test
+    void continueShelfPrefersANewerBufferedPosition() {
+        Instant stored = Instant.now().minusSeconds(600);
+        Book book = Book.builder().id("b1").title("Dune").author("Frank Herbert").build();
+        ReadingProgress storedProgress = ReadingProgress.builder()
+                .userId("u1").bookId("b1").percent(0.1).format("EPUB").clientUpdatedAt(stored).build();
+        when(historyStore.findContinueReading("u1", 20)).thenReturn(List.of(
+                new ContinueReading("h1", "b1", stored, book, storedProgress),
+                new ContinueReading("h2", "b2", stored, Book.builder().id("b2").title("Emma").build(), null)));
+
+        service.saveOrUpdateProgress("b1", progress(0.6, stored.plusSeconds(60)));
+        List<ContinueReadingDTO> shelf = service.getContinueReading(20);
+
+        assertEquals("Dune", shelf.get(0).getBook().getTitle());
+        assertEquals(0.6, shelf.get(0).getProgress().getPercent());
+        assertNull(shelf.get(1).getProgress());
+    }
+
+    @Test
+    void continueShelfIncludesOpensNotFlushedYet() {
+        Instant now = Instant.now();
+        Book dune = Book.builder().id("b1").title("Dune").build();
+        Book emma = Book.builder().id("b2").title("Emma").build();
+        when(historyStore.findContinueReading("u1", 2)).thenReturn(List.of(
+                new ContinueReading("h2", "b2", now.minusSeconds(300), emma, null),
+                new ContinueReading("h1", "b1", now.minusSeconds(600), dune, null)));
+        // Dune reopened, and Persuasion opened for the first time, since the last flush
+        when(historyWriteBuffer.pendingOpens("u1")).thenReturn(Map.of("b1", now, "b3", now.minusSeconds(10)));
+        when(bookRepo.findSummariesByIds(List.of("b3"))).thenReturn(List.of(Book.builder().id("b3").title("Persuasion").build()));
+
+        List<ContinueReadingDTO> shelf = service.getContinueReading(2);
+
+        assertEquals(List.of("Dune", "Persuasion"), shelf.stream().map(entry -> entry.getBook().getTitle()).toList());
+        assertEquals(now, shelf.get(0).getLastOpenedAt());
+    }
+
+    @Test
+    void logHistoryDoesNotQueryUsers() {
+        service.logHistory("b1");
+
+        verifyNoInteractions(userRepo);
+        // Nothing is written until the buffer flushes
+        verifyNoInteractions(historyStore);
+        verify(historyWriteBuffer).record(eq("u1"), eq("b1"), any(Instant.class));
+    }
+
+    private static ProgressSyncEntryDTO entry(String bookId, double percent, Instant updatedAt) {
+        ProgressSyncEntryDTO dto = new ProgressSyncEntryDTO();
+        dto.setBookId(bookId);
+        dto.setFormat("EPUB");
+        dto.setLocator(Map.of("cfi", "/6/4"));
+        dto.setPercent(percent);
+        dto.setUpdatedAt(updatedAt);
+        return dto;
+    }
+
+    private static ReadingProgressDTO progress(double percent, Instant updatedAt) {
+        ReadingProgressDTO dto = new ReadingProgressDTO();
+        dto.setFormat("EPUB");
+        dto.setLocator(Map.of("cfi", "/6/4"));
+        dto.setPercent(percent);
+        dto.setUpdatedAt(updatedAt);
+        return dto;
+    }
+}
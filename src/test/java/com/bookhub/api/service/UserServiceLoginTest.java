@@ -0,0 +1,44 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.dto.LoginRequestDTO;
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceLoginTest {
+
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final PasswordHashingService passwordHasher = mock(PasswordHashingService.class);
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+
+    @Test
+    void rehashOnLoginReplacesOnlyTheHashItChecked() {
+        User user = User.builder().id("u1").email("a@b.c").password("$2a$10$old").role(Role.USER).build();
+        when(userRepo.findByEmail("a@b.c")).thenReturn(Optional.of(user));
+        when(passwordHasher.matches("secret", "$2a$10$old")).thenReturn(true);
+        when(passwordHasher.needsRehash("$2a$10$old")).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(1).accept("$2a$12$new");
+            return null;
+        }).when(passwordHasher).rehashAsync(anyString(), any());
+
+        new UserService(jwtService, userRepo, passwordHasher, refreshTokenService)
+                .login(new LoginRequestDTO("a@b.c", "secret"));
+
+        verify(userRepo).replacePassword("u1", "$2a$10$old", "$2a$12$new");
+        verify(userRepo, never()).save(any());
+    }
+}
@@ -0,0 +1,49 @@
+package com.bookhub.api.service;
+
+import com.bookhub.api.model.Role;
+import com.bookhub.api.model.User;
+import com.bookhub.api.repository.UserRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserStatusServiceTest {
+
+    private final String userId = new ObjectId().toHexString();
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final UserStatusService userStatus = new UserStatusService(userRepo, Duration.ofHours(1));
+
+    @Test
+    void aRoleChangeTakesEffectOnTheNextRequestNotAfterTheTtl() {
+        User admin = User.builder().id(userId).role(Role.ADMIN).build();
+        when(userRepo.findById(userId)).thenReturn(Optional.of(admin));
+        assertTrue(userStatus.hasRole(userId, Role.ADMIN));
+
+        User demoted = User.builder().id(userId).role(Role.USER).build();
+        when(userRepo.findById(userId)).thenReturn(Optional.of(demoted));
+        userStatus.onAfterSave(new AfterSaveEvent<>(demoted, new Document(), "users"));
+
+        assertFalse(userStatus.hasRole(userId, Role.ADMIN));
+    }
+
+    @Test
+    void aDeletedUserLosesAccessOnTheNextRequest() {
+        when(userRepo.findById(userId)).thenReturn(Optional.of(User.builder().id(userId).role(Role.USER).build()));
+        assertTrue(userStatus.hasRole(userId, Role.USER));
+
+        when(userRepo.findById(userId)).thenReturn(Optional.empty());
+        userStatus.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", new ObjectId(userId)), User.class, "users"));
+
+        assertFalse(userStatus.hasRole(userId, Role.USER));
+    }
+}
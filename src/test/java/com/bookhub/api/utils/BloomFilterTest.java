@@ -0,0 +1,48 @@
+package com.bookhub.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 100_000;
+
+    @Test
+    void neverMissesAnAddedValue() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        String[] added = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            added[i] = UUID.randomUUID().toString();
+            filter.add(added[i]);
+        }
+
+        for (String value : added) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearWhatItWasSizedFor() {
+        for (double target : new double[]{0.01, 0.001}) {
+            BloomFilter filter = new BloomFilter(ENTRIES, target);
+            for (int i = 0; i < ENTRIES; i++) {
+                filter.add(UUID.randomUUID().toString());
+            }
+
+            int probes = 200_000;
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++) {
+                if (filter.mightContain(UUID.randomUUID().toString())) {
+                    falsePositives++;
+                }
+            }
+            double rate = (double) falsePositives / probes;
+            // Filled to the expected size; allow some slack either way for the randomness
+            assertTrue(rate < target * 1.5, "rate " + rate + " for target " + target);
+            assertTrue(rate > target / 3, "rate " + rate + " for target " + target);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.bookhub.api.utils;
+
+import com.bookhub.api.dto.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagsTest {
+
+    @Test
+    void listTagsFollowContentAndPaging() {
+        PageRequest first = PageRequest.of(0, 2);
+        String tag = ETags.forSlice(new PageImpl<>(List.of("a", "b"), first, 5));
+
+        assertTrue(tag.startsWith("\"") && tag.endsWith("\""));
+        assertEquals(tag, ETags.forSlice(new PageImpl<>(List.of("a", "b"), first, 5)));
+        assertNotEquals(tag, ETags.forSlice(new PageImpl<>(List.of("a", "c"), first, 5)));
+        // Same rows, but a book was added further down the list
+        assertNotEquals(tag, ETags.forSlice(new PageImpl<>(List.of("a", "b"), first, 6)));
+        assertNotEquals(tag, ETags.forSlice(new SliceImpl<>(List.of("a", "b"), first, true)));
+
+        CursorPage<String> page = new CursorPage<>(List.of("a"), 1, "next", true);
+        assertNotEquals(ETags.forCursorPage(page), ETags.forCursorPage(new CursorPage<>(List.of("a"), 1, null, false)));
+    }
+
+    @Test
+    void versionTagsChangeWithModificationTime() {
+        assertEquals(ETags.forVersion("b1", 1000), ETags.forVersion("b1", 1000));
+        assertNotEquals(ETags.forVersion("b1", 1000), ETags.forVersion("b1", 1001));
+        assertNotEquals(ETags.forVersion("b1", 1000), ETags.forVersion("b2", 1000));
+    }
+}
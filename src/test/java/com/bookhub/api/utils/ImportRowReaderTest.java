@@ -0,0 +1,81 @@
+package com.bookhub.api.utils;
+
+import com.bookhub.api.dto.BookImportRowDTO;
+import com.bookhub.api.exception.ValidationException;
+import com.bookhub.api.model.ImportJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImportRowReaderTest {
+
+    private final ObjectReader json = new ObjectMapper().readerFor(BookImportRowDTO.class);
+
+    @Test
+    void readsCsvWithQuotesAndMultiValueColumns() throws IOException {
+        String csv = """
+                Title,Author,categoryIds,bookFiles
+                "Dune, Deluxe","Frank ""F."" Herbert",c1|c2,dune.epub
+
+                Emma,Jane Austen,,
+                """;
+        try (ImportRowReader reader = reader(csv, ImportJob.Format.CSV)) {
+            List<ImportRowReader.Row> rows = reader.next(10);
+
+            assertEquals(2, rows.size());
+            BookImportRowDTO dune = rows.get(0).book();
+            assertEquals("Dune, Deluxe", dune.getTitle());
+            assertEquals("Frank \"F.\" Herbert", dune.getAuthor());
+            assertEquals(List.of("c1", "c2"), dune.getCategoryIds());
+            assertEquals(List.of("dune.epub"), dune.getBookFiles());
+            assertEquals(2, rows.get(0).line());
+
+            // The blank line isn't a row but still counts for line numbers
+            assertEquals(4, rows.get(1).line());
+            assertNull(rows.get(1).book().getCategoryIds());
+        }
+    }
+
+    @Test
+    void badJsonLinesBecomeRowErrorsAndSkipResumesAfterACheckpoint() throws IOException {
+        String ndjson = """
+                {"title":"A","author":"X"}
+                {not json
+                {"title":"C","author":"Z","categoryIds":["c1"]}
+                """;
+        try (ImportRowReader reader = reader(ndjson, ImportJob.Format.NDJSON)) {
+            List<ImportRowReader.Row> rows = reader.next(10);
+            assertEquals("A", rows.get(0).book().getTitle());
+            assertNull(rows.get(1).book());
+            assertNotNull(rows.get(1).error());
+        }
+
+        try (ImportRowReader reader = reader(ndjson, ImportJob.Format.NDJSON)) {
+            assertEquals(2, reader.skip(2));
+            List<ImportRowReader.Row> rest = reader.next(10);
+            assertEquals(1, rest.size());
+            assertEquals("C", rest.get(0).book().getTitle());
+            assertEquals(3, rest.get(0).line());
+            assertEquals(List.of(), reader.next(10));
+        }
+    }
+
+    @Test
+    void csvWithoutRequiredColumnsIsRejected() {
+        assertThrows(ValidationException.class, () -> reader("name,writer\nA,B\n", ImportJob.Format.CSV));
+    }
+
+    private ImportRowReader reader(String content, ImportJob.Format format) throws IOException {
+        return new ImportRowReader(new BufferedReader(new StringReader(content)), format, json);
+    }
+}
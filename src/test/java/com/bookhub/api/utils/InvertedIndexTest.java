@@ -0,0 +1,84 @@
+package com.bookhub.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @Test
+    void foldsAccentsAndArabicSpellingVariants() {
+        assertEquals(List.of("les", "miserables"), TextNormalizer.tokenize("Les Misérables"));
+        // Harakat, hamza-on-alef and taa marbuta all fold away
+        assertEquals(TextNormalizer.tokenize("المكتبه"), TextNormalizer.tokenize("المَكْتَبَة"));
+        assertEquals(TextNormalizer.tokenize("احمد"), TextNormalizer.tokenize("أحمد"));
+        assertEquals(TextNormalizer.tokenize("مكتبه 2024"), TextNormalizer.tokenize("مكتبـــة ٢٠٢٤"));
+    }
+
+    @Test
+    void ranksDocumentsWithMoreMatchingTermsFirst() {
+        InvertedIndex index = new InvertedIndex();
+        index.put("dune", TextNormalizer.tokenize("Dune Frank Herbert desert planet"), List.of("scifi"));
+        index.put("foundation", TextNormalizer.tokenize("Foundation Isaac Asimov galactic empire"), List.of("scifi"));
+        index.put("desert", TextNormalizer.tokenize("Desert Solitaire Edward Abbey"), List.of("nature"));
+
+        InvertedIndex.Hits hits = index.search(TextNormalizer.tokenize("desert planet"), null, 0, 10);
+
+        assertEquals(2, hits.total());
+        assertEquals(List.of("dune", "desert"), hits.keys());
+    }
+
+    @Test
+    void filtersByTagAndPages() {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < 25; i++) {
+            index.put("book-" + i, TextNormalizer.tokenize("history volume " + i), List.of(i % 2 == 0 ? "even" : "odd"));
+        }
+
+        InvertedIndex.Hits firstPage = index.search(List.of("history"), List.of("even"), 0, 10);
+        InvertedIndex.Hits lastPage = index.search(List.of("history"), List.of("even"), 10, 10);
+
+        assertEquals(13, firstPage.total());
+        assertEquals(10, firstPage.keys().size());
+        assertEquals(3, lastPage.keys().size());
+        assertTrue(lastPage.keys().stream().noneMatch(firstPage.keys()::contains));
+    }
+
+    @Test
+    void reindexingAndRemovalAreReflectedInResults() {
+        InvertedIndex index = new InvertedIndex();
+        index.put("a", List.of("old", "title"), null);
+        index.put("b", List.of("other"), null);
+
+        index.put("a", List.of("new", "title"), null);
+        assertEquals(0, index.search(List.of("old"), null, 0, 10).total());
+        assertEquals(List.of("a"), index.search(List.of("new"), null, 0, 10).keys());
+
+        index.remove("a");
+        assertEquals(0, index.search(List.of("title"), null, 0, 10).total());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void churnReusesFreedSlotsInsteadOfGrowing() {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < 10; i++) {
+            index.put("book-" + i, List.of("stable"), null);
+        }
+        for (int round = 0; round < 1000; round++) {
+            index.put("churn-" + round, List.of("churn", "round" + round), List.of("t"));
+            index.remove("churn-" + round);
+        }
+
+        assertEquals(10, index.size());
+        assertTrue(index.slotCount() <= 13, "slots: " + index.slotCount());
+        assertEquals(10, index.search(List.of("stable"), null, 0, 20).total());
+        assertEquals(0, index.search(List.of("churn"), null, 0, 20).total());
+
+        index.put("new", List.of("stable", "fresh"), null);
+        assertEquals(List.of("new"), index.search(List.of("fresh"), null, 0, 10).keys());
+    }
+}
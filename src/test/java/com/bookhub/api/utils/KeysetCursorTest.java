@@ -0,0 +1,65 @@
+package com.bookhub.api.utils;
+
+import com.bookhub.api.dto.CursorPage;
+import com.bookhub.api.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsSortValueAndId() {
+        LocalDateTime addedOn = LocalDateTime.of(2024, 3, 1, 12, 30, 5, 123_000_000);
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(addedOn, "65f1c0ffee").encode());
+
+        assertEquals(addedOn, cursor.sortValueAsLocalDateTime());
+        assertEquals("65f1c0ffee", cursor.id());
+
+        Instant openedAt = Instant.parse("2024-03-01T12:30:05.123Z");
+        assertEquals(openedAt, KeysetCursor.decode(KeysetCursor.of(openedAt, "x").encode()).sortValueAsInstant());
+
+        KeysetCursor idOnly = KeysetCursor.decode(KeysetCursor.of(null, "abc").encode());
+        assertNull(idOnly.sortValue());
+        assertEquals("abc", idOnly.id());
+    }
+
+    @Test
+    void blankMeansFirstPageAndGarbageIsRejected() {
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode(null));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("aGVsbG8"));
+    }
+
+    @Test
+    void pageUsesTheExtraItemOnlyToSignalMore() {
+        Function<String, KeysetCursor> cursorOf = id -> KeysetCursor.of(null, id);
+
+        CursorPage<String> full = CursorPage.of(List.of("c", "b", "a"), 2, cursorOf, Function.identity());
+        assertEquals(List.of("c", "b"), full.getContent());
+        assertTrue(full.isHasNext());
+        assertEquals("b", KeysetCursor.decode(full.getNextCursor()).id());
+
+        CursorPage<String> last = CursorPage.of(List.of("a"), 2, cursorOf, Function.identity());
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void requestedSizeIsKeptWithinBounds() {
+        assertEquals(1, CursorPage.clampSize(0));
+        assertEquals(1, CursorPage.clampSize(-5));
+        assertEquals(20, CursorPage.clampSize(20));
+        assertEquals(CursorPage.MAX_SIZE, CursorPage.clampSize(10_000));
+    }
+}
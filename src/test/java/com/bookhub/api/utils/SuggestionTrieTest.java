@@ -0,0 +1,82 @@
+package com.bookhub.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    private static SuggestionTrie.Suggestion title(String id, String text, long popularity) {
+        return new SuggestionTrie.Suggestion(id, text, id, popularity);
+    }
+
+    private static List<String> ids(List<SuggestionTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionTrie.Suggestion::id).toList();
+    }
+
+    @Test
+    void returnsMostPopularMatchesForPrefixEndingMidEdge() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.put("dune", title("dune", "Dune", 5));
+        trie.put("dune messiah", title("messiah", "Dune Messiah", 9));
+        trie.put("dubliners", title("dubliners", "Dubliners", 7));
+        trie.put("emma", title("emma", "Emma", 100));
+
+        assertEquals(List.of("messiah", "dubliners"), ids(trie.suggest("du", 10)));
+        assertEquals(List.of("messiah", "dune"), ids(trie.suggest("dun", 10)));
+        assertEquals(List.of("messiah"), ids(trie.suggest("dune m", 10)));
+        assertTrue(trie.suggest("dx", 10).isEmpty());
+        assertTrue(trie.suggest("dune messiahs", 10).isEmpty());
+    }
+
+    @Test
+    void sameSuggestionUnderSeveralKeysIsListedOnce() {
+        SuggestionTrie trie = new SuggestionTrie(5);
+        SuggestionTrie.Suggestion herbert = new SuggestionTrie.Suggestion("author:herbert", "Frank Herbert", null, 3);
+        trie.put("frank herbert", herbert);
+        trie.put("herbert", herbert);
+        trie.put("herbal remedies", title("herbal", "Herbal Remedies", 1));
+
+        assertEquals(List.of("author:herbert", "herbal"), ids(trie.suggest("her", 10)));
+        assertEquals(List.of("author:herbert", "herbal"), ids(trie.suggest("", 10)));
+    }
+
+    @Test
+    void popularityChangesAndRemovalsReorderCachedTopLists() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.put("alpha", title("a", "Alpha", 1));
+        trie.put("alps", title("b", "Alps", 2));
+        trie.put("altar", title("c", "Altar", 3));
+        assertEquals(List.of("c", "b"), ids(trie.suggest("al", 10)));
+
+        trie.put("alpha", title("a", "Alpha", 10));
+        assertEquals(List.of("a", "c"), ids(trie.suggest("al", 10)));
+
+        trie.remove("alpha", "a");
+        trie.remove("altar", "c");
+        assertEquals(List.of("b"), ids(trie.suggest("al", 10)));
+        assertTrue(trie.suggest("alph", 10).isEmpty());
+    }
+
+    @Test
+    void removalMergesALeftoverSplitBackIntoOneEdge() {
+        SuggestionTrie trie = new SuggestionTrie(5);
+        trie.put("cart", title("cart", "Cart", 1));
+        trie.put("care", title("care", "Care", 2));
+        trie.put("car", title("car", "Car", 3));
+        assertEquals(3, trie.nodeCount()); // "car" -> "t", "e"
+
+        trie.remove("care", "care");
+        trie.remove("car", "car");
+        assertEquals(1, trie.nodeCount()); // just "cart"
+        assertEquals(List.of("cart"), ids(trie.suggest("ca", 10)));
+        assertEquals(List.of("cart"), ids(trie.suggest("cart", 10)));
+
+        trie.put("care", title("care", "Care", 2));
+        assertEquals(List.of("care", "cart"), ids(trie.suggest("car", 10)));
+        assertEquals(3, trie.nodeCount());
+    }
+}
@@ -0,0 +1,85 @@
+package com.bookhub.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 5_000;
+
+    @Test
+    void neverHandsOutMoreThanCapacityUnderContention() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1_000, 10, Duration.ofSeconds(1), clock::get);
+
+        assertEquals(1_000, hammer(bucket));
+    }
+
+    @Test
+    void refillsExactlyWhatElapsedTimeAllowsUnderContention() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(100, 10, Duration.ofSeconds(1), clock::get);
+        assertEquals(100, hammer(bucket));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(50, hammer(bucket));
+
+        // Refill is capped at capacity however long the bucket sat idle
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertEquals(100, hammer(bucket));
+    }
+
+    @Test
+    void reportsWaitUntilNextToken() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1, 1, Duration.ofSeconds(2), clock::get);
+
+        assertEquals(0, bucket.tryConsume());
+        long wait = bucket.tryConsume();
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(2));
+
+        clock.addAndGet(wait);
+        assertEquals(0, bucket.tryConsume());
+    }
+
+    private static int hammer(TokenBucket bucket) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        if (bucket.tryConsume() == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return granted.get();
+    }
+}